@@ -0,0 +1,78 @@
+#!/usr/bin/env bash
+
+set -e
+set -u
+set -o pipefail
+
+# Usage: ./compare.sh <baseline> <candidate> [JMH options]
+#
+# Runs the benchmarks against two versions of jsonmatch and prints score and
+# allocation per operation side by side. A version is "current" for the
+# working tree, a git revision, or a released version from Maven Central.
+
+if [[ $# -lt 2 ]]; then
+    echo "Usage: $0 <baseline> <candidate> [JMH options]" >&2
+    exit 1
+fi
+
+cd "$(dirname "$0")"
+baseline="$1"
+candidate="$2"
+shift 2
+
+# Packages the library in a directory and installs it as the given version.
+# Only compiles and packages, the full build would regenerate the docs.
+install_library() {
+    (
+        cd "$1"
+        mvn -B -q -Dproject.build.sourceEncoding=UTF-8 compile jar:jar
+        sed "s%<version>VERSION</version>%<version>$2</version>%" pom.xml > target/benchmark-pom.xml
+        mvn -B -q install:install-file -Dfile=target/jsonmatch-VERSION.jar -DpomFile=target/benchmark-pom.xml
+    )
+}
+
+run() {
+    local version="$1"
+    local label="$1"
+    shift
+    if [[ "${version}" == "current" ]]; then
+        version="current-SNAPSHOT"
+        install_library .. "${version}"
+    elif git rev-parse --quiet --verify "${version}^{commit}" > /dev/null; then
+        version="git-$(git rev-parse --short "${version}^{commit}")"
+        local worktree
+        worktree="$(mktemp -d)"
+        git worktree add --quiet --detach "${worktree}" "${label}"
+        install_library "${worktree}" "${version}"
+        git worktree remove --force "${worktree}"
+    fi
+    mvn -B -q clean package -Djsonmatch.version="${version}"
+    mkdir -p results
+    java -jar target/benchmarks.jar -rf csv -rff "results/${label//\//_}.csv" "$@"
+}
+
+run "${baseline}" "$@"
+run "${candidate}" "$@"
+
+awk -F, '
+    FNR == 1 { next }
+    {
+        name = $1
+        gsub(/"|jsonmatch\.benchmarks\./, "", name)
+        if (name ~ /:/ && name !~ /gc\.alloc\.rate\.norm$/) next
+        key = name
+        for (i = 8; i <= NF; i++) { value = $i; gsub(/"/, "", value); key = key " " value }
+        unit = $7
+        gsub(/"/, "", unit)
+        if (NR == FNR) { baseline[key] = $5; units[key] = unit; keys[++n] = key } else { candidate[key] = $5 }
+    }
+    END {
+        printf "%-75s %15s %15s %8s\n", "Benchmark", "'"${baseline}"'", "'"${candidate}"'", "Change"
+        for (i = 1; i <= n; i++) {
+            key = keys[i]
+            if (!(key in candidate)) continue
+            change = baseline[key] == 0 ? 0 : (candidate[key] - baseline[key]) * 100 / baseline[key]
+            printf "%-75s %15.1f %15.1f %+7.1f%% %s\n", key, baseline[key], candidate[key], change, units[key]
+        }
+    }
+' "results/${baseline//\//_}.csv" "results/${candidate//\//_}.csv"
@@ -0,0 +1,96 @@
+package jsonmatch.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jsonmatch.Matcher;
+import jsonmatch.MatcherCodeGenerator;
+import jsonmatch.MatcherCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The verdict of a matcher tree, compiled and generated, on documents that
+ * match. Uses API that released versions don't have, see README.md.
+ *
+ * Generated classes are code the JIT hasn't seen before, so they are
+ * warmed up for longer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodeGenerationBenchmark {
+    public enum Variant {
+        TREE {
+            @Override
+            Matcher of(Matcher tree) {
+                return tree;
+            }
+        },
+        COMPILED {
+            @Override
+            Matcher of(Matcher tree) {
+                return MatcherCompiler.compile(tree);
+            }
+        },
+        GENERATED {
+            @Override
+            Matcher of(Matcher tree) {
+                return MatcherCodeGenerator.generate(tree, true);
+            }
+        };
+
+        abstract Matcher of(Matcher tree);
+    }
+
+    @Param({"TREE", "COMPILED", "GENERATED"})
+    public Variant variant;
+
+    @Param({"WIDE", "DEEP", "LONG"})
+    public Shape shape;
+
+    @Param({"16", "256"})
+    public int size;
+
+    private Matcher matcher;
+    private String json;
+    private JsonNode node;
+
+    @Setup
+    public void setUp() throws IOException {
+        matcher = variant.of(shape.matcher(size, false));
+        json = shape.document(size, true);
+        node = Matcher.mapper.readTree(json);
+        if (!matcher.matches(node) || !matcher.matches(json)) {
+            throw new IllegalStateException("Benchmark document should match: " + json);
+        }
+    }
+
+    @Benchmark
+    public boolean matchesNode() {
+        return matcher.matches(node);
+    }
+
+    @Benchmark
+    public boolean matchesString() {
+        return matcher.matches(json);
+    }
+
+    @Benchmark
+    public boolean matchString() {
+        return matcher.match(json).isMatch();
+    }
+}
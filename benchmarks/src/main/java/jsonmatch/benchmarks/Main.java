@@ -0,0 +1,34 @@
+package jsonmatch.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks like JMH's own main class, but always with the GC
+ * profiler, so every benchmark reports its allocation rate next to its
+ * throughput.
+ */
+public class Main {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        boolean gcProfiled = commandLine.getProfilers().stream()
+            .anyMatch(profiler -> profiler.getKlass().equals("gc") || profiler.getKlass().equals(GCProfiler.class.getName()));
+        if (!gcProfiled) {
+            options.addProfiler(GCProfiler.class);
+        }
+        Runner runner = new Runner(options.build());
+        if (commandLine.shouldList()) {
+            runner.list();
+            return;
+        }
+        runner.run();
+    }
+}
@@ -0,0 +1,60 @@
+package jsonmatch.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jsonmatch.Matcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Matching, from a string and from a parsed tree, on the success and on the mismatch path. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchBenchmark {
+    @Param({"WIDE", "DEEP", "LONG"})
+    public Shape shape;
+
+    @Param({"16", "256"})
+    public int size;
+
+    @Param({"true", "false"})
+    public boolean matching;
+
+    private Matcher matcher;
+    private String json;
+    private JsonNode node;
+
+    @Setup
+    public void setUp() throws IOException {
+        matcher = shape.matcher(size, false);
+        json = shape.document(size, matching);
+        node = Matcher.mapper.readTree(json);
+        if (matcher.match(node).isMatch() != matching) {
+            throw new IllegalStateException("Unexpected verdict for " + json);
+        }
+    }
+
+    @Benchmark
+    public boolean matchString() {
+        return matcher.match(json).isMatch();
+    }
+
+    @Benchmark
+    public boolean matchNode() {
+        return matcher.match(node).isMatch();
+    }
+}
@@ -0,0 +1,131 @@
+package jsonmatch.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jsonmatch.ArrayMatcher;
+import jsonmatch.Matcher;
+import jsonmatch.ObjectMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static jsonmatch.JsonMatch.array;
+import static jsonmatch.JsonMatch.eq;
+import static jsonmatch.JsonMatch.object;
+
+/**
+ * The time a mismatch takes at doubling sizes, which should double too.
+ * The cases are the ones that have been quadratic before: wide objects
+ * with a mismatch or with all fields missing, and long arrays with a
+ * mismatch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScalingBenchmark {
+    public enum Case {
+        /** An object with a mismatch in its last field. */
+        WIDE_MISMATCH {
+            @Override
+            Matcher matcher(int size) {
+                ObjectMatcher.Builder matcher = object().ignoreExtraFields(false);
+                for (int i = 0; i < size; i++) {
+                    matcher.with("field" + i, eq(i));
+                }
+                return matcher.build();
+            }
+
+            @Override
+            String document(int size) {
+                StringBuilder json = new StringBuilder("{");
+                for (int i = 0; i < size; i++) {
+                    json.append(i == 0 ? "" : ",").append("\"field").append(i).append("\":").append(i == size - 1 ? -1 : i);
+                }
+                return json.append('}').toString();
+            }
+        },
+        /** An object that has none of the expected fields. */
+        WIDE_MISSING {
+            @Override
+            Matcher matcher(int size) {
+                ObjectMatcher.Builder matcher = object();
+                for (int i = 0; i < size; i++) {
+                    matcher.with("field" + i, eq(i));
+                }
+                return matcher.build();
+            }
+
+            @Override
+            String document(int size) {
+                return "{\"other\":1}";
+            }
+        },
+        /** An array of small objects with a mismatch in the last one. */
+        LONG_MISMATCH {
+            @Override
+            Matcher matcher(int size) {
+                ArrayMatcher.Builder matcher = array();
+                for (int i = 0; i < size; i++) {
+                    matcher.with(object().with("id", eq(i)).build());
+                }
+                return matcher.build();
+            }
+
+            @Override
+            String document(int size) {
+                StringBuilder json = new StringBuilder("[");
+                for (int i = 0; i < size; i++) {
+                    json.append(i == 0 ? "" : ",").append("{\"id\":").append(i == size - 1 ? -1 : i).append('}');
+                }
+                return json.append(']').toString();
+            }
+        };
+
+        abstract Matcher matcher(int size);
+
+        abstract String document(int size);
+    }
+
+    @Param({"WIDE_MISMATCH", "WIDE_MISSING", "LONG_MISMATCH"})
+    public Case matchCase;
+
+    @Param({"1000", "2000", "4000"})
+    public int size;
+
+    private Matcher matcher;
+    private String json;
+    private JsonNode node;
+
+    @Setup
+    public void setUp() throws IOException {
+        matcher = matchCase.matcher(size);
+        json = matchCase.document(size);
+        node = Matcher.mapper.readTree(json);
+        if (matcher.match(node).isMatch()) {
+            throw new IllegalStateException("Benchmark document shouldn't match: " + json);
+        }
+    }
+
+    @Benchmark
+    public boolean matchNode() {
+        return matcher.match(node).isMatch();
+    }
+
+    @Benchmark
+    public boolean matchString() {
+        return matcher.match(json).isMatch();
+    }
+}
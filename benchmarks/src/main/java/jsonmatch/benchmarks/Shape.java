@@ -0,0 +1,98 @@
+package jsonmatch.benchmarks;
+
+import jsonmatch.ArrayMatcher;
+import jsonmatch.Matcher;
+import jsonmatch.ObjectMatcher;
+
+import static jsonmatch.JsonMatch.annotate;
+import static jsonmatch.JsonMatch.array;
+import static jsonmatch.JsonMatch.eq;
+import static jsonmatch.JsonMatch.object;
+
+/**
+ * The documents the benchmarks match, each with a matcher that expects all
+ * of it. Only the API of released versions is used, so that any two
+ * versions can be compared.
+ */
+public enum Shape {
+    /** One object with {@code size} fields. */
+    WIDE {
+        @Override
+        String document(int size, boolean matching) {
+            StringBuilder json = new StringBuilder("{");
+            for (int i = 0; i < size; i++) {
+                json.append(i == 0 ? "" : ",").append("\"field").append(i).append("\":\"")
+                    .append(matching || i < size - 1 ? "value" + i : "other").append('"');
+            }
+            return json.append('}').toString();
+        }
+
+        @Override
+        Matcher matcher(int size, boolean annotated) {
+            ObjectMatcher.Builder object = object().ignoreExtraFields(false);
+            for (int i = 0; i < size; i++) {
+                Matcher value = eq("value" + i);
+                object.with("field" + i, annotated && i % 4 == 0 ? annotate(value, "field " + i) : value);
+            }
+            return annotated ? annotate(object.build(), "wide object") : object.build();
+        }
+    },
+    /** Objects nested {@code size} levels deep. */
+    DEEP {
+        @Override
+        String document(int size, boolean matching) {
+            StringBuilder json = new StringBuilder();
+            for (int i = 0; i < size; i++) {
+                json.append("{\"level\":").append(i).append(",\"child\":");
+            }
+            json.append(matching ? "\"leaf\"" : "\"other\"");
+            for (int i = 0; i < size; i++) {
+                json.append('}');
+            }
+            return json.toString();
+        }
+
+        @Override
+        Matcher matcher(int size, boolean annotated) {
+            Matcher matcher = eq("leaf");
+            for (int i = size - 1; i >= 0; i--) {
+                matcher = object().with("level", eq(i)).with("child", matcher).build();
+                if (annotated) {
+                    matcher = annotate(matcher, "level " + i);
+                }
+            }
+            return matcher;
+        }
+    },
+    /** An array of {@code size} small objects. */
+    LONG {
+        @Override
+        String document(int size, boolean matching) {
+            StringBuilder json = new StringBuilder("[");
+            for (int i = 0; i < size; i++) {
+                json.append(i == 0 ? "" : ",").append("{\"id\":").append(matching || i < size - 1 ? i : -1)
+                    .append(",\"name\":\"item").append(i).append("\",\"tags\":[\"a\",\"b\"]}");
+            }
+            return json.append(']').toString();
+        }
+
+        @Override
+        Matcher matcher(int size, boolean annotated) {
+            ArrayMatcher.Builder array = array();
+            for (int i = 0; i < size; i++) {
+                Matcher element = object()
+                    .with("id", eq(i))
+                    .with("name", eq("item" + i))
+                    .with("tags", array().with(eq("a")).with(eq("b")).build())
+                    .build();
+                array.with(annotated ? annotate(element, "item " + i) : element);
+            }
+            return array.build();
+        }
+    };
+
+    /** The last value differs if it isn't {@code matching}. */
+    abstract String document(int size, boolean matching);
+
+    abstract Matcher matcher(int size, boolean annotated);
+}
@@ -0,0 +1,53 @@
+package jsonmatch.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jsonmatch.Matcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching and visualising a mismatch, with and without annotations. The
+ * annotated matchers exercise the annotation and indentation layout.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VisualisationBenchmark {
+    @Param({"WIDE", "DEEP", "LONG"})
+    public Shape shape;
+
+    @Param({"16", "256"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean annotated;
+
+    private Matcher matcher;
+    private JsonNode node;
+
+    @Setup
+    public void setUp() throws IOException {
+        matcher = shape.matcher(size, annotated);
+        node = Matcher.mapper.readTree(shape.document(size, false));
+    }
+
+    @Benchmark
+    public String visualize() {
+        return matcher.match(node).visualize();
+    }
+}
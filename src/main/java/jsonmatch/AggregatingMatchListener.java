@@ -0,0 +1,78 @@
+package jsonmatch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts calls, failures and time per path, for any number of matching
+ * threads at once.
+ *
+ * Counting doesn't lock: after the first visit of a path, a call is a map
+ * lookup and a few {@link LongAdder} increments. The statistics can be
+ * queried while matching goes on; they are then not a consistent snapshot,
+ * but each of them is up to date.
+ */
+public class AggregatingMatchListener implements MatchListener {
+    private final ConcurrentMap<String, Counters> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public void onExit(String path, Class<? extends Matcher> matcherType, boolean matched, long elapsedNanos) {
+        Counters pathCounters = counters.get(path);
+        if (pathCounters == null) {
+            pathCounters = counters.computeIfAbsent(path, p -> new Counters(matcherType));
+        }
+        pathCounters.calls.increment();
+        pathCounters.nanos.add(elapsedNanos);
+        if (!matched) {
+            pathCounters.failures.increment();
+        }
+    }
+
+    /** The statistics of all paths seen so far, in no particular order. */
+    public List<PathStatistics> getStatistics() {
+        List<PathStatistics> statistics = new ArrayList<>(counters.size());
+        counters.forEach((path, pathCounters) -> statistics.add(pathCounters.statistics(path)));
+        return statistics;
+    }
+
+    /** The paths that took the most time, inclusive of their nested values. */
+    public List<PathStatistics> hotPaths(int limit) {
+        return top(Comparator.comparingLong(PathStatistics::getTotalNanos), limit);
+    }
+
+    /** The paths that failed most often, leaving out those that never failed. */
+    public List<PathStatistics> topFailurePaths(int limit) {
+        List<PathStatistics> top = top(Comparator.comparingLong(PathStatistics::getFailures), limit);
+        top.removeIf(statistics -> statistics.getFailures() == 0);
+        return top;
+    }
+
+    public void reset() {
+        counters.clear();
+    }
+
+    private List<PathStatistics> top(Comparator<PathStatistics> comparator, int limit) {
+        List<PathStatistics> statistics = getStatistics();
+        statistics.sort(comparator.reversed().thenComparing(PathStatistics::getPath));
+        return new ArrayList<>(statistics.subList(0, Math.min(limit, statistics.size())));
+    }
+
+    private static class Counters {
+        final Class<? extends Matcher> matcherType;
+        final LongAdder calls = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+
+        Counters(Class<? extends Matcher> matcherType) {
+            this.matcherType = matcherType;
+        }
+
+        PathStatistics statistics(String path) {
+            return new PathStatistics(path, matcherType, calls.sum(), failures.sum(), nanos.sum());
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package jsonmatch;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import lombok.Value;
 
+import java.io.IOException;
+
 @Value
 public class AnnotatedMatcher implements Matcher {
 
@@ -14,4 +17,29 @@ public class AnnotatedMatcher implements Matcher {
         return new AnnotatedResult(matcher.match(parsed), annotation);
     }
 
+    @Override
+    public Result match(JsonParser parser) throws IOException {
+        return new AnnotatedResult(matcher.match(parser), annotation);
+    }
+
+    @Override
+    public <N> Result match(N value, NodeAccess<N> access) {
+        return new AnnotatedResult(matcher.match(value, access), annotation);
+    }
+
+    @Override
+    public boolean matches(JsonNode parsed) {
+        return matcher.matches(parsed);
+    }
+
+    @Override
+    public <N> boolean matches(N value, NodeAccess<N> access) {
+        return matcher.matches(value, access);
+    }
+
+    @Override
+    public boolean matches(JsonParser parser) throws IOException {
+        return matcher.matches(parser);
+    }
+
 }
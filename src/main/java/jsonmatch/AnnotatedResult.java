@@ -1,5 +1,8 @@
 package jsonmatch;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+
 public class AnnotatedResult implements Result {
     private final Result result;
     private final String annotation;
@@ -9,11 +12,26 @@ public class AnnotatedResult implements Result {
         this.annotation = annotation;
     }
 
+    Result getResult() {
+        return result;
+    }
+
     @Override
     public boolean isMatch() {
         return result.isMatch();
     }
 
+    @Override
+    public int getMismatchCount() {
+        return result.getMismatchCount();
+    }
+
+    @Override
+    public void visualize(Appendable out, VisualisationContext context) throws IOException {
+        // the annotation is laid out next to the widest line, so the annotated part is rendered up front
+        out.append(visualize(context));
+    }
+
     @Override
     public String visualize(VisualisationContext context) {
         if (context != null) {
@@ -21,4 +39,18 @@ public class AnnotatedResult implements Result {
         }
         return TextUtils.annotate(result.visualize(), annotation);
     }
+
+    @Override
+    public Result detach(int maxValueLength) {
+        return new AnnotatedResult(result.detach(maxValueLength), annotation);
+    }
+
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        JsonReport.writeStart(generator, "annotated", isMatch());
+        generator.writeStringField("annotation", annotation);
+        generator.writeFieldName("result");
+        result.writeJson(generator);
+        generator.writeEndObject();
+    }
 }
@@ -1,35 +1,83 @@
 package jsonmatch;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static jsonmatch.NodeType.ARRAY;
 
 public class ArrayMatcher implements Matcher{
+    /** Never split work below this many elements per task. */
+    private static final int MIN_CHUNK = 64;
+
     private final List<Matcher> elementMatchers;
+    private final Matcher[] elements;
+    private final int parallelThreshold;
 
     public ArrayMatcher(List<Matcher> elementMatchers) {
-        this.elementMatchers = elementMatchers;
+        this(elementMatchers, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Arrays with at least {@code parallelThreshold} element matchers are
+     * matched on the common {@link ForkJoinPool}. The element matchers are
+     * copied, so changing the list later doesn't change the matcher.
+     */
+    public ArrayMatcher(List<Matcher> elementMatchers, int parallelThreshold) {
+        this.elementMatchers = Collections.unmodifiableList(new ArrayList<>(elementMatchers));
+        this.elements = this.elementMatchers.toArray(new Matcher[0]);
+        this.parallelThreshold = parallelThreshold;
     }
 
     public static Builder builder() {
         return new Builder();
     }
 
+    public List<Matcher> getElementMatchers() {
+        return elementMatchers;
+    }
+
+    int parallelThreshold() {
+        return parallelThreshold;
+    }
+
     public static class Builder implements MatcherBuilder {
         List<Matcher> elementMatchers = new LinkedList<>();
+        int parallelThreshold = Integer.MAX_VALUE;
 
         public ArrayMatcher.Builder with(Matcher elementMatcher) {
             elementMatchers.add(elementMatcher);
             return this;
         }
 
+        /**
+         * Match the elements in parallel on the common fork/join pool once
+         * there are at least {@code threshold} element matchers. Results are
+         * still reported in element order. JSON text is then read into a
+         * tree first, the token stream can only be matched sequentially.
+         * Values read through a {@link NodeAccess} are always matched
+         * sequentially.
+         */
+        public ArrayMatcher.Builder parallel(int threshold) {
+            this.parallelThreshold = threshold;
+            return this;
+        }
+
         public ArrayMatcher build() {
-            return new ArrayMatcher(elementMatchers);
+            return new ArrayMatcher(elementMatchers, parallelThreshold);
         }
     }
 
@@ -39,14 +87,175 @@ public class ArrayMatcher implements Matcher{
             return new WrongTypeResult(ARRAY, NodeType.fromJackson(parsed.getNodeType()), parsed);
         }
 
-        AtomicInteger index = new AtomicInteger(); // wow java why do you make me do this. need to move to totallylazy
-        List<Result> results = elementMatchers.stream().map(matcher -> {
-                final Result result = matcher.match(parsed.get(index.get()));
-                index.getAndIncrement();
-                return result;
+        Result[] results = new Result[elements.length];
+        if (elements.length >= parallelThreshold) {
+            ForkJoinPool.commonPool().invoke(new MatchElements(parsed, results, 0, elements.length));
+        } else {
+            matchElements(parsed, results, 0, elements.length);
+        }
+        return new ArrayMatcherResult(Arrays.asList(results));
+    }
+
+    private void matchElements(JsonNode parsed, Result[] results, int from, int to) {
+        for (int index = from; index < to; index++) {
+            final JsonNode element = parsed.get(index);
+            results[index] = element == null ? new MissingFieldResult(index) : elements[index].match(element);
+        }
+    }
+
+    /** See {@link DeferredResult}. */
+    @Override
+    public Result match(String matchee) {
+        return DeferredResult.match(this, matchee);
+    }
+
+    /** Reads the array into a tree if it is matched in parallel, see {@link Builder#parallel}. */
+    @Override
+    public Result match(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY || elements.length >= parallelThreshold) {
+            return match((JsonNode) mapper.readTree(parser));
+        }
+
+        List<Result> results = new ArrayList<>(elements.length);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (results.size() < elements.length) {
+                results.add(elements[results.size()].match(parser));
+            } else {
+                parser.skipChildren();
             }
-        ).collect(Collectors.toList());
+        }
+        while (results.size() < elements.length) {
+            results.add(new MissingFieldResult(results.size()));
+        }
 
         return new ArrayMatcherResult(results);
     }
+
+    @Override
+    public boolean matches(JsonNode parsed) {
+        if (!parsed.isArray() || parsed.size() < elements.length) {
+            return false;
+        }
+        if (elements.length >= parallelThreshold) {
+            return ForkJoinPool.commonPool().invoke(new MatchesElements(parsed, new AtomicBoolean(), 0, elements.length));
+        }
+        for (int index = 0; index < elements.length; index++) {
+            if (!elements[index].matches(parsed.get(index))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Reads the array into a tree if it is matched in parallel, see {@link Builder#parallel}. */
+    @Override
+    public boolean matches(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            return false;
+        }
+        if (elements.length >= parallelThreshold) {
+            return matches((JsonNode) mapper.readTree(parser));
+        }
+        int index = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (index == elements.length) {
+                parser.skipChildren();
+            } else if (!elements[index++].matches(parser)) {
+                return false;
+            }
+        }
+        return index == elements.length;
+    }
+
+    /** Matches the elements one after the other, whatever the parallel threshold. */
+    @Override
+    public <N> Result match(N value, NodeAccess<N> access) {
+        NodeType type = access.typeOf(value);
+        if (type != ARRAY) {
+            return new WrongTypeResult(ARRAY, type, access.toTree(value));
+        }
+        List<Result> results = new ArrayList<>(elements.length);
+        Iterator<N> actual = access.elements(value);
+        for (int index = 0; index < elements.length; index++) {
+            results.add(actual.hasNext() ? elements[index].match(actual.next(), access) : new MissingFieldResult(index));
+        }
+        return new ArrayMatcherResult(results);
+    }
+
+    @Override
+    public <N> boolean matches(N value, NodeAccess<N> access) {
+        if (access.typeOf(value) != ARRAY || access.size(value) < elements.length) {
+            return false;
+        }
+        Iterator<N> actual = access.elements(value);
+        for (Matcher element : elements) {
+            if (!element.matches(actual.next(), access)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int chunkSize(int length) {
+        return Math.max(MIN_CHUNK, length / (4 * ForkJoinPool.getCommonPoolParallelism()));
+    }
+
+    /** Fills the results of one range of elements, each task writing only its own slots. */
+    private class MatchElements extends RecursiveAction {
+        private final JsonNode parsed;
+        private final Result[] results;
+        private final int from;
+        private final int to;
+
+        MatchElements(JsonNode parsed, Result[] results, int from, int to) {
+            this.parsed = parsed;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize(elements.length)) {
+                matchElements(parsed, results, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new MatchElements(parsed, results, from, middle), new MatchElements(parsed, results, middle, to));
+        }
+    }
+
+    /** Verdict for one range of elements. The first mismatch cancels the outstanding tasks. */
+    private class MatchesElements extends RecursiveTask<Boolean> {
+        private final JsonNode parsed;
+        private final AtomicBoolean mismatch;
+        private final int from;
+        private final int to;
+
+        MatchesElements(JsonNode parsed, AtomicBoolean mismatch, int from, int to) {
+            this.parsed = parsed;
+            this.mismatch = mismatch;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if (to - from <= chunkSize(elements.length)) {
+                for (int index = from; index < to && !mismatch.get(); index++) {
+                    if (!elements[index].matches(parsed.get(index))) {
+                        mismatch.set(true);
+                    }
+                }
+                return !mismatch.get();
+            }
+            int middle = (from + to) >>> 1;
+            ForkJoinTask<Boolean> left = new MatchesElements(parsed, mismatch, from, middle).fork();
+            if (!new MatchesElements(parsed, mismatch, middle, to).compute()) {
+                left.cancel(false);
+                return false;
+            }
+            return left.join();
+        }
+    }
 }
@@ -1,26 +1,87 @@
 package jsonmatch;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
-import java.util.stream.Collectors;
-
-import static jsonmatch.TextUtils.indent;
 
 public class ArrayMatcherResult implements Result {
     private final List<Result> elementResults;
+    private final int mismatchCount;
+    /** Indices of the failing element results, null if there are none. */
+    private final BitSet failing;
 
     public ArrayMatcherResult(List<Result> elementResults) {
         this.elementResults = elementResults;
+        int mismatchCount = 0;
+        BitSet failing = null;
+        for (int i = 0; i < elementResults.size(); i++) {
+            Result result = elementResults.get(i);
+            if (!result.isMatch()) {
+                if (failing == null) {
+                    failing = new BitSet(elementResults.size());
+                }
+                failing.set(i);
+                mismatchCount += result.getMismatchCount();
+            }
+        }
+        this.mismatchCount = mismatchCount;
+        this.failing = failing;
+    }
+
+    List<Result> getElementResults() {
+        return elementResults;
+    }
+
+    /** Indices of the failing element results, null if there are none. */
+    BitSet getFailing() {
+        return failing;
     }
 
     @Override
     public boolean isMatch() {
-        return elementResults.stream().allMatch(Result::isMatch);
+        return failing == null;
+    }
+
+    @Override
+    public int getMismatchCount() {
+        return mismatchCount;
+    }
+
+    @Override
+    public void visualize(Appendable out, VisualisationContext context) throws IOException {
+        out.append("[\n");
+        IndentingAppendable elements = new IndentingAppendable(out);
+        boolean first = true;
+        for (Result elementResult : elementResults) {
+            if (!first) {
+                elements.append(",\n");
+            }
+            first = false;
+            elementResult.visualize(elements, null);
+        }
+        elements.finish();
+        out.append("\n]\n");
+    }
+
+    @Override
+    public Result detach(int maxValueLength) {
+        List<Result> detached = new ArrayList<>(elementResults.size());
+        for (Result elementResult : elementResults) {
+            detached.add(elementResult.detach(maxValueLength));
+        }
+        return new ArrayMatcherResult(detached);
     }
 
     @Override
-    public String visualize() {
-        return "[\n" +
-            indent(elementResults.stream().map(Result::visualize).collect(Collectors.joining(",\n"))) + "\n"
-            + "]\n";
+    public void writeJson(JsonGenerator generator) throws IOException {
+        JsonReport.writeStart(generator, "array", isMatch());
+        generator.writeArrayFieldStart("elements");
+        for (Result elementResult : elementResults) {
+            elementResult.writeJson(generator);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
     }
 }
@@ -1,20 +1,65 @@
 package jsonmatch;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.BooleanNode;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.fasterxml.jackson.databind.node.NumericNode;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import lombok.Value;
 
 @Value
 public class BooleanMatcher implements Matcher {
     Boolean expectedValue;
 
+    /** Shared by all matches. */
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    BooleanResult matched;
+
+    public BooleanMatcher(Boolean expectedValue) {
+        this.expectedValue = expectedValue;
+        this.matched = new BooleanResult(expectedValue, BooleanNode.valueOf(expectedValue));
+    }
+
     @Override
     public Result match(JsonNode parsed) {
         if (parsed.getNodeType() != JsonNodeType.BOOLEAN) {
             return new WrongTypeResult(NodeType.BOOLEAN, NodeType.fromJackson(parsed.getNodeType()), parsed);
         }
+        if (expectedValue == parsed.booleanValue()) {
+            return matched;
+        }
         return new BooleanResult(expectedValue, (BooleanNode) parsed);
     }
+
+    @Override
+    public <N> Result match(N value, NodeAccess<N> access) {
+        NodeType type = access.typeOf(value);
+        if (type != NodeType.BOOLEAN) {
+            return new WrongTypeResult(NodeType.BOOLEAN, type, access.toTree(value));
+        }
+        boolean actual = access.booleanValue(value);
+        return expectedValue == actual ? matched : new BooleanResult(expectedValue, BooleanNode.valueOf(actual));
+    }
+
+    @Override
+    public <N> boolean matches(N value, NodeAccess<N> access) {
+        return access.typeOf(value) == NodeType.BOOLEAN && expectedValue == access.booleanValue(value);
+    }
+
+    @Override
+    public boolean matches(JsonNode parsed) {
+        return parsed.isBoolean() && expectedValue == parsed.booleanValue();
+    }
+
+    @Override
+    public boolean matches(JsonParser parser) {
+        return parser.currentToken().isBoolean() && expectedValue == (parser.currentToken() == JsonToken.VALUE_TRUE);
+    }
 }
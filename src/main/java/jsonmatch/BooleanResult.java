@@ -1,9 +1,12 @@
 package jsonmatch;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.node.BooleanNode;
 import jsonmatch.util.Color;
 import lombok.Value;
 
+import java.io.IOException;
+
 @Value
 public class BooleanResult implements Result {
     Boolean expectedValue;
@@ -16,10 +19,20 @@ public class BooleanResult implements Result {
     }
 
     @Override
-    public String visualize() {
-        if (isMatch())
-            return Color.GREEN.render(actualValue.toPrettyString());
-        else
-            return Color.RED.render(actualValue.toPrettyString()) + " expected \"" + expectedValue+"\"";
+    public void visualize(Appendable out, VisualisationContext context) throws IOException {
+        if (isMatch()) {
+            Color.GREEN.render(out, actualValue.toPrettyString());
+        } else {
+            Color.RED.render(out, actualValue.toPrettyString());
+            out.append(" expected \"").append(String.valueOf(expectedValue)).append("\"");
+        }
+    }
+
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        JsonReport.writeStart(generator, "value", isMatch());
+        generator.writeBooleanField("expected", expectedValue);
+        JsonReport.writeValueField(generator, "actual", actualValue);
+        generator.writeEndObject();
     }
 }
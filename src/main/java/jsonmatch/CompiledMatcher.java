@@ -0,0 +1,371 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static jsonmatch.util.Pair.pair;
+
+/**
+ * A matcher tree flattened into a program by {@link MatcherCompiler}.
+ *
+ * A single loop with an explicit stack runs the program, so matching
+ * doesn't recurse however deep the document is, and every call into a
+ * leaf matcher happens at a call site that only ever sees one matcher
+ * class. The results are the same as the ones of the original tree.
+ *
+ * The program runs on trees only: strings, bytes and parsers are read
+ * into a tree first, which Jackson does without recursing too. Streaming
+ * them through the original tree would avoid the tree, but recurse once
+ * per level of the document.
+ */
+public final class CompiledMatcher implements Matcher {
+    static final byte OBJECT = 0;
+    static final byte PROBE_OBJECT = 1;
+    static final byte ARRAY = 2;
+    static final byte ANNOTATED = 3;
+    static final byte STRING = 4;
+    static final byte NUMBER = 5;
+    static final byte BOOLEAN = 6;
+    static final byte NULL = 7;
+    static final byte OTHER = 8;
+
+    private static final int DONE = -1;
+    private static final int MISMATCH = -2;
+
+    private final Matcher source;
+    private final byte[] opcodes;
+    private final int[] firstChild;
+    private final Matcher[] operands;
+
+    CompiledMatcher(Matcher source, byte[] opcodes, int[] firstChild, Matcher[] operands) {
+        this.source = source;
+        this.opcodes = opcodes;
+        this.firstChild = firstChild;
+        this.operands = operands;
+    }
+
+    /** The matcher tree this program was compiled from. */
+    public Matcher getSource() {
+        return source;
+    }
+
+    @Override
+    public Result match(JsonNode parsed) {
+        Stack stack = new Stack();
+        Result returned = enter(0, parsed, stack);
+        while (stack.depth > 0) {
+            Frame frame = stack.top();
+            if (returned != null) {
+                accept(frame, returned);
+                returned = null;
+            }
+            int child = next(frame);
+            if (child == DONE) {
+                stack.pop();
+                returned = finish(frame);
+            } else {
+                returned = enter(child, frame.childValue, stack);
+            }
+        }
+        return returned;
+    }
+
+    /** Reads the value into a tree and runs the program on it, see the class comment. */
+    @Override
+    public Result match(JsonParser parser) throws IOException {
+        return match((JsonNode) mapper.readTree(parser));
+    }
+
+    @Override
+    public <N> Result match(N value, NodeAccess<N> access) {
+        return source.match(value, access);
+    }
+
+    @Override
+    public <N> boolean matches(N value, NodeAccess<N> access) {
+        return source.matches(value, access);
+    }
+
+    @Override
+    public boolean matches(JsonNode parsed) {
+        Stack stack = new Stack();
+        if (!enterVerdict(0, parsed, stack)) {
+            return false;
+        }
+        while (stack.depth > 0) {
+            Frame frame = stack.top();
+            int child = nextVerdict(frame);
+            if (child == DONE) {
+                stack.pop();
+            } else if (child == MISMATCH || !enterVerdict(child, frame.childValue, stack)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Reads the value into a tree and runs the program on it, see the class comment. */
+    @Override
+    public boolean matches(JsonParser parser) throws IOException {
+        return matches((JsonNode) mapper.readTree(parser));
+    }
+
+    /** Returns the result of a leaf, or pushes a frame and returns null for a container. */
+    private Result enter(int pc, JsonNode value, Stack stack) {
+        switch (opcodes[pc]) {
+            case OBJECT:
+            case PROBE_OBJECT:
+                if (!(value instanceof ObjectNode)) {
+                    return new WrongTypeResult(NodeType.OBJECT, NodeType.fromJackson(value.getNodeType()), value);
+                }
+                Frame object = stack.push(pc, value);
+                if (opcodes[pc] == OBJECT) {
+                    object.fields = value.fields();
+                    object.seen = new BitSet(objectMatcher(pc).fieldIndex().size());
+                    object.fieldResults = new ArrayList<>(value.size());
+                } else {
+                    object.probeResults = new Result[objectMatcher(pc).fieldIndex().size()];
+                }
+                return null;
+            case ARRAY:
+                if (!value.isArray()) {
+                    return new WrongTypeResult(NodeType.ARRAY, NodeType.fromJackson(value.getNodeType()), value);
+                }
+                stack.push(pc, value).elementResults = new ArrayList<>(arrayMatcher(pc).getElementMatchers().size());
+                return null;
+            case ANNOTATED:
+                stack.push(pc, value);
+                return null;
+            case STRING:
+                return ((StringMatcher) operands[pc]).match(value);
+            case NUMBER:
+                return ((NumberMatcher) operands[pc]).match(value);
+            case BOOLEAN:
+                return ((BooleanMatcher) operands[pc]).match(value);
+            case NULL:
+                return ((NullMatcher) operands[pc]).match(value);
+            default:
+                return operands[pc].match(value);
+        }
+    }
+
+    private void accept(Frame frame, Result result) {
+        switch (opcodes[frame.pc]) {
+            case OBJECT:
+                frame.fieldResults.add(pair(frame.fieldName, result));
+                break;
+            case PROBE_OBJECT:
+                frame.probeResults[frame.cursor - 1] = result;
+                break;
+            case ARRAY:
+                frame.elementResults.add(result);
+                break;
+            default:
+                frame.childResult = result;
+        }
+    }
+
+    /** Advances the frame to its next child, recording the results that need no child on the way. */
+    private int next(Frame frame) {
+        int pc = frame.pc;
+        switch (opcodes[pc]) {
+            case OBJECT:
+                ObjectMatcher objectMatcher = objectMatcher(pc);
+                while (frame.fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = frame.fields.next();
+                    int slot = objectMatcher.fieldIndex().slotOf(field.getKey());
+                    if (slot >= 0) {
+                        frame.seen.set(slot);
+                        frame.fieldName = field.getKey();
+                        frame.childValue = field.getValue();
+                        return firstChild[pc] + slot;
+                    }
+                    frame.fieldResults.add(pair(field.getKey(), objectMatcher.isIgnoreExtraFields()
+                        ? new IgnoredFieldResult(field.getValue(), objectMatcher.isElideIgnoredFieldValues())
+                        : new ExtraFieldResult(field.getValue())));
+                }
+                return DONE;
+            case PROBE_OBJECT:
+                FieldIndex fieldIndex = objectMatcher(pc).fieldIndex();
+                while (frame.cursor < fieldIndex.size()) {
+                    int slot = frame.cursor++;
+                    JsonNode value = frame.value.get(fieldIndex.name(slot));
+                    if (value != null) {
+                        frame.childValue = value;
+                        return firstChild[pc] + slot;
+                    }
+                }
+                return DONE;
+            case ARRAY:
+                int size = arrayMatcher(pc).getElementMatchers().size();
+                while (frame.cursor < size) {
+                    int index = frame.cursor++;
+                    JsonNode element = frame.value.get(index);
+                    if (element != null) {
+                        frame.childValue = element;
+                        return firstChild[pc] + index;
+                    }
+                    frame.elementResults.add(new MissingFieldResult(index));
+                }
+                return DONE;
+            default:
+                if (frame.cursor++ == 0) {
+                    frame.childValue = frame.value;
+                    return firstChild[pc];
+                }
+                return DONE;
+        }
+    }
+
+    private Result finish(Frame frame) {
+        int pc = frame.pc;
+        switch (opcodes[pc]) {
+            case OBJECT:
+                objectMatcher(pc).addMissingFields(frame.fieldResults, frame.seen);
+                return new ObjectResult(frame.fieldResults);
+            case PROBE_OBJECT:
+                return objectMatcher(pc).probeResult(frame.probeResults, frame.value.size());
+            case ARRAY:
+                return new ArrayMatcherResult(frame.elementResults);
+            default:
+                return new AnnotatedResult(frame.childResult, ((AnnotatedMatcher) operands[pc]).getAnnotation());
+        }
+    }
+
+    /** Returns the verdict of a leaf, or pushes a frame for a container that passed its shallow checks. */
+    private boolean enterVerdict(int pc, JsonNode value, Stack stack) {
+        switch (opcodes[pc]) {
+            case OBJECT:
+            case PROBE_OBJECT:
+                if (!(value instanceof ObjectNode)) {
+                    return false;
+                }
+                ObjectMatcher objectMatcher = objectMatcher(pc);
+                // with all expected fields present, any further field is an extra one
+                if (!objectMatcher.isIgnoreExtraFields() && value.size() != objectMatcher.fieldIndex().size()) {
+                    return false;
+                }
+                stack.push(pc, value);
+                return true;
+            case ARRAY:
+                if (!value.isArray() || value.size() < arrayMatcher(pc).getElementMatchers().size()) {
+                    return false;
+                }
+                stack.push(pc, value);
+                return true;
+            case ANNOTATED:
+                stack.push(pc, value);
+                return true;
+            case STRING:
+                return ((StringMatcher) operands[pc]).matches(value);
+            case NUMBER:
+                return ((NumberMatcher) operands[pc]).matches(value);
+            case BOOLEAN:
+                return ((BooleanMatcher) operands[pc]).matches(value);
+            case NULL:
+                return ((NullMatcher) operands[pc]).matches(value);
+            default:
+                return operands[pc].matches(value);
+        }
+    }
+
+    private int nextVerdict(Frame frame) {
+        int pc = frame.pc;
+        switch (opcodes[pc]) {
+            case OBJECT:
+            case PROBE_OBJECT:
+                FieldIndex fieldIndex = objectMatcher(pc).fieldIndex();
+                if (frame.cursor == fieldIndex.size()) {
+                    return DONE;
+                }
+                int slot = frame.cursor++;
+                frame.childValue = frame.value.get(fieldIndex.name(slot));
+                return frame.childValue == null ? MISMATCH : firstChild[pc] + slot;
+            case ARRAY:
+                if (frame.cursor == arrayMatcher(pc).getElementMatchers().size()) {
+                    return DONE;
+                }
+                int index = frame.cursor++;
+                frame.childValue = frame.value.get(index);
+                return firstChild[pc] + index;
+            default:
+                if (frame.cursor++ == 0) {
+                    frame.childValue = frame.value;
+                    return firstChild[pc];
+                }
+                return DONE;
+        }
+    }
+
+    private ObjectMatcher objectMatcher(int pc) {
+        return (ObjectMatcher) operands[pc];
+    }
+
+    private ArrayMatcher arrayMatcher(int pc) {
+        return (ArrayMatcher) operands[pc];
+    }
+
+    /** The state of one container being matched. */
+    private static final class Frame {
+        int pc;
+        JsonNode value;
+        int cursor;
+        JsonNode childValue;
+        Iterator<Map.Entry<String, JsonNode>> fields;
+        String fieldName;
+        BitSet seen;
+        List<Map.Entry<String, Result>> fieldResults;
+        List<Result> elementResults;
+        Result[] probeResults;
+        Result childResult;
+
+        Frame reset(int pc, JsonNode value) {
+            this.pc = pc;
+            this.value = value;
+            cursor = 0;
+            childValue = null;
+            fields = null;
+            fieldName = null;
+            seen = null;
+            fieldResults = null;
+            elementResults = null;
+            probeResults = null;
+            childResult = null;
+            return this;
+        }
+    }
+
+    /** Frames are reused as the stack grows and shrinks again. */
+    private static final class Stack {
+        private Frame[] frames = new Frame[16];
+        private int depth;
+
+        Frame push(int pc, JsonNode value) {
+            if (depth == frames.length) {
+                Frame[] grown = new Frame[frames.length * 2];
+                System.arraycopy(frames, 0, grown, 0, frames.length);
+                frames = grown;
+            }
+            if (frames[depth] == null) {
+                frames[depth] = new Frame();
+            }
+            return frames[depth++].reset(pc, value);
+        }
+
+        Frame top() {
+            return frames[depth - 1];
+        }
+
+        void pop() {
+            depth--;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+import static jsonmatch.Matcher.mapper;
+
+/**
+ * The result of a document given as a String that is known to match. A
+ * String can't change, so the results of its fields and elements are only
+ * worked out, by matching it again, when they are looked at. A successful
+ * match then only needs the verdict, which doesn't allocate per node. The
+ * result holds on to the String until it is detached.
+ *
+ * Documents that can change, like trees and Java objects, are matched in
+ * detail right away, so their results can't disagree with their verdict,
+ * unless nothing but the result holds them.
+ */
+final class DeferredResult implements Result {
+    private final Supplier<Result> details;
+    /** Racy, but working it out twice gives equal results. */
+    private Result detailed;
+
+    private DeferredResult(Supplier<Result> details) {
+        this.details = details;
+    }
+
+    /** Matches the document, deferring the details if it matches. */
+    static Result match(Matcher matcher, String document) {
+        if (matcher.matches(document)) {
+            return matched(matcher, document);
+        }
+        return JsonInput.match(matcher, () -> mapper.createParser(document));
+    }
+
+    /** The result of a document known to match. */
+    static Result matched(Matcher matcher, String document) {
+        return new DeferredResult(() -> JsonInput.match(matcher, () -> mapper.createParser(document)));
+    }
+
+    /** The result of a tree known to match, that nothing else holds. */
+    static Result matched(Matcher matcher, JsonNode unshared) {
+        return new DeferredResult(() -> matcher.match(unshared));
+    }
+
+    private Result detailed() {
+        Result detailed = this.detailed;
+        if (detailed == null) {
+            detailed = details.get();
+            this.detailed = detailed;
+        }
+        return detailed;
+    }
+
+    @Override
+    public boolean isMatch() {
+        return true;
+    }
+
+    @Override
+    public int getMismatchCount() {
+        return 0;
+    }
+
+    @Override
+    public void visualize(Appendable out, VisualisationContext context) throws IOException {
+        detailed().visualize(out, context);
+    }
+
+    @Override
+    public Result detach(int maxValueLength) {
+        return detailed().detach(maxValueLength);
+    }
+
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        detailed().writeJson(generator);
+    }
+}
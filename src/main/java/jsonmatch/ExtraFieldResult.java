@@ -1,14 +1,33 @@
 package jsonmatch;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 
+import java.io.IOException;
+
+import static jsonmatch.util.Color.ANSI_RESET;
 import static jsonmatch.util.Color.RED;
 
 public class ExtraFieldResult implements Result {
     private final JsonNode jsonNode;
+    /** The cut off value of a detached result, instead of the value itself. */
+    private final String preview;
 
     public ExtraFieldResult(JsonNode jsonNode) {
+        this(jsonNode, null);
+    }
+
+    private ExtraFieldResult(JsonNode jsonNode, String preview) {
         this.jsonNode = jsonNode;
+        this.preview = preview;
+    }
+
+    JsonNode getJsonNode() {
+        return jsonNode;
+    }
+
+    String getPreview() {
+        return preview;
     }
 
     @Override
@@ -17,7 +36,22 @@ public class ExtraFieldResult implements Result {
     }
 
     @Override
-    public String visualize() {
-        return RED.render(jsonNode.toPrettyString()) + " unexpected field";
+    public void visualize(Appendable out, VisualisationContext context) throws IOException {
+        out.append(RED.getAnsi());
+        Visualisation.writePretty(out, jsonNode, preview);
+        out.append(ANSI_RESET).append(" unexpected field");
+    }
+
+    @Override
+    public Result detach(int maxValueLength) {
+        String preview = jsonNode == null ? null : Visualisation.preview(jsonNode, maxValueLength);
+        return preview == null ? this : new ExtraFieldResult(null, preview);
+    }
+
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        JsonReport.writeStart(generator, "extra", false);
+        JsonReport.writeValueField(generator, "actual", jsonNode, preview);
+        generator.writeEndObject();
     }
 }
@@ -0,0 +1,46 @@
+package jsonmatch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable slot table for the expected fields of an {@link ObjectMatcher}.
+ * Slots follow the order in which the fields were added to the matcher, so
+ * a seen-bitset over the slots yields the missing fields in that order.
+ */
+class FieldIndex {
+    private final String[] names;
+    private final Matcher[] matchers;
+    private final Map<String, Integer> slots;
+
+    FieldIndex(Map<String, Matcher> fieldMatchers) {
+        names = new String[fieldMatchers.size()];
+        matchers = new Matcher[fieldMatchers.size()];
+        slots = new HashMap<>(fieldMatchers.size() * 2);
+        int slot = 0;
+        for (Map.Entry<String, Matcher> entry : fieldMatchers.entrySet()) {
+            names[slot] = entry.getKey();
+            matchers[slot] = entry.getValue();
+            slots.put(entry.getKey(), slot);
+            slot++;
+        }
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    /** The slot of the given field or -1 if the field isn't expected. */
+    int slotOf(String fieldName) {
+        Integer slot = slots.get(fieldName);
+        return slot == null ? -1 : slot;
+    }
+
+    String name(int slot) {
+        return names[slot];
+    }
+
+    Matcher matcher(int slot) {
+        return matchers[slot];
+    }
+}
@@ -0,0 +1,88 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+
+/**
+ * Base class of the matchers emitted by {@link MatcherCodeGenerator}.
+ *
+ * Generated classes specialise the verdict, on trees and on the token
+ * stream. The details of a result are worked out by the matcher tree they
+ * were generated from, as are values read through a {@link NodeAccess}.
+ */
+public abstract class GeneratedMatcher implements Matcher {
+    protected final Matcher source;
+    protected final Matcher[] delegates;
+
+    protected GeneratedMatcher(Matcher source, Matcher[] delegates) {
+        this.source = source;
+        this.delegates = delegates;
+    }
+
+    /** The matcher tree this class was generated from. */
+    public Matcher getSource() {
+        return source;
+    }
+
+    @Override
+    public Result match(JsonNode parsed) {
+        return source.match(parsed);
+    }
+
+    @Override
+    public Result match(JsonParser parser) throws IOException {
+        JsonNode parsed = mapper.readTree(parser);
+        // nothing but the result holds the tree, so the details of a match can wait until they are looked at
+        return matches(parsed) ? DeferredResult.matched(source, parsed) : source.match(parsed);
+    }
+
+    @Override
+    public Result match(String matchee) {
+        if (matches(matchee)) {
+            return DeferredResult.matched(source, matchee);
+        }
+        return JsonInput.match(source, () -> mapper.createParser(matchee));
+    }
+
+    @Override
+    public <N> Result match(N value, NodeAccess<N> access) {
+        return source.match(value, access);
+    }
+
+    @Override
+    public abstract boolean matches(JsonNode parsed);
+
+    @Override
+    public abstract boolean matches(JsonParser parser) throws IOException;
+
+    @Override
+    public <N> boolean matches(N value, NodeAccess<N> access) {
+        return source.matches(value, access);
+    }
+
+    /** {@link StringMatcher#matches(JsonParser)} for generated classes. */
+    protected static boolean isText(JsonParser parser, String expected) throws IOException {
+        return StringMatcher.textEquals(parser, expected);
+    }
+
+    /** {@link NumberMatcher#matches(JsonParser)} of an int for generated classes. */
+    protected static boolean isInt(JsonParser parser, int expected) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NUMBER_INT
+            && parser.getNumberType() == JsonParser.NumberType.INT && parser.getIntValue() == expected;
+    }
+
+    /** {@link NumberMatcher#matches(JsonParser)} of a long for generated classes. */
+    protected static boolean isLong(JsonParser parser, long expected) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NUMBER_INT
+            && parser.getNumberType() == JsonParser.NumberType.LONG && parser.getLongValue() == expected;
+    }
+
+    /** {@link NumberMatcher#matches(JsonParser)} of a double for generated classes. */
+    protected static boolean isDouble(JsonParser parser, double expected) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NUMBER_FLOAT
+            && parser.getNumberType() == JsonParser.NumberType.DOUBLE && Double.compare(parser.getDoubleValue(), expected) == 0;
+    }
+}
@@ -1,16 +1,27 @@
 package jsonmatch;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 
+import java.io.IOException;
+
+import static jsonmatch.util.Color.ANSI_RESET;
 import static jsonmatch.util.Color.GRAY;
 
 public class IgnoredFieldResult implements Result {
     private final JsonNode jsonNode;
     private final boolean elideValue;
+    /** The cut off value of a detached result, instead of the value itself. */
+    private final String preview;
 
     public IgnoredFieldResult(JsonNode jsonNode, boolean elideValue) {
+        this(jsonNode, elideValue, null);
+    }
+
+    private IgnoredFieldResult(JsonNode jsonNode, boolean elideValue, String preview) {
         this.jsonNode = jsonNode;
         this.elideValue = elideValue;
+        this.preview = preview;
     }
 
     @Override
@@ -19,7 +30,31 @@ public class IgnoredFieldResult implements Result {
     }
 
     @Override
-    public String visualize() {
-        return GRAY.render(elideValue?  "…" : jsonNode.toPrettyString());
+    public void visualize(Appendable out, VisualisationContext context) throws IOException {
+        out.append(GRAY.getAnsi());
+        if (elideValue) {
+            out.append("…");
+        } else {
+            Visualisation.writePretty(out, jsonNode, preview);
+        }
+        out.append(ANSI_RESET);
+    }
+
+    @Override
+    public Result detach(int maxValueLength) {
+        if (elideValue) {
+            return jsonNode == null ? this : new IgnoredFieldResult(null, true);
+        }
+        String preview = jsonNode == null ? null : Visualisation.preview(jsonNode, maxValueLength);
+        return preview == null ? this : new IgnoredFieldResult(null, false, preview);
+    }
+
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        JsonReport.writeStart(generator, "ignored", true);
+        if (!elideValue) {
+            JsonReport.writeValueField(generator, "actual", jsonNode, preview);
+        }
+        generator.writeEndObject();
     }
 }
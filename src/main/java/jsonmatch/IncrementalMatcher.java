@@ -0,0 +1,325 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static jsonmatch.Matcher.mapper;
+
+/**
+ * Works out the verdict of {@link Matcher#matches(String)} for a document
+ * that arrives in chunks, without waiting for all of it.
+ *
+ * Each chunk is parsed as far as it goes by Jackson's non-blocking parser,
+ * and the tokens are checked against the matcher as they come. A mismatch
+ * is reported as soon as it is seen, a match once the document is
+ * complete; after that, further chunks are ignored. Feeding never blocks:
+ * it only does the work the bytes given allow.
+ *
+ * Objects and arrays are followed token by token, and fields and elements
+ * no matcher looks at are skipped. Only values of matchers this class
+ * knows nothing about are buffered, until they are complete.
+ *
+ * An instance checks a single document and isn't thread-safe.
+ */
+public final class IncrementalMatcher implements AutoCloseable {
+    public enum Verdict {
+        /** More input is needed to tell. */
+        PENDING,
+        MATCH,
+        MISMATCH
+    }
+
+    private static final int COPY_CHUNK = 8192;
+
+    private final Matcher matcher;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final List<Frame> stack = new ArrayList<>();
+    /** For buffers without an accessible array. */
+    private byte[] scratch;
+    private Verdict verdict = Verdict.PENDING;
+    private String mismatchPath;
+
+    public IncrementalMatcher(Matcher matcher) {
+        this.matcher = matcher;
+        try {
+            this.parser = mapper.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /** The bytes aren't needed anymore when this returns. */
+    public Verdict feed(byte[] chunk, int offset, int length) {
+        if (verdict == Verdict.PENDING && length > 0) {
+            try {
+                feeder.feedInput(chunk, offset, offset + length);
+                advance();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return verdict;
+    }
+
+    public Verdict feed(byte[] chunk) {
+        return feed(chunk, 0, chunk.length);
+    }
+
+    /** Consumes the remaining bytes of the buffer, moving its position to the limit. */
+    public Verdict feed(ByteBuffer chunk) {
+        if (chunk.hasArray()) {
+            feed(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+            chunk.position(chunk.limit());
+            return verdict;
+        }
+        if (scratch == null) {
+            scratch = new byte[COPY_CHUNK];
+        }
+        while (chunk.hasRemaining() && verdict == Verdict.PENDING) {
+            int length = Math.min(scratch.length, chunk.remaining());
+            chunk.get(scratch, 0, length);
+            feed(scratch, 0, length);
+        }
+        chunk.position(chunk.limit());
+        return verdict;
+    }
+
+    /**
+     * Signals that there is no more input.
+     *
+     * @throws RuntimeException if the document is incomplete, like {@link Matcher#matches(String)}
+     */
+    public Verdict endOfInput() {
+        if (verdict == Verdict.PENDING) {
+            feeder.endOfInput();
+            try {
+                advance();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            if (verdict == Verdict.PENDING) {
+                throw new RuntimeException("Incomplete document");
+            }
+        }
+        return verdict;
+    }
+
+    public Verdict getVerdict() {
+        return verdict;
+    }
+
+    /** JSON Pointer to where the mismatch was seen, null unless the verdict is a mismatch. */
+    public String getMismatchPath() {
+        return mismatchPath;
+    }
+
+    @Override
+    public void close() {
+        try {
+            parser.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void advance() throws IOException {
+        JsonToken token;
+        while (verdict == Verdict.PENDING && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE) {
+            if (token == null) {
+                return;
+            }
+            accept(token);
+        }
+        if (verdict != Verdict.PENDING) {
+            parser.close();
+        }
+    }
+
+    private void accept(JsonToken token) throws IOException {
+        Frame top = stack.isEmpty() ? null : stack.get(stack.size() - 1);
+        if (top == null) {
+            begin(matcher, token);
+            return;
+        }
+        switch (top.kind) {
+            case SKIP:
+                if (nested(top, token)) {
+                    pop();
+                }
+                return;
+            case BUFFER:
+                top.buffer.copyCurrentEvent(parser);
+                if (nested(top, token)) {
+                    pop();
+                    JsonParser buffered = top.buffer.asParser(parser.getCodec());
+                    buffered.nextToken();
+                    done(top.matcher.matches(buffered));
+                }
+                return;
+            case OBJECT:
+                ObjectMatcher objectMatcher = (ObjectMatcher) top.matcher;
+                if (token == JsonToken.FIELD_NAME) {
+                    top.fieldName = parser.getCurrentName();
+                    int slot = objectMatcher.fieldIndex().slotOf(top.fieldName);
+                    if (slot >= 0) {
+                        top.seen.set(slot);
+                        top.next = objectMatcher.fieldIndex().matcher(slot);
+                    } else if (objectMatcher.isIgnoreExtraFields()) {
+                        top.next = null;
+                    } else {
+                        mismatch("");
+                    }
+                } else if (token == JsonToken.END_OBJECT) {
+                    int missing = top.seen.nextClearBit(0);
+                    top.fieldName = null;
+                    if (missing < objectMatcher.fieldIndex().size()) {
+                        mismatch("/" + JsonPointer.appendEscaped(new StringBuilder(), objectMatcher.fieldIndex().name(missing)));
+                    } else {
+                        pop();
+                        done(true);
+                    }
+                } else {
+                    begin(top.next, token);
+                }
+                return;
+            default:
+                ArrayMatcher arrayMatcher = (ArrayMatcher) top.matcher;
+                int expected = arrayMatcher.getElementMatchers().size();
+                if (token == JsonToken.END_ARRAY) {
+                    int elements = top.index + 1;
+                    if (elements < expected) {
+                        top.index = -1;
+                        mismatch("/" + elements);
+                    } else {
+                        pop();
+                        done(true);
+                    }
+                } else {
+                    top.index++;
+                    begin(top.index < expected ? arrayMatcher.getElementMatchers().get(top.index) : null, token);
+                }
+        }
+    }
+
+    /** Starts a value; a null matcher skips it. */
+    private void begin(Matcher matcher, JsonToken token) throws IOException {
+        matcher = unwrap(matcher);
+        if (matcher == null) {
+            if (token.isStructStart()) {
+                push(Kind.SKIP, null);
+            }
+        } else if (matcher instanceof ObjectMatcher) {
+            if (token == JsonToken.START_OBJECT) {
+                push(Kind.OBJECT, matcher).seen = new BitSet(((ObjectMatcher) matcher).fieldIndex().size());
+            } else {
+                mismatch("");
+            }
+        } else if (matcher instanceof ArrayMatcher) {
+            if (token == JsonToken.START_ARRAY) {
+                push(Kind.ARRAY, matcher);
+            } else {
+                mismatch("");
+            }
+        } else if (!token.isStructStart() || isScalar(matcher)) {
+            // scalar tokens are complete, and scalar matchers reject containers right away
+            done(matcher.matches(parser));
+        } else {
+            Frame frame = push(Kind.BUFFER, matcher);
+            frame.buffer = new TokenBuffer(parser);
+            frame.buffer.copyCurrentEvent(parser);
+        }
+    }
+
+    private static Matcher unwrap(Matcher matcher) {
+        while (true) {
+            if (matcher instanceof AnnotatedMatcher) {
+                matcher = ((AnnotatedMatcher) matcher).getMatcher();
+            } else if (matcher instanceof CompiledMatcher) {
+                matcher = ((CompiledMatcher) matcher).getSource();
+            } else if (matcher instanceof ProjectedMatcher) {
+                matcher = ((ProjectedMatcher) matcher).getMatcher();
+            } else {
+                return matcher;
+            }
+        }
+    }
+
+    private static boolean isScalar(Matcher matcher) {
+        return matcher instanceof StringMatcher || matcher instanceof NumberMatcher
+            || matcher instanceof BooleanMatcher || matcher instanceof NullMatcher;
+    }
+
+    /** Tracks the nesting of a skipped or buffered value, returns whether it is complete. */
+    private static boolean nested(Frame frame, JsonToken token) {
+        if (token.isStructStart()) {
+            frame.depth++;
+        } else if (token.isStructEnd()) {
+            frame.depth--;
+        }
+        return frame.depth == 0;
+    }
+
+    private void done(boolean matched) {
+        if (!matched) {
+            mismatch("");
+        } else if (stack.isEmpty()) {
+            verdict = Verdict.MATCH;
+        }
+    }
+
+    private void mismatch(String suffix) {
+        StringBuilder path = new StringBuilder();
+        for (Frame frame : stack) {
+            if (frame.kind == Kind.OBJECT && frame.fieldName != null) {
+                JsonPointer.appendEscaped(path.append('/'), frame.fieldName);
+            } else if (frame.kind == Kind.ARRAY && frame.index >= 0) {
+                path.append('/').append(frame.index);
+            }
+        }
+        mismatchPath = path.append(suffix).toString();
+        verdict = Verdict.MISMATCH;
+    }
+
+    private Frame push(Kind kind, Matcher matcher) {
+        Frame frame = new Frame(kind, matcher);
+        stack.add(frame);
+        return frame;
+    }
+
+    private void pop() {
+        stack.remove(stack.size() - 1);
+    }
+
+    private enum Kind {
+        OBJECT, ARRAY, SKIP, BUFFER
+    }
+
+    /** A container being matched, skipped or buffered. */
+    private static final class Frame {
+        final Kind kind;
+        final Matcher matcher;
+        int depth = 1;
+        BitSet seen;
+        /** The current field, and the matcher of its value, null if it is skipped. */
+        String fieldName;
+        Matcher next;
+        /** The current element. */
+        int index = -1;
+        TokenBuffer buffer;
+
+        Frame(Kind kind, Matcher matcher) {
+            this.kind = kind;
+            this.matcher = matcher;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package jsonmatch;
+
+import java.io.IOException;
+
+/**
+ * Indents everything written through it by one level, with the same
+ * output as {@link TextUtils#indent(String)} on the whole text: every
+ * line is prefixed and trailing line breaks are dropped. Line breaks are
+ * held back until more text follows, so {@link #finish()} can drop them.
+ */
+class IndentingAppendable implements Appendable {
+    private static final String INDENT = "    ";
+
+    private final Appendable out;
+    private boolean started;
+    private int pendingLineBreaks;
+
+    IndentingAppendable(Appendable out) {
+        this.out = out;
+    }
+
+    @Override
+    public Appendable append(CharSequence s) throws IOException {
+        return append(s, 0, s.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence s, int start, int end) throws IOException {
+        int lineStart = start;
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == '\n') {
+                if (i > lineStart) {
+                    beginText();
+                    out.append(s, lineStart, i);
+                }
+                pendingLineBreaks++;
+                lineStart = i + 1;
+            }
+        }
+        if (end > lineStart) {
+            beginText();
+            out.append(s, lineStart, end);
+        }
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+        if (c == '\n') {
+            pendingLineBreaks++;
+        } else {
+            beginText();
+            out.append(c);
+        }
+        return this;
+    }
+
+    /** Ends the indented block, dropping trailing line breaks. */
+    void finish() throws IOException {
+        if (!started) {
+            out.append(INDENT);
+            started = true;
+        }
+        pendingLineBreaks = 0;
+    }
+
+    private void beginText() throws IOException {
+        if (!started) {
+            out.append(INDENT);
+            started = true;
+        }
+        for (; pendingLineBreaks > 0; pendingLineBreaks--) {
+            out.append('\n').append(INDENT);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reports each match of a node of a matcher tree to a {@link MatchListener},
+ * with the JSON Pointer of the node, the type of its matcher, the outcome and
+ * the time it took.
+ *
+ * {@link #instrument} wraps every node of the tree, down to the leaves. The
+ * paths are worked out once, up front. Matchers that aren't instrumented
+ * don't pay anything for this.
+ */
+public final class InstrumentedMatcher implements Matcher {
+    private final Matcher matcher;
+    private final String path;
+    private final MatchListener listener;
+
+    private InstrumentedMatcher(Matcher matcher, String path, MatchListener listener) {
+        this.matcher = matcher;
+        this.path = path;
+        this.listener = listener;
+    }
+
+    /** Returns the matcher itself for {@link MatchListener#NOOP}. */
+    public static Matcher instrument(Matcher matcher, MatchListener listener) {
+        if (listener == MatchListener.NOOP) {
+            return matcher;
+        }
+        return instrument(matcher, "", listener);
+    }
+
+    private static Matcher instrument(Matcher matcher, String path, MatchListener listener) {
+        if (matcher instanceof AnnotatedMatcher) {
+            AnnotatedMatcher annotated = (AnnotatedMatcher) matcher;
+            return new AnnotatedMatcher(instrument(annotated.getMatcher(), path, listener), annotated.getAnnotation());
+        }
+        if (matcher instanceof ObjectMatcher) {
+            ObjectMatcher object = (ObjectMatcher) matcher;
+            LinkedHashMap<String, Matcher> fieldMatchers = new LinkedHashMap<>();
+            for (Map.Entry<String, Matcher> field : object.getExpectedFields().entrySet()) {
+                fieldMatchers.put(field.getKey(), instrument(field.getValue(), JsonPointer.field(path, field.getKey()), listener));
+            }
+            matcher = new ObjectMatcher(fieldMatchers, object.isIgnoreExtraFields(), object.isElideIgnoredFieldValues(), object.isProbeExpectedFields());
+        } else if (matcher instanceof ArrayMatcher) {
+            ArrayMatcher array = (ArrayMatcher) matcher;
+            List<Matcher> elementMatchers = new ArrayList<>(array.getElementMatchers().size());
+            for (Matcher elementMatcher : array.getElementMatchers()) {
+                elementMatchers.add(instrument(elementMatcher, JsonPointer.element(path, elementMatchers.size()), listener));
+            }
+            matcher = new ArrayMatcher(elementMatchers, array.parallelThreshold());
+        }
+        return new InstrumentedMatcher(matcher, path, listener);
+    }
+
+    public Matcher getMatcher() {
+        return matcher;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public Result match(JsonNode parsed) {
+        listener.onEnter(path, matcher.getClass());
+        long start = System.nanoTime();
+        Result result = null;
+        try {
+            result = matcher.match(parsed);
+            return result;
+        } finally {
+            exit(result != null && result.isMatch(), start);
+        }
+    }
+
+    @Override
+    public Result match(JsonParser parser) throws IOException {
+        listener.onEnter(path, matcher.getClass());
+        long start = System.nanoTime();
+        Result result = null;
+        try {
+            result = matcher.match(parser);
+            return result;
+        } finally {
+            exit(result != null && result.isMatch(), start);
+        }
+    }
+
+    @Override
+    public boolean matches(JsonNode parsed) {
+        listener.onEnter(path, matcher.getClass());
+        long start = System.nanoTime();
+        boolean matched = false;
+        try {
+            matched = matcher.matches(parsed);
+            return matched;
+        } finally {
+            exit(matched, start);
+        }
+    }
+
+    @Override
+    public boolean matches(JsonParser parser) throws IOException {
+        listener.onEnter(path, matcher.getClass());
+        long start = System.nanoTime();
+        boolean matched = false;
+        try {
+            matched = matcher.matches(parser);
+            return matched;
+        } finally {
+            exit(matched, start);
+        }
+    }
+
+    @Override
+    public <N> Result match(N value, NodeAccess<N> access) {
+        listener.onEnter(path, matcher.getClass());
+        long start = System.nanoTime();
+        Result result = null;
+        try {
+            result = matcher.match(value, access);
+            return result;
+        } finally {
+            exit(result != null && result.isMatch(), start);
+        }
+    }
+
+    @Override
+    public <N> boolean matches(N value, NodeAccess<N> access) {
+        listener.onEnter(path, matcher.getClass());
+        long start = System.nanoTime();
+        boolean matched = false;
+        try {
+            matched = matcher.matches(value, access);
+            return matched;
+        } finally {
+            exit(matched, start);
+        }
+    }
+
+    /** Reports leaving the value, see {@link MatchListener#onExit}. */
+    private void exit(boolean matched, long start) {
+        listener.onExit(path, matcher.getClass(), matched, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,76 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static jsonmatch.Matcher.mapper;
+
+class JsonInput {
+    /** Files of at least this size are memory-mapped instead of read through a stream. */
+    static final long MAPPING_THRESHOLD = 1 << 20;
+
+    private JsonInput() {
+    }
+
+    interface ParserSource {
+        JsonParser open() throws IOException;
+    }
+
+    static Result match(Matcher matcher, ParserSource source) {
+        try (JsonParser parser = source.open()) {
+            return matcher.match(begin(parser));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static boolean matches(Matcher matcher, ParserSource source) {
+        try (JsonParser parser = source.open()) {
+            return matcher.matches(begin(parser));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** Position a fresh parser on the first token of the document. */
+    static JsonParser begin(JsonParser parser) throws IOException {
+        if (parser.nextToken() == null) {
+            throw new JsonParseException(parser, "No content to match");
+        }
+        return parser;
+    }
+
+    /** Reads the remaining bytes of the buffer without moving its position. */
+    static JsonParser parser(ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray()) {
+            return mapper.createParser(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        return mapper.createParser(new ByteBufferBackedInputStream(buffer.duplicate()));
+    }
+
+    /** Reads from the stream without closing it. */
+    static JsonParser parser(InputStream in) throws IOException {
+        JsonParser parser = mapper.createParser(in);
+        parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        return parser;
+    }
+
+    static JsonParser parser(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAPPING_THRESHOLD && size <= Integer.MAX_VALUE) {
+                return parser(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+        }
+        return mapper.createParser(Files.newInputStream(path));
+    }
+}
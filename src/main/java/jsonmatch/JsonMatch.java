@@ -38,4 +38,15 @@ public class JsonMatch {
     public static Matcher isNull() {
         return new NullMatcher();
     }
+
+    /**
+     * Match documents given as text, bytes or streams without building the
+     * parts of the tree the matcher doesn't look at. Ignored fields and
+     * elements after the expected ones are skipped by the tokenizer and
+     * don't show up in the result at all; the results for everything the
+     * matcher expects are the same.
+     */
+    public static Matcher projected(Matcher matcher) {
+        return matcher instanceof ProjectedMatcher ? matcher : new ProjectedMatcher(matcher);
+    }
 }
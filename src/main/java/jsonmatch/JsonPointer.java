@@ -0,0 +1,30 @@
+package jsonmatch;
+
+/** Building JSON Pointers (RFC 6901) to fields and elements. */
+class JsonPointer {
+    private JsonPointer() {
+    }
+
+    static String field(String parent, String name) {
+        return appendEscaped(new StringBuilder(parent).append('/'), name).toString();
+    }
+
+    static String element(String parent, int index) {
+        return parent + "/" + index;
+    }
+
+    /** Escapes a field name as a reference token. */
+    static StringBuilder appendEscaped(StringBuilder path, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '~') {
+                path.append("~0");
+            } else if (c == '/') {
+                path.append("~1");
+            } else {
+                path.append(c);
+            }
+        }
+        return path;
+    }
+}
@@ -0,0 +1,65 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.regex.Pattern;
+
+import static jsonmatch.Matcher.mapper;
+
+/** Helpers for {@link Result#writeJson(JsonGenerator)}. */
+class JsonReport {
+    private static final Pattern ANSI = Pattern.compile("\u001B\\[[;\\d]*m");
+
+    private JsonReport() {
+    }
+
+    static void writeStart(JsonGenerator generator, String type, boolean match) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", type);
+        generator.writeBooleanField("match", match);
+    }
+
+    /** Streams the value without rendering it into a string first, also if the generator has no codec. */
+    static void writeValueField(JsonGenerator generator, String fieldName, JsonNode value) throws IOException {
+        generator.writeFieldName(fieldName);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            mapper.writeTree(generator, value);
+        }
+    }
+
+    /** Writes the value, or its preview as a string field of its own if only that was kept. */
+    static void writeValueField(JsonGenerator generator, String fieldName, JsonNode value, String preview) throws IOException {
+        if (preview != null) {
+            generator.writeStringField("preview", preview);
+        } else {
+            writeValueField(generator, fieldName, value);
+        }
+    }
+
+    static void writeNumberField(JsonGenerator generator, String fieldName, Number value) throws IOException {
+        generator.writeFieldName(fieldName);
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            generator.writeNumber(value.intValue());
+        } else if (value instanceof Long) {
+            generator.writeNumber(value.longValue());
+        } else if (value instanceof Float) {
+            generator.writeNumber(value.floatValue());
+        } else if (value instanceof BigInteger) {
+            generator.writeNumber((BigInteger) value);
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else {
+            generator.writeNumber(value.doubleValue());
+        }
+    }
+
+    static String stripAnsi(String text) {
+        return ANSI.matcher(text).replaceAll("");
+    }
+}
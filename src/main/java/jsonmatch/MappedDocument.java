@@ -0,0 +1,608 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static jsonmatch.Matcher.mapper;
+
+/**
+ * A JSON file, of any size, memory-mapped and read lazily as matchers
+ * look at it.
+ *
+ * Nodes are the offsets at which values start. The first time an object
+ * or array is looked into, it is scanned once for where it ends, its size
+ * and the offsets of its first fields or elements, and that index is kept
+ * for a while. Values are only decoded when their text, number or tree is
+ * asked for, so the parts of the document no matcher looks at are skipped
+ * without being decoded, and the heap used doesn't grow with the size of
+ * the document, only by a few bytes a field with the width of objects of
+ * more than a thousand fields:
+ * <pre>
+ * MappedDocument document = MappedDocument.open(path);
+ * boolean matched = document.matches(matcher);
+ * </pre>
+ * The document isn't validated as a whole; invalid JSON is only noticed
+ * where it is read.
+ *
+ * {@link #match(Matcher)} needs trees of the values its result shows:
+ * mismatching values and, unless they are elided, ignored fields. For
+ * documents too large for the heap, use {@link #matches(Matcher)}, or
+ * matchers that elide ignored values.
+ *
+ * A document isn't thread-safe. The file is unmapped when the document is
+ * garbage collected.
+ */
+public final class MappedDocument implements NodeAccess<Long> {
+    private static final int REGION_BITS = 30;
+    /** Fields or elements of a container whose offsets are kept, beyond that they are stepped to from checkpoints. */
+    private static final int INDEXED_ENTRIES = 1024;
+    /** Containers whose index is kept. */
+    private static final int INDEXED_CONTAINERS = 256;
+    /** Of the entries after the indexed ones, how far apart those are whose offsets are kept. */
+    private static final int CHECKPOINT_INTERVAL = 64;
+    /** The hash of keys with escapes, whose bytes aren't those of their name. */
+    private static final short ESCAPED = 0;
+
+    private final MappedByteBuffer[] regions;
+    private final int regionBits;
+    private final long size;
+    /** How many bytes of the file have been read, for tests. */
+    long bytesRead;
+    private final Map<Long, Index> indexes = new LinkedHashMap<Long, Index>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Index> eldest) {
+            return size() > INDEXED_CONTAINERS;
+        }
+    };
+
+    MappedDocument(Path path, int regionBits) {
+        this.regionBits = regionBits;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            long regionSize = 1L << regionBits;
+            regions = new MappedByteBuffer[(int) ((size + regionSize - 1) >>> regionBits)];
+            for (int i = 0; i < regions.length; i++) {
+                long start = (long) i << regionBits;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(regionSize, size - start));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** Maps a UTF-8 JSON file. */
+    public static MappedDocument open(Path path) {
+        return new MappedDocument(path, REGION_BITS);
+    }
+
+    public Long root() {
+        long root = skipWhitespace(0);
+        if (root == size) {
+            throw new RuntimeException("No content to match");
+        }
+        return root;
+    }
+
+    public boolean matches(Matcher matcher) {
+        return matcher.matches(root(), this);
+    }
+
+    public Result match(Matcher matcher) {
+        return matcher.match(root(), this);
+    }
+
+    private byte at(long pos) {
+        if (pos >= size) {
+            throw error("Incomplete document", pos);
+        }
+        bytesRead++;
+        return regions[(int) (pos >>> regionBits)].get((int) (pos & ((1L << regionBits) - 1)));
+    }
+
+    private long skipWhitespace(long pos) {
+        while (pos < size) {
+            byte c = at(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Where the value at {@code pos} ends. Containers are scanned by their
+     * brackets rather than indexed, so skipping them doesn't push the
+     * indexes in use out of the cache.
+     */
+    private long skip(long pos) {
+        switch (at(pos)) {
+            case '{':
+            case '[':
+                return skipContainer(pos);
+            case '"':
+                return skipString(pos);
+            default:
+                while (pos < size && isScalarPart(at(pos))) {
+                    pos++;
+                }
+                return pos;
+        }
+    }
+
+    private static boolean isScalarPart(byte c) {
+        return c >= '0' && c <= '9' || c >= 'a' && c <= 'z' || c == '-' || c == '+' || c == '.' || c == 'E';
+    }
+
+    private long skipString(long pos) {
+        for (long i = pos + 1; ; i++) {
+            byte c = at(i);
+            if (c == '"') {
+                return i + 1;
+            }
+            if (c == '\\') {
+                i++;
+            }
+        }
+    }
+
+    /** Where the container at {@code pos} ends, scanning for the brackets without looking at its values. */
+    private long skipContainer(long pos) {
+        int depth = 0;
+        for (long i = pos; ; i++) {
+            byte c = at(i);
+            if (c == '"') {
+                i = skipString(i) - 1;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                return i + 1;
+            }
+        }
+    }
+
+    private Index index(long container) {
+        Index index = indexes.get(container);
+        if (index == null) {
+            index = new Index(container);
+            indexes.put(container, index);
+        }
+        return index;
+    }
+
+    /** Where the value after the key at {@code key} starts. */
+    private long valueOf(long key) {
+        long pos = skipWhitespace(skipString(key));
+        if (at(pos) != ':') {
+            throw error("Expected ':'", pos);
+        }
+        return skipWhitespace(pos + 1);
+    }
+
+    /** Where the value at {@code pos} ends, taken from its index if it has one. */
+    private long end(long pos) {
+        byte c = at(pos);
+        if (c == '{' || c == '[') {
+            Index index = indexes.get(pos);
+            if (index != null) {
+                return index.end;
+            }
+        }
+        return skip(pos);
+    }
+
+    /** Where the entry after the value at {@code value} starts, or -1 at the end of its container. */
+    private long nextEntry(long value, char closing) {
+        return entryAfter(skip(value), closing);
+    }
+
+    /** Where the entry after a value ending at {@code end} starts, or -1 at the end of its container. */
+    private long entryAfter(long end, char closing) {
+        long pos = skipWhitespace(end);
+        byte c = at(pos);
+        if (c == ',') {
+            return skipWhitespace(pos + 1);
+        }
+        if (c != closing) {
+            throw error("Unexpected character", pos);
+        }
+        return -1;
+    }
+
+    /** Whether the key at {@code key} is {@code name}, comparing its bytes unless it has escapes. */
+    private boolean keyEquals(long key, byte[] bytes, String name) {
+        for (int i = 0; i <= bytes.length; i++) {
+            byte c = at(key + 1 + i);
+            if (c == '\\') {
+                return string(key).equals(name);
+            }
+            if (i == bytes.length || c == '"') {
+                return i == bytes.length && c == '"';
+            }
+            if (c != bytes[i]) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /** The hash of the bytes of the key at {@code key}, {@link #ESCAPED} if it has escapes. */
+    private short keyHash(long key) {
+        int hash = 0;
+        for (long i = key + 1; ; i++) {
+            byte c = at(i);
+            if (c == '"') {
+                return finish(hash);
+            }
+            if (c == '\\') {
+                return ESCAPED;
+            }
+            hash = 31 * hash + c;
+        }
+    }
+
+    private static short hash(byte[] bytes) {
+        int hash = 0;
+        for (byte b : bytes) {
+            hash = 31 * hash + b;
+        }
+        return finish(hash);
+    }
+
+    private static short finish(int hash) {
+        short folded = (short) (hash ^ hash >>> 16);
+        return folded == ESCAPED ? 1 : folded;
+    }
+
+    private RuntimeException error(String message, long pos) {
+        return new RuntimeException(message + " at offset " + pos);
+    }
+
+    @Override
+    public NodeType typeOf(Long value) {
+        switch (at(value)) {
+            case '{':
+                return NodeType.OBJECT;
+            case '[':
+                return NodeType.ARRAY;
+            case '"':
+                return NodeType.STRING;
+            case 't':
+            case 'f':
+                return NodeType.BOOLEAN;
+            case 'n':
+                return NodeType.NULL;
+            default:
+                return NodeType.NUMBER;
+        }
+    }
+
+    @Override
+    public boolean hasField(Long object, String name) {
+        return index(object).find(name) >= 0;
+    }
+
+    @Override
+    public Long field(Long object, String name) {
+        long value = index(object).find(name);
+        return value < 0 ? null : value;
+    }
+
+    @Override
+    public Iterator<String> fieldNames(Long object) {
+        return new Iterator<String>() {
+            long key = index(object).first;
+
+            @Override
+            public boolean hasNext() {
+                return key >= 0;
+            }
+
+            @Override
+            public String next() {
+                if (key < 0) {
+                    throw new NoSuchElementException();
+                }
+                String name = string(key);
+                key = nextEntry(valueOf(key), '}');
+                return name;
+            }
+        };
+    }
+
+    /** Steps over values like {@link #elements}, by their index once a matcher has looked into them. */
+    @Override
+    public Fields<Long> fields(Long object) {
+        return new Fields<Long>() {
+            long key = -1;
+            long following = index(object).first;
+            /** Where the value of the current key starts, -1 until it is asked for. */
+            long valueStart = -1;
+
+            @Override
+            public boolean next() {
+                if (key >= 0) {
+                    following = entryAfter(end(value()), '}');
+                }
+                key = following;
+                valueStart = -1;
+                return key >= 0;
+            }
+
+            @Override
+            public String name() {
+                return string(key);
+            }
+
+            @Override
+            public Long value() {
+                if (valueStart < 0) {
+                    valueStart = valueOf(key);
+                }
+                return valueStart;
+            }
+        };
+    }
+
+    @Override
+    public int size(Long container) {
+        return index(container).size;
+    }
+
+    @Override
+    public Iterator<Long> elements(Long array) {
+        return new Iterator<Long>() {
+            long element = index(array).first;
+            /** The element returned last, only stepped over once the matcher has indexed it. */
+            long previous = -1;
+
+            private void advance() {
+                if (previous >= 0) {
+                    element = entryAfter(end(previous), ']');
+                    previous = -1;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                advance();
+                return element >= 0;
+            }
+
+            @Override
+            public Long next() {
+                advance();
+                if (element < 0) {
+                    throw new NoSuchElementException();
+                }
+                previous = element;
+                return element;
+            }
+        };
+    }
+
+    @Override
+    public Long element(Long array, int index) {
+        long element = index(array).element(index);
+        return element < 0 ? null : element;
+    }
+
+    @Override
+    public String textValue(Long string) {
+        return string(string);
+    }
+
+    private String string(long pos) {
+        long end = skipString(pos);
+        byte[] bytes = bytes(pos, end);
+        for (byte b : bytes) {
+            if (b == '\\') {
+                return tree(bytes).textValue();
+            }
+        }
+        return new String(bytes, 1, bytes.length - 2, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Number numberValue(Long number) {
+        return tree(bytes(number, skip(number))).numberValue();
+    }
+
+    @Override
+    public boolean booleanValue(Long bool) {
+        return at(bool) == 't';
+    }
+
+    @Override
+    public JsonNode toTree(Long value) {
+        long end = end(value);
+        try (InputStream in = new RegionInputStream(value, end)) {
+            return mapper.readTree(in);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private byte[] bytes(long start, long end) {
+        if (end - start > Integer.MAX_VALUE - 8) {
+            throw new RuntimeException("Value at offset " + start + " is too large to read");
+        }
+        byte[] bytes = new byte[(int) (end - start)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = at(start + i);
+        }
+        return bytes;
+    }
+
+    private static JsonNode tree(byte[] json) {
+        try {
+            return mapper.readTree(json);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Where an object or array ends, its size and where its first entries
+     * start, with the keys of those entries in a hash map. Of the entries
+     * beyond, every {@link #CHECKPOINT_INTERVAL}th one's offset is kept,
+     * and a short hash of each key, so a lookup only steps through the few
+     * entries whose keys hash alike.
+     */
+    private final class Index {
+        final long end;
+        final int size;
+        /** The first key or element, -1 if there is none. */
+        final long first;
+        /** The slots of the indexed keys, the last one of duplicates as Jackson keeps it. */
+        final Map<String, Integer> slots;
+        /** The values of the indexed keys, or the elements. */
+        final long[] values;
+        final int indexed;
+        /** The offsets of every {@link #CHECKPOINT_INTERVAL}th key or element after the indexed ones. */
+        final long[] checkpoints;
+        /** The hashes of the keys after the indexed ones. */
+        final short[] hashes;
+        /** Matchers look a field up twice, whether it is there and its value. */
+        String lastName;
+        long lastFound;
+
+        Index(long container) {
+            boolean object = at(container) == '{';
+            char closing = object ? '}' : ']';
+            long pos = skipWhitespace(container + 1);
+            first = at(pos) == closing ? -1 : pos;
+            Map<String, Integer> slots = object ? new HashMap<>() : null;
+            long[] values = new long[16];
+            long[] checkpoints = new long[0];
+            short[] hashes = object ? new short[0] : null;
+            int count = 0;
+            for (long entry = first; entry >= 0; count++) {
+                long value = object ? valueOf(entry) : entry;
+                if (count < INDEXED_ENTRIES) {
+                    if (count == values.length) {
+                        values = Arrays.copyOf(values, count * 2);
+                    }
+                    if (object) {
+                        slots.put(string(entry), count);
+                    }
+                    values[count] = value;
+                } else {
+                    int beyond = count - INDEXED_ENTRIES;
+                    if (beyond % CHECKPOINT_INTERVAL == 0) {
+                        int checkpoint = beyond / CHECKPOINT_INTERVAL;
+                        if (checkpoint == checkpoints.length) {
+                            checkpoints = Arrays.copyOf(checkpoints, Math.max(16, checkpoint * 2));
+                        }
+                        checkpoints[checkpoint] = entry;
+                    }
+                    if (object) {
+                        if (beyond == hashes.length) {
+                            hashes = Arrays.copyOf(hashes, Math.max(16 * CHECKPOINT_INTERVAL, beyond * 2));
+                        }
+                        hashes[beyond] = keyHash(entry);
+                    }
+                }
+                long after = skipWhitespace(skip(value));
+                byte c = at(after);
+                if (c == ',') {
+                    entry = skipWhitespace(after + 1);
+                } else if (c == closing) {
+                    pos = after;
+                    entry = -1;
+                } else {
+                    throw error("Unexpected character", after);
+                }
+            }
+            this.end = pos + 1;
+            this.size = count;
+            this.indexed = Math.min(count, INDEXED_ENTRIES);
+            this.slots = slots;
+            this.values = values;
+            this.checkpoints = checkpoints;
+            this.hashes = hashes;
+        }
+
+        /** The value of the last field with this name, as Jackson keeps it, -1 if there is none. */
+        long find(String name) {
+            if (name.equals(lastName)) {
+                return lastFound;
+            }
+            Integer slot = slots.get(name);
+            long found = slot == null ? -1 : values[slot];
+            if (indexed < size) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                short hash = hash(bytes);
+                for (int beyond = 0; beyond < size - indexed; beyond++) {
+                    // keys with escapes are compared whatever they hash to
+                    if (hashes[beyond] == hash || hashes[beyond] == ESCAPED) {
+                        long key = beyond(beyond, '}');
+                        if (keyEquals(key, bytes, name)) {
+                            found = valueOf(key);
+                        }
+                    }
+                }
+            }
+            lastName = name;
+            lastFound = found;
+            return found;
+        }
+
+        long element(int index) {
+            if (index >= size) {
+                return -1;
+            }
+            return index < indexed ? values[index] : beyond(index - indexed, ']');
+        }
+
+        /** The key or element this many entries after the indexed ones, stepped to from its checkpoint. */
+        private long beyond(int beyond, char closing) {
+            long entry = checkpoints[beyond / CHECKPOINT_INTERVAL];
+            for (int i = 0; i < beyond % CHECKPOINT_INTERVAL; i++) {
+                entry = nextEntry(closing == '}' ? valueOf(entry) : entry, closing);
+            }
+            return entry;
+        }
+    }
+
+    /** Reads a range of the file. */
+    private final class RegionInputStream extends InputStream {
+        private long pos;
+        private final long end;
+
+        RegionInputStream(long start, long end) {
+            this.pos = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() {
+            return pos < end ? at(pos++) & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (pos >= end) {
+                return -1;
+            }
+            int count = (int) Math.min(length, end - pos);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = at(pos++);
+            }
+            return count;
+        }
+    }
+}
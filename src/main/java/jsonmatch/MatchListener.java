@@ -0,0 +1,29 @@
+package jsonmatch;
+
+/**
+ * Observes matching node by node, see {@link InstrumentedMatcher}.
+ *
+ * Listeners are called on the matching thread, so they should be quick,
+ * and from several threads at once when matchers are shared or arrays are
+ * matched in parallel.
+ */
+public interface MatchListener {
+    /** Does nothing; instrumenting a matcher with it returns the matcher itself. */
+    MatchListener NOOP = new MatchListener() {
+    };
+
+    /**
+     * @param path JSON Pointer to the value, the empty string for the document
+     */
+    default void onEnter(String path, Class<? extends Matcher> matcherType) {
+    }
+
+    /**
+     * Called for every {@link #onEnter}, also when matching throws, for
+     * example on invalid JSON, which counts as a mismatch.
+     *
+     * @param elapsedNanos including the time spent on the nested values
+     */
+    default void onExit(String path, Class<? extends Matcher> matcherType, boolean matched, long elapsedNanos) {
+    }
+}
@@ -1,19 +1,115 @@
 package jsonmatch;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
 public interface Matcher {
     ObjectMapper mapper = new ObjectMapper();
 
     Result match(JsonNode parsed);
 
+    /**
+     * Match the value the parser is currently positioned on, without
+     * building a tree for the whole document. On return the parser is
+     * positioned on the last token of that value.
+     *
+     * Matchers that cannot work on the token stream fall back to
+     * reading just their value as a tree.
+     */
+    default Result match(JsonParser parser) throws IOException {
+        return this.match((JsonNode) mapper.readTree(parser));
+    }
+
+    /**
+     * Object and array matchers first only work out the verdict. A
+     * matching document's result then holds on to the String, for
+     * matching it again when the details are looked at; use
+     * {@link Result#detach()} to keep such a result without the document.
+     * A mismatching document is matched again right away for its details,
+     * so it is parsed twice, up to the first mismatch and then in full.
+     */
     default Result match(String matchee) {
-        try {
-            return this.match(mapper.readValue(matchee, JsonNode.class));
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
-        }
+        return JsonInput.match(this, () -> mapper.createParser(matchee));
     };
+
+    /** Match UTF-8 (or UTF-16/32 with BOM) encoded JSON. */
+    default Result match(byte[] matchee) {
+        return JsonInput.match(this, () -> mapper.createParser(matchee));
+    }
+
+    default Result match(byte[] matchee, int offset, int length) {
+        return JsonInput.match(this, () -> mapper.createParser(matchee, offset, length));
+    }
+
+    /** Match the remaining bytes of the buffer. The buffer's position isn't changed. */
+    default Result match(ByteBuffer matchee) {
+        return JsonInput.match(this, () -> JsonInput.parser(matchee));
+    }
+
+    /** Match the JSON read from the stream. The stream isn't closed. */
+    default Result match(InputStream matchee) {
+        return JsonInput.match(this, () -> JsonInput.parser(matchee));
+    }
+
+    /** Match the contents of a file. Large files are memory-mapped. */
+    default Result match(Path matchee) {
+        return JsonInput.match(this, () -> JsonInput.parser(matchee));
+    }
+
+    /**
+     * Match a value read through {@code access} rather than a tree.
+     * Matchers that don't know how to read such values match the tree of
+     * the value.
+     */
+    default <N> Result match(N value, NodeAccess<N> access) {
+        return this.match(access.toTree(value));
+    }
+
+    /**
+     * Match a Java object as Jackson would serialise it, without producing
+     * any JSON. See {@link ValueAccess} for the objects this works for.
+     */
+    default Result matchValue(Object value) {
+        return this.match(ValueAccess.node(value), ValueAccess.INSTANCE);
+    }
+
+    /**
+     * Only the verdict of {@link #match(JsonNode)}. Stops at the first
+     * mismatch and doesn't build a {@link Result}.
+     */
+    default boolean matches(JsonNode parsed) {
+        return this.match(parsed).isMatch();
+    }
+
+    /**
+     * Only the verdict of {@link #match(JsonParser)}. On a match the parser
+     * is positioned on the last token of the value, on a mismatch it is
+     * left where the mismatch was detected.
+     */
+    default boolean matches(JsonParser parser) throws IOException {
+        return this.matches((JsonNode) mapper.readTree(parser));
+    }
+
+    /** Only the verdict of {@link #match(Object, NodeAccess)}. */
+    default <N> boolean matches(N value, NodeAccess<N> access) {
+        return this.matches(access.toTree(value));
+    }
+
+    default boolean matchesValue(Object value) {
+        return this.matches(ValueAccess.node(value), ValueAccess.INSTANCE);
+    }
+
+    default boolean matches(String matchee) {
+        return JsonInput.matches(this, () -> mapper.createParser(matchee));
+    }
+
+    default boolean matches(byte[] matchee) {
+        return JsonInput.matches(this, () -> mapper.createParser(matchee));
+    }
 }
@@ -0,0 +1,618 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Opt-in code generation for matchers that run very often.
+ *
+ * Emits the bytecode of a {@link GeneratedMatcher} whose {@code matches}
+ * methods, on trees and on the token stream, are specialised for one
+ * matcher tree, with field names and expected values inlined as
+ * constants. No compiler is needed at runtime.
+ *
+ * The checks of nested matchers are inlined into methods that stay below
+ * the size the JIT refuses to compile, so it has a few methods to compile
+ * rather than one per matcher. Of large trees, only the first few hundred
+ * matchers are generated and the rest is left to the matchers themselves:
+ * generated code is new to the JIT and takes longer to warm up the more
+ * there is of it, while the code of the matchers is shared by all trees.
+ *
+ * Every generated class has a class loader of its own, so it is unloaded
+ * once its matcher isn't used anymore. Generating still takes a while, so
+ * generate matchers once and keep them, rather than generating one per
+ * document. Where no class can be generated, the matcher itself is used.
+ */
+public class MatcherCodeGenerator {
+    private static final String PACKAGE = "jsonmatch.generated";
+    /** The matchers whose checks are inlined into one method, at up to about 30 bytes of bytecode each. */
+    private static final int METHOD_BUDGET = 150;
+    /** The matchers generated for each of the verdicts. */
+    private static final int CLASS_BUDGET = 500;
+    /** Objects with more fields are matched by their matcher on the token stream, one bit per field is kept in a long. */
+    private static final int MAX_STREAMED_FIELDS = 64;
+    private static final AtomicInteger classCounter = new AtomicInteger();
+
+    private static final String NODE = Type.getInternalName(JsonNode.class);
+    private static final String PARSER = Type.getInternalName(JsonParser.class);
+    private static final String TOKEN = Type.getInternalName(JsonToken.class);
+    private static final String MATCHER = Type.getInternalName(Matcher.class);
+    private static final String BASE = Type.getInternalName(GeneratedMatcher.class);
+    private static final String NODE_VERDICT = "(L" + NODE + ";)Z";
+    private static final String PARSER_VERDICT = "(L" + PARSER + ";)Z";
+    private static final String[] IO_EXCEPTION = {"java/io/IOException"};
+
+    private MatcherCodeGenerator() {
+    }
+
+    public static Matcher generate(MatcherBuilder builder) {
+        return generate(builder.build());
+    }
+
+    /** The generated matcher, or the matcher itself if no class can be generated for it. */
+    public static Matcher generate(Matcher matcher) {
+        return generate(matcher, false);
+    }
+
+    /**
+     * @param strict whether to throw rather than return the matcher itself
+     *               if no class can be generated for it, for example because
+     *               its constants don't fit a class or the JVM doesn't allow
+     *               defining classes
+     * @throws IllegalArgumentException if {@code strict} and no class can be
+     *                                  generated
+     */
+    public static Matcher generate(Matcher matcher, boolean strict) {
+        if (matcher instanceof GeneratedMatcher) {
+            return matcher;
+        }
+        try {
+            return define(matcher);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            if (strict) {
+                throw new IllegalArgumentException("Can't generate a class for the matcher", e);
+            }
+            return matcher;
+        }
+    }
+
+    private static Matcher define(Matcher matcher) throws ReflectiveOperationException {
+        String className = PACKAGE + ".Matcher" + classCounter.incrementAndGet();
+        ClassEmitter emitter = new ClassEmitter(className.replace('.', '/'));
+        byte[] bytes = emitter.emit(matcher);
+        return (Matcher) new GeneratedClassLoader().define(className, bytes)
+            .getConstructor(Matcher.class, Matcher[].class)
+            .newInstance(matcher, emitter.delegates.toArray(new Matcher[0]));
+    }
+
+    /** Defines a single class, which can be unloaded with its loader. */
+    private static class GeneratedClassLoader extends ClassLoader {
+        GeneratedClassLoader() {
+            super(MatcherCodeGenerator.class.getClassLoader());
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    /** A method being emitted and how many more matchers may be inlined into it. */
+    private static class Method {
+        final MethodVisitor code;
+        final Label mismatch = new Label();
+        int budget = METHOD_BUDGET;
+
+        Method(MethodVisitor code) {
+            this.code = code;
+        }
+    }
+
+    private static class ClassEmitter {
+        private final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+        private final String className;
+        private final List<Matcher> delegates = new ArrayList<>();
+        private final Map<Matcher, Integer> costs = new IdentityHashMap<>();
+        private int methodCounter = 0;
+        /** How many more matchers may be generated for the verdict being emitted. */
+        private int budget;
+
+        ClassEmitter(String className) {
+            this.className = className;
+        }
+
+        byte[] emit(Matcher matcher) {
+            writer.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className, null, BASE, null);
+
+            String constructorDescriptor = "(L" + MATCHER + ";[L" + MATCHER + ";)V";
+            MethodVisitor constructor = writer.visitMethod(ACC_PUBLIC, "<init>", constructorDescriptor, null, null);
+            constructor.visitCode();
+            constructor.visitVarInsn(ALOAD, 0);
+            constructor.visitVarInsn(ALOAD, 1);
+            constructor.visitVarInsn(ALOAD, 2);
+            constructor.visitMethodInsn(INVOKESPECIAL, BASE, "<init>", constructorDescriptor, false);
+            constructor.visitInsn(RETURN);
+            constructor.visitMaxs(0, 0);
+            constructor.visitEnd();
+
+            budget = CLASS_BUDGET;
+            emitEntryPoint(nodeMethod(matcher), NODE_VERDICT, null);
+            budget = CLASS_BUDGET;
+            emitEntryPoint(parserMethod(matcher), PARSER_VERDICT, IO_EXCEPTION);
+
+            writer.visitEnd();
+            return writer.toByteArray();
+        }
+
+        private void emitEntryPoint(String method, String descriptor, String[] exceptions) {
+            MethodVisitor code = writer.visitMethod(ACC_PUBLIC, "matches", descriptor, null, exceptions);
+            code.visitCode();
+            code.visitVarInsn(ALOAD, 0);
+            code.visitVarInsn(ALOAD, 1);
+            code.visitMethodInsn(INVOKEVIRTUAL, className, method, descriptor, false);
+            code.visitInsn(IRETURN);
+            code.visitMaxs(0, 0);
+            code.visitEnd();
+        }
+
+        private Method begin(String name, String descriptor, String[] exceptions) {
+            Method method = new Method(writer.visitMethod(ACC_PRIVATE, name, descriptor, null, exceptions));
+            method.code.visitCode();
+            return method;
+        }
+
+        private void end(Method method) {
+            MethodVisitor code = method.code;
+            code.visitInsn(ICONST_1);
+            code.visitInsn(IRETURN);
+            code.visitLabel(method.mismatch);
+            code.visitInsn(ICONST_0);
+            code.visitInsn(IRETURN);
+            code.visitMaxs(0, 0);
+            code.visitEnd();
+        }
+
+        /** How many matchers this one consists of. */
+        private int cost(Matcher matcher) {
+            Integer cost = costs.get(matcher);
+            if (cost == null) {
+                cost = 1;
+                if (matcher instanceof AnnotatedMatcher) {
+                    cost = cost(((AnnotatedMatcher) matcher).getMatcher());
+                } else if (matcher instanceof ObjectMatcher) {
+                    FieldIndex fieldIndex = ((ObjectMatcher) matcher).fieldIndex();
+                    for (int slot = 0; slot < fieldIndex.size(); slot++) {
+                        cost += cost(fieldIndex.matcher(slot));
+                    }
+                } else if (matcher instanceof ArrayMatcher) {
+                    for (Matcher element : ((ArrayMatcher) matcher).getElementMatchers()) {
+                        cost += cost(element);
+                    }
+                }
+                costs.put(matcher, cost);
+            }
+            return cost;
+        }
+
+        private int delegate(Matcher matcher) {
+            delegates.add(matcher);
+            return delegates.size() - 1;
+        }
+
+        private static Matcher unannotated(Matcher matcher) {
+            while (matcher instanceof AnnotatedMatcher) {
+                matcher = ((AnnotatedMatcher) matcher).getMatcher();
+            }
+            return matcher;
+        }
+
+        // Trees: the node being matched is in a local, its fields and elements go to the next one.
+
+        /** Emits a method matching the tree in local 1 and returns its name. */
+        private String nodeMethod(Matcher matcher) {
+            String name = "m" + methodCounter++;
+            Method method = begin(name, NODE_VERDICT, null);
+            emitNode(matcher, 1, method);
+            end(method);
+            return name;
+        }
+
+        /** Emits a jump to the mismatch of the method unless the node in {@code local} matches. */
+        private void emitNode(Matcher matcher, int local, Method method) {
+            MethodVisitor code = method.code;
+            matcher = unannotated(matcher);
+            method.budget--;
+            budget--;
+            if (matcher instanceof ObjectMatcher) {
+                ObjectMatcher object = (ObjectMatcher) matcher;
+                code.visitVarInsn(ALOAD, local);
+                code.visitTypeInsn(INSTANCEOF, Type.getInternalName(ObjectNode.class));
+                code.visitJumpInsn(IFEQ, method.mismatch);
+                if (!object.isIgnoreExtraFields()) {
+                    // with all expected fields present, any further field is an extra one
+                    emitSize(local, object.fieldIndex().size(), IF_ICMPNE, method);
+                }
+                emitEntries(object, 0, object.fieldIndex().size(), local, method);
+            } else if (matcher instanceof ArrayMatcher) {
+                ArrayMatcher array = (ArrayMatcher) matcher;
+                emitCheck(local, NODE, "isArray", method);
+                emitSize(local, array.getElementMatchers().size(), IF_ICMPLT, method);
+                emitEntries(array, 0, array.getElementMatchers().size(), local, method);
+            } else if (matcher instanceof StringMatcher) {
+                emitCheck(local, NODE, "isTextual", method);
+                code.visitLdcInsn(((StringMatcher) matcher).getExpectedValue());
+                code.visitVarInsn(ALOAD, local);
+                code.visitMethodInsn(INVOKEVIRTUAL, NODE, "textValue", "()Ljava/lang/String;", false);
+                code.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "equals", "(Ljava/lang/Object;)Z", false);
+                code.visitJumpInsn(IFEQ, method.mismatch);
+            } else if (matcher instanceof BooleanMatcher) {
+                emitCheck(local, NODE, "isBoolean", method);
+                code.visitVarInsn(ALOAD, local);
+                code.visitMethodInsn(INVOKEVIRTUAL, NODE, "booleanValue", "()Z", false);
+                code.visitJumpInsn(((BooleanMatcher) matcher).getExpectedValue() ? IFEQ : IFNE, method.mismatch);
+            } else if (matcher instanceof NullMatcher) {
+                emitCheck(local, NODE, "isNull", method);
+            } else if (matcher instanceof NumberMatcher && isInlined(((NumberMatcher) matcher).getExpectedValue())) {
+                emitNumber(((NumberMatcher) matcher).getExpectedValue(), local, method);
+            } else {
+                emitDelegate(matcher, local, NODE_VERDICT, method);
+            }
+        }
+
+        /**
+         * Emits the checks of the fields or elements from {@code from} to
+         * {@code to}, inlined if they fit the method, otherwise in methods
+         * of their own that take the same container.
+         */
+        private void emitEntries(Matcher container, int from, int to, int local, Method method) {
+            int cost = 0;
+            for (int entry = from; entry < to; entry++) {
+                cost += cost(entry(container, entry));
+            }
+            if (cost <= method.budget || to - from == 1) {
+                for (int entry = from; entry < to; entry++) {
+                    emitEntry(container, entry, local, method);
+                }
+                return;
+            }
+            int start = from;
+            cost = 0;
+            for (int entry = from; entry <= to; entry++) {
+                int entryCost = entry < to ? cost(entry(container, entry)) : 0;
+                if (entry == to || cost + entryCost > METHOD_BUDGET && entry > start) {
+                    emitCall(entriesMethod(container, start, entry), local, NODE_VERDICT, method);
+                    start = entry;
+                    cost = 0;
+                }
+                cost += entryCost;
+            }
+        }
+
+        private String entriesMethod(Matcher container, int from, int to) {
+            String name = "m" + methodCounter++;
+            Method method = begin(name, NODE_VERDICT, null);
+            emitEntries(container, from, to, 1, method);
+            end(method);
+            return name;
+        }
+
+        private static Matcher entry(Matcher container, int entry) {
+            return container instanceof ObjectMatcher
+                ? ((ObjectMatcher) container).fieldIndex().matcher(entry)
+                : ((ArrayMatcher) container).getElementMatchers().get(entry);
+        }
+
+        /** Loads a field or element of the container in {@code local} into the next local and matches it. */
+        private void emitEntry(Matcher container, int entry, int local, Method method) {
+            MethodVisitor code = method.code;
+            code.visitVarInsn(ALOAD, local);
+            if (container instanceof ObjectMatcher) {
+                code.visitLdcInsn(((ObjectMatcher) container).fieldIndex().name(entry));
+                code.visitMethodInsn(INVOKEVIRTUAL, NODE, "get", "(Ljava/lang/String;)L" + NODE + ";", false);
+            } else {
+                push(code, entry);
+                code.visitMethodInsn(INVOKEVIRTUAL, NODE, "get", "(I)L" + NODE + ";", false);
+            }
+            code.visitVarInsn(ASTORE, local + 1);
+            code.visitVarInsn(ALOAD, local + 1);
+            code.visitJumpInsn(IFNULL, method.mismatch);
+            Matcher matcher = entry(container, entry);
+            if (cost(matcher) > budget) {
+                emitDelegate(matcher, local + 1, NODE_VERDICT, method);
+            } else if (cost(matcher) > method.budget) {
+                emitCall(nodeMethod(matcher), local + 1, NODE_VERDICT, method);
+            } else {
+                emitNode(matcher, local + 1, method);
+            }
+        }
+
+        /** Mirrors the unboxed comparisons of {@link NumberMatcher#matches(JsonNode)}. */
+        private void emitNumber(Number expected, int local, Method method) {
+            MethodVisitor code = method.code;
+            if (expected instanceof Integer) {
+                emitCheck(local, NODE, "isInt", method);
+                code.visitVarInsn(ALOAD, local);
+                code.visitMethodInsn(INVOKEVIRTUAL, NODE, "intValue", "()I", false);
+                push(code, (Integer) expected);
+                code.visitJumpInsn(IF_ICMPNE, method.mismatch);
+            } else if (expected instanceof Long) {
+                emitCheck(local, NODE, "isLong", method);
+                code.visitVarInsn(ALOAD, local);
+                code.visitMethodInsn(INVOKEVIRTUAL, NODE, "longValue", "()J", false);
+                code.visitLdcInsn(expected);
+                code.visitInsn(LCMP);
+                code.visitJumpInsn(IFNE, method.mismatch);
+            } else {
+                emitCheck(local, NODE, "isDouble", method);
+                code.visitVarInsn(ALOAD, local);
+                code.visitMethodInsn(INVOKEVIRTUAL, NODE, "doubleValue", "()D", false);
+                code.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "doubleToLongBits", "(D)J", false);
+                code.visitLdcInsn(Double.doubleToLongBits((Double) expected));
+                code.visitInsn(LCMP);
+                code.visitJumpInsn(IFNE, method.mismatch);
+            }
+        }
+
+        private static boolean isInlined(Number expected) {
+            return expected instanceof Integer || expected instanceof Long || expected instanceof Double;
+        }
+
+        private void emitSize(int local, int size, int mismatchingComparison, Method method) {
+            method.code.visitVarInsn(ALOAD, local);
+            method.code.visitMethodInsn(INVOKEVIRTUAL, NODE, "size", "()I", false);
+            push(method.code, size);
+            method.code.visitJumpInsn(mismatchingComparison, method.mismatch);
+        }
+
+        // The token stream: the parser is in local 1, objects keep the fields they have seen
+        // and the current field name in three locals from {@code locals} on.
+
+        /** Emits a method matching the value the parser in local 1 is on and returns its name. */
+        private String parserMethod(Matcher matcher) {
+            String name = "p" + methodCounter++;
+            Method method = begin(name, PARSER_VERDICT, IO_EXCEPTION);
+            emitValue(matcher, 2, method);
+            end(method);
+            return name;
+        }
+
+        /** Emits a jump to the mismatch of the method unless the value the parser is on matches. */
+        private void emitValue(Matcher matcher, int locals, Method method) {
+            MethodVisitor code = method.code;
+            matcher = unannotated(matcher);
+            method.budget--;
+            budget--;
+            if (matcher instanceof ObjectMatcher && ((ObjectMatcher) matcher).fieldIndex().size() <= MAX_STREAMED_FIELDS) {
+                emitObjectValue((ObjectMatcher) matcher, locals, method);
+            } else if (matcher instanceof ArrayMatcher) {
+                ArrayMatcher array = (ArrayMatcher) matcher;
+                emitToken(JsonToken.START_ARRAY, IF_ACMPNE, method.mismatch, method);
+                emitElements(array, 0, array.getElementMatchers().size(), locals, method);
+                // further elements are ignored
+                Label loop = new Label();
+                Label end = new Label();
+                code.visitLabel(loop);
+                emitNextToken(code);
+                emitToken(JsonToken.END_ARRAY, IF_ACMPEQ, end, method);
+                code.visitVarInsn(ALOAD, 1);
+                code.visitMethodInsn(INVOKEVIRTUAL, PARSER, "skipChildren", "()L" + PARSER + ";", false);
+                code.visitInsn(POP);
+                code.visitJumpInsn(GOTO, loop);
+                code.visitLabel(end);
+            } else if (matcher instanceof StringMatcher) {
+                code.visitVarInsn(ALOAD, 1);
+                code.visitLdcInsn(((StringMatcher) matcher).getExpectedValue());
+                emitHelper("isText", "Ljava/lang/String;", method);
+            } else if (matcher instanceof BooleanMatcher) {
+                emitToken(((BooleanMatcher) matcher).getExpectedValue() ? JsonToken.VALUE_TRUE : JsonToken.VALUE_FALSE, IF_ACMPNE, method.mismatch, method);
+            } else if (matcher instanceof NullMatcher) {
+                emitToken(JsonToken.VALUE_NULL, IF_ACMPNE, method.mismatch, method);
+            } else if (matcher instanceof NumberMatcher && isInlined(((NumberMatcher) matcher).getExpectedValue())) {
+                Number expected = ((NumberMatcher) matcher).getExpectedValue();
+                code.visitVarInsn(ALOAD, 1);
+                if (expected instanceof Integer) {
+                    push(code, (Integer) expected);
+                    emitHelper("isInt", "I", method);
+                } else if (expected instanceof Long) {
+                    code.visitLdcInsn(expected);
+                    emitHelper("isLong", "J", method);
+                } else {
+                    code.visitLdcInsn(expected);
+                    emitHelper("isDouble", "D", method);
+                }
+            } else {
+                emitDelegate(matcher, 1, PARSER_VERDICT, method);
+            }
+        }
+
+        /** Like {@link ObjectMatcher#matches(JsonParser)}, with a switch over the hashes of the field names. */
+        private void emitObjectValue(ObjectMatcher object, int locals, Method method) {
+            MethodVisitor code = method.code;
+            FieldIndex fieldIndex = object.fieldIndex();
+            int seen = locals;
+            int name = locals + 2;
+            emitToken(JsonToken.START_OBJECT, IF_ACMPNE, method.mismatch, method);
+            code.visitInsn(LCONST_0);
+            code.visitVarInsn(LSTORE, seen);
+
+            Label loop = new Label();
+            Label end = new Label();
+            Label extra = new Label();
+            code.visitLabel(loop);
+            emitNextToken(code);
+            emitToken(JsonToken.FIELD_NAME, IF_ACMPNE, end, method);
+            code.visitVarInsn(ALOAD, 1);
+            code.visitMethodInsn(INVOKEVIRTUAL, PARSER, "getCurrentName", "()Ljava/lang/String;", false);
+            code.visitVarInsn(ASTORE, name);
+            emitNextToken(code);
+
+            Map<Integer, List<Integer>> slotsByHash = new TreeMap<>();
+            for (int slot = 0; slot < fieldIndex.size(); slot++) {
+                slotsByHash.computeIfAbsent(fieldIndex.name(slot).hashCode(), hash -> new ArrayList<>()).add(slot);
+            }
+            int[] hashes = new int[slotsByHash.size()];
+            Label[] cases = new Label[slotsByHash.size()];
+            int i = 0;
+            for (Integer hash : slotsByHash.keySet()) {
+                hashes[i] = hash;
+                cases[i++] = new Label();
+            }
+            code.visitVarInsn(ALOAD, name);
+            code.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "hashCode", "()I", false);
+            code.visitLookupSwitchInsn(extra, hashes, cases);
+
+            i = 0;
+            for (List<Integer> slots : slotsByHash.values()) {
+                code.visitLabel(cases[i++]);
+                for (int slot : slots) {
+                    Label other = new Label();
+                    code.visitVarInsn(ALOAD, name);
+                    code.visitLdcInsn(fieldIndex.name(slot));
+                    code.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "equals", "(Ljava/lang/Object;)Z", false);
+                    code.visitJumpInsn(IFEQ, other);
+                    emitStreamedEntry(fieldIndex.matcher(slot), locals + 3, method);
+                    code.visitVarInsn(LLOAD, seen);
+                    code.visitLdcInsn(1L << slot);
+                    code.visitInsn(LOR);
+                    code.visitVarInsn(LSTORE, seen);
+                    code.visitJumpInsn(GOTO, loop);
+                    code.visitLabel(other);
+                }
+                code.visitJumpInsn(GOTO, extra);
+            }
+
+            code.visitLabel(extra);
+            if (!object.isIgnoreExtraFields()) {
+                code.visitJumpInsn(GOTO, method.mismatch);
+            } else {
+                code.visitVarInsn(ALOAD, 1);
+                code.visitMethodInsn(INVOKEVIRTUAL, PARSER, "skipChildren", "()L" + PARSER + ";", false);
+                code.visitInsn(POP);
+                code.visitJumpInsn(GOTO, loop);
+            }
+
+            code.visitLabel(end);
+            code.visitVarInsn(LLOAD, seen);
+            code.visitLdcInsn(fieldIndex.size() == 64 ? -1L : (1L << fieldIndex.size()) - 1);
+            code.visitInsn(LCMP);
+            code.visitJumpInsn(IFNE, method.mismatch);
+        }
+
+        /** Matches the elements from {@code from} to {@code to}, inlined if they fit the method. */
+        private void emitElements(ArrayMatcher array, int from, int to, int locals, Method method) {
+            List<Matcher> elements = array.getElementMatchers();
+            int cost = 0;
+            for (int index = from; index < to; index++) {
+                cost += cost(elements.get(index));
+            }
+            if (cost <= method.budget || to - from == 1) {
+                for (int index = from; index < to; index++) {
+                    emitNextToken(method.code);
+                    emitToken(JsonToken.END_ARRAY, IF_ACMPEQ, method.mismatch, method);
+                    emitStreamedEntry(elements.get(index), locals, method);
+                }
+                return;
+            }
+            int start = from;
+            cost = 0;
+            for (int index = from; index <= to; index++) {
+                int elementCost = index < to ? cost(elements.get(index)) : 0;
+                if (index == to || cost + elementCost > METHOD_BUDGET && index > start) {
+                    emitCall(elementsMethod(array, start, index), 1, PARSER_VERDICT, method);
+                    start = index;
+                    cost = 0;
+                }
+                cost += elementCost;
+            }
+        }
+
+        private String elementsMethod(ArrayMatcher array, int from, int to) {
+            String name = "p" + methodCounter++;
+            Method method = begin(name, PARSER_VERDICT, IO_EXCEPTION);
+            emitElements(array, from, to, 2, method);
+            end(method);
+            return name;
+        }
+
+        /** Matches a field value or element, inlined if it fits the method. */
+        private void emitStreamedEntry(Matcher matcher, int locals, Method method) {
+            if (cost(matcher) > budget) {
+                emitDelegate(matcher, 1, PARSER_VERDICT, method);
+            } else if (cost(matcher) > method.budget) {
+                emitCall(parserMethod(matcher), 1, PARSER_VERDICT, method);
+            } else {
+                emitValue(matcher, locals, method);
+            }
+        }
+
+        private void emitNextToken(MethodVisitor code) {
+            code.visitVarInsn(ALOAD, 1);
+            code.visitMethodInsn(INVOKEVIRTUAL, PARSER, "nextToken", "()L" + TOKEN + ";", false);
+            code.visitInsn(POP);
+        }
+
+        private void emitToken(JsonToken token, int comparison, Label target, Method method) {
+            method.code.visitVarInsn(ALOAD, 1);
+            method.code.visitMethodInsn(INVOKEVIRTUAL, PARSER, "currentToken", "()L" + TOKEN + ";", false);
+            method.code.visitFieldInsn(GETSTATIC, TOKEN, token.name(), "L" + TOKEN + ";");
+            method.code.visitJumpInsn(comparison, target);
+        }
+
+        private void emitHelper(String helper, String argument, Method method) {
+            method.code.visitMethodInsn(INVOKESTATIC, BASE, helper, "(L" + PARSER + ";" + argument + ")Z", false);
+            method.code.visitJumpInsn(IFEQ, method.mismatch);
+        }
+
+        // Both
+
+        private void emitCheck(int local, String owner, String check, Method method) {
+            method.code.visitVarInsn(ALOAD, local);
+            method.code.visitMethodInsn(INVOKEVIRTUAL, owner, check, "()Z", false);
+            method.code.visitJumpInsn(IFEQ, method.mismatch);
+        }
+
+        private void emitCall(String callee, int local, String descriptor, Method method) {
+            method.code.visitVarInsn(ALOAD, 0);
+            method.code.visitVarInsn(ALOAD, local);
+            method.code.visitMethodInsn(INVOKEVIRTUAL, className, callee, descriptor, false);
+            method.code.visitJumpInsn(IFEQ, method.mismatch);
+        }
+
+        private void emitDelegate(Matcher matcher, int local, String descriptor, Method method) {
+            MethodVisitor code = method.code;
+            code.visitVarInsn(ALOAD, 0);
+            code.visitFieldInsn(GETFIELD, BASE, "delegates", "[L" + MATCHER + ";");
+            push(code, delegate(matcher));
+            code.visitInsn(AALOAD);
+            code.visitVarInsn(ALOAD, local);
+            code.visitMethodInsn(INVOKEINTERFACE, MATCHER, "matches", descriptor, true);
+            code.visitJumpInsn(IFEQ, method.mismatch);
+        }
+
+        private static void push(MethodVisitor code, int value) {
+            if (value >= -1 && value <= 5) {
+                code.visitInsn(ICONST_0 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                code.visitIntInsn(BIPUSH, value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                code.visitIntInsn(SIPUSH, value);
+            } else {
+                code.visitLdcInsn(value);
+            }
+        }
+    }
+}
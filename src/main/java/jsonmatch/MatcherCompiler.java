@@ -0,0 +1,82 @@
+package jsonmatch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Flattens a matcher tree into a {@link CompiledMatcher}.
+ *
+ * The instructions are numbered breadth first, so the children of every
+ * instruction occupy a contiguous range. Compilation doesn't recurse, so
+ * arbitrarily deep matcher trees can be compiled.
+ */
+public class MatcherCompiler {
+    private MatcherCompiler() {
+    }
+
+    public static CompiledMatcher compile(MatcherBuilder builder) {
+        return compile(builder.build());
+    }
+
+    public static CompiledMatcher compile(Matcher matcher) {
+        if (matcher instanceof CompiledMatcher) {
+            return (CompiledMatcher) matcher;
+        }
+        List<Matcher> instructions = new ArrayList<>();
+        List<Integer> firstChildren = new ArrayList<>();
+        Deque<Matcher> pending = new ArrayDeque<>();
+
+        instructions.add(matcher);
+        pending.add(matcher);
+        while (!pending.isEmpty()) {
+            List<Matcher> children = childrenOf(pending.poll());
+            firstChildren.add(instructions.size());
+            instructions.addAll(children);
+            pending.addAll(children);
+        }
+
+        byte[] opcodes = new byte[instructions.size()];
+        int[] firstChild = new int[instructions.size()];
+        for (int pc = 0; pc < opcodes.length; pc++) {
+            opcodes[pc] = opcodeOf(instructions.get(pc));
+            firstChild[pc] = firstChildren.get(pc);
+        }
+        return new CompiledMatcher(matcher, opcodes, firstChild, instructions.toArray(new Matcher[0]));
+    }
+
+    private static List<Matcher> childrenOf(Matcher matcher) {
+        List<Matcher> children = new ArrayList<>();
+        if (matcher instanceof ObjectMatcher) {
+            FieldIndex fieldIndex = ((ObjectMatcher) matcher).fieldIndex();
+            for (int slot = 0; slot < fieldIndex.size(); slot++) {
+                children.add(fieldIndex.matcher(slot));
+            }
+        } else if (matcher instanceof ArrayMatcher) {
+            children.addAll(((ArrayMatcher) matcher).getElementMatchers());
+        } else if (matcher instanceof AnnotatedMatcher) {
+            children.add(((AnnotatedMatcher) matcher).getMatcher());
+        }
+        return children;
+    }
+
+    private static byte opcodeOf(Matcher matcher) {
+        if (matcher instanceof ObjectMatcher) {
+            return ((ObjectMatcher) matcher).isProbeExpectedFields() ? CompiledMatcher.PROBE_OBJECT : CompiledMatcher.OBJECT;
+        } else if (matcher instanceof ArrayMatcher) {
+            return CompiledMatcher.ARRAY;
+        } else if (matcher instanceof AnnotatedMatcher) {
+            return CompiledMatcher.ANNOTATED;
+        } else if (matcher instanceof StringMatcher) {
+            return CompiledMatcher.STRING;
+        } else if (matcher instanceof NumberMatcher) {
+            return CompiledMatcher.NUMBER;
+        } else if (matcher instanceof BooleanMatcher) {
+            return CompiledMatcher.BOOLEAN;
+        } else if (matcher instanceof NullMatcher) {
+            return CompiledMatcher.NULL;
+        }
+        return CompiledMatcher.OTHER;
+    }
+}
@@ -0,0 +1,306 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static jsonmatch.Matcher.mapper;
+import static jsonmatch.util.Pair.pair;
+
+/**
+ * Matches one document against many matchers in a single parse.
+ *
+ * The expected fields and elements of all matchers are merged into one
+ * trie. While the document is streamed, each value is only visited once,
+ * for all matchers that have an expectation at its path. A value is read
+ * into a tree at most once, when some matcher needs it as a whole.
+ */
+public class MatcherSet {
+    private final List<Matcher> matchers;
+    private final Node root;
+
+    public MatcherSet(List<Matcher> matchers) {
+        this.matchers = Collections.unmodifiableList(new ArrayList<>(matchers));
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < matchers.size(); i++) {
+            entries.add(new Entry(i, matchers.get(i)));
+        }
+        this.root = new Node(entries);
+    }
+
+    public static MatcherSet of(Matcher... matchers) {
+        return new MatcherSet(Arrays.asList(matchers));
+    }
+
+    public List<Matcher> getMatchers() {
+        return matchers;
+    }
+
+    /** One result per matcher, in the order the matchers were given. */
+    public List<Result> match(String matchee) {
+        try (JsonParser parser = mapper.createParser(matchee)) {
+            return match(JsonInput.begin(parser));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public List<Result> match(byte[] matchee) {
+        try (JsonParser parser = mapper.createParser(matchee)) {
+            return match(JsonInput.begin(parser));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** Like {@link Matcher#match(JsonParser)}, for all matchers at once. */
+    public List<Result> match(JsonParser parser) throws IOException {
+        return Arrays.asList(root.match(parser));
+    }
+
+    public List<Result> match(JsonNode parsed) {
+        return Arrays.asList(root.match(parsed));
+    }
+
+    /** One matcher with an expectation at a path of the trie. */
+    private static class Entry {
+        /** Index of the entry in the parent node this result belongs to. */
+        final int owner;
+        /** The matcher with its annotations unwrapped. */
+        final Matcher matcher;
+        /** Outermost first. */
+        final List<String> annotations = new ArrayList<>();
+
+        Entry(int owner, Matcher matcher) {
+            this.owner = owner;
+            while (matcher instanceof AnnotatedMatcher) {
+                annotations.add(((AnnotatedMatcher) matcher).getAnnotation());
+                matcher = ((AnnotatedMatcher) matcher).getMatcher();
+            }
+            this.matcher = matcher;
+        }
+
+        Result annotate(Result result) {
+            for (int i = annotations.size() - 1; i >= 0; i--) {
+                result = new AnnotatedResult(result, annotations.get(i));
+            }
+            return result;
+        }
+
+        ObjectMatcher objectMatcher() {
+            return (ObjectMatcher) matcher;
+        }
+
+        ArrayMatcher arrayMatcher() {
+            return (ArrayMatcher) matcher;
+        }
+    }
+
+    /** All matchers that have an expectation for the value at one path. */
+    private static class Node {
+        final Entry[] entries;
+        final boolean objects;
+        final boolean arrays;
+        /** Whether some entry shows the values of fields it doesn't expect. */
+        final boolean needsUnexpectedFieldValues;
+        final Map<String, Node> fields = new HashMap<>();
+        /** Fields that no entry needs to see as a whole, so they can be streamed. */
+        final Set<String> streamableFields = new HashSet<>();
+        final List<Node> elements = new ArrayList<>();
+
+        Node(List<Entry> entries) {
+            this.entries = entries.toArray(new Entry[0]);
+            boolean objects = true;
+            boolean arrays = true;
+            boolean needsUnexpectedFieldValues = false;
+            for (Entry entry : entries) {
+                objects &= entry.matcher instanceof ObjectMatcher;
+                arrays &= entry.matcher instanceof ArrayMatcher;
+                needsUnexpectedFieldValues |= entry.matcher instanceof ObjectMatcher && needsValueOfUnexpected(entry);
+            }
+            this.objects = objects && !entries.isEmpty();
+            this.arrays = arrays && !entries.isEmpty();
+            this.needsUnexpectedFieldValues = needsUnexpectedFieldValues;
+
+            if (this.objects) {
+                Map<String, List<Entry>> fieldEntries = new LinkedHashMap<>();
+                for (int owner = 0; owner < this.entries.length; owner++) {
+                    FieldIndex fieldIndex = this.entries[owner].objectMatcher().fieldIndex();
+                    for (int slot = 0; slot < fieldIndex.size(); slot++) {
+                        fieldEntries.computeIfAbsent(fieldIndex.name(slot), name -> new ArrayList<>())
+                            .add(new Entry(owner, fieldIndex.matcher(slot)));
+                    }
+                }
+                fieldEntries.forEach((name, children) -> fields.put(name, new Node(children)));
+                for (String name : fields.keySet()) {
+                    if (Arrays.stream(this.entries).allMatch(entry -> !needsValueOfUnexpected(entry) || entry.objectMatcher().fieldIndex().slotOf(name) >= 0)) {
+                        streamableFields.add(name);
+                    }
+                }
+            }
+            if (this.arrays) {
+                List<List<Entry>> elementEntries = new ArrayList<>();
+                for (int owner = 0; owner < this.entries.length; owner++) {
+                    int index = 0;
+                    for (Matcher elementMatcher : this.entries[owner].arrayMatcher().getElementMatchers()) {
+                        if (elementEntries.size() == index) {
+                            elementEntries.add(new ArrayList<>());
+                        }
+                        elementEntries.get(index++).add(new Entry(owner, elementMatcher));
+                    }
+                }
+                elementEntries.forEach(children -> elements.add(new Node(children)));
+            }
+        }
+
+        private static boolean needsValueOfUnexpected(Entry entry) {
+            ObjectMatcher objectMatcher = entry.objectMatcher();
+            return !(objectMatcher.isIgnoreExtraFields() && objectMatcher.isElideIgnoredFieldValues());
+        }
+
+        Result[] match(JsonNode value) {
+            Result[] results = new Result[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                results[i] = entries[i].annotate(entries[i].matcher.match(value));
+            }
+            return results;
+        }
+
+        Result[] match(JsonParser parser) throws IOException {
+            if (objects && parser.currentToken() == JsonToken.START_OBJECT) {
+                return matchObject(parser);
+            }
+            if (arrays && parser.currentToken() == JsonToken.START_ARRAY) {
+                return matchArray(parser);
+            }
+            return match((JsonNode) mapper.readTree(parser));
+        }
+
+        private Result[] matchObject(JsonParser parser) throws IOException {
+            ObjectState[] states = new ObjectState[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                states[i] = new ObjectState(entries[i].objectMatcher());
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                Node child = fields.get(fieldName);
+                Result[] childResults = null;
+                JsonNode value = null;
+                if (child == null ? needsUnexpectedFieldValues : !streamableFields.contains(fieldName)) {
+                    value = mapper.readTree(parser);
+                    childResults = child == null ? null : child.match(value);
+                } else if (child != null) {
+                    childResults = child.match(parser);
+                } else {
+                    parser.skipChildren();
+                }
+                for (ObjectState state : states) {
+                    state.width++;
+                }
+                if (childResults != null) {
+                    for (int i = 0; i < childResults.length; i++) {
+                        states[child.entries[i].owner].expected(fieldName, childResults[i]);
+                    }
+                }
+                for (ObjectState state : states) {
+                    if (state.matcher.fieldIndex().slotOf(fieldName) < 0) {
+                        state.unexpected(fieldName, value);
+                    }
+                }
+            }
+
+            Result[] results = new Result[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                results[i] = entries[i].annotate(states[i].finish());
+            }
+            return results;
+        }
+
+        private Result[] matchArray(JsonParser parser) throws IOException {
+            List<List<Result>> elementResults = new ArrayList<>(entries.length);
+            for (Entry entry : entries) {
+                elementResults.add(new ArrayList<>(entry.arrayMatcher().getElementMatchers().size()));
+            }
+
+            int index = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (index < elements.size()) {
+                    Node child = elements.get(index);
+                    Result[] childResults = child.match(parser);
+                    for (int i = 0; i < childResults.length; i++) {
+                        elementResults.get(child.entries[i].owner).add(childResults[i]);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+                index++;
+            }
+
+            Result[] results = new Result[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                List<Result> elementResult = elementResults.get(i);
+                int expected = entries[i].arrayMatcher().getElementMatchers().size();
+                while (elementResult.size() < expected) {
+                    elementResult.add(new MissingFieldResult(elementResult.size()));
+                }
+                results[i] = entries[i].annotate(new ArrayMatcherResult(elementResult));
+            }
+            return results;
+        }
+    }
+
+    /** What one object matcher has seen of the current object so far. */
+    private static class ObjectState {
+        final ObjectMatcher matcher;
+        final BitSet seen = new BitSet();
+        final List<Map.Entry<String, Result>> fieldResults = new ArrayList<>();
+        final Result[] probeResults;
+        int width;
+
+        ObjectState(ObjectMatcher matcher) {
+            this.matcher = matcher;
+            this.probeResults = matcher.isProbeExpectedFields() ? new Result[matcher.fieldIndex().size()] : null;
+        }
+
+        void expected(String fieldName, Result result) {
+            int slot = matcher.fieldIndex().slotOf(fieldName);
+            if (probeResults != null) {
+                probeResults[slot] = result;
+            } else {
+                seen.set(slot);
+                fieldResults.add(pair(fieldName, result));
+            }
+        }
+
+        void unexpected(String fieldName, JsonNode value) {
+            if (probeResults != null) {
+                return;
+            }
+            fieldResults.add(pair(fieldName, matcher.isIgnoreExtraFields()
+                ? new IgnoredFieldResult(value, matcher.isElideIgnoredFieldValues())
+                : new ExtraFieldResult(value)));
+        }
+
+        Result finish() {
+            if (probeResults != null) {
+                return matcher.probeResult(probeResults, width);
+            }
+            matcher.addMissingFields(fieldResults, seen);
+            return new ObjectResult(fieldResults);
+        }
+    }
+}
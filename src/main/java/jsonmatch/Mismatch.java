@@ -0,0 +1,15 @@
+package jsonmatch;
+
+import lombok.Value;
+
+/** One failing node of a {@link Result}. */
+@Value
+public class Mismatch {
+    /** JSON Pointer to the node, the empty string for the document itself. */
+    String path;
+    MismatchKind kind;
+    /** The expected value as JSON, or the expected type; null if there is none to show. */
+    String expected;
+    /** The actual value as JSON, or the actual type; null if there is none. */
+    String actual;
+}
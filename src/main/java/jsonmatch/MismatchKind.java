@@ -0,0 +1,12 @@
+package jsonmatch;
+
+public enum MismatchKind {
+    /** An expected field or element isn't there. */
+    MISSING,
+    /** A field is there that the matcher doesn't expect. */
+    EXTRA,
+    /** The value has a different JSON type than expected. */
+    WRONG_TYPE,
+    /** The value has the expected type but a different value. */
+    WRONG_VALUE,
+}
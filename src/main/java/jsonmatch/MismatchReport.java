@@ -0,0 +1,118 @@
+package jsonmatch;
+
+import java.io.IOException;
+
+/**
+ * Renders only the failing nodes of a {@link Result}, one per line, each
+ * with its JSON Pointer and the expected and actual values.
+ *
+ * Unlike {@link Result#visualize()}, the output is bounded: it stops after
+ * a number of entries or characters, and long values are cut short. That
+ * makes it suitable for logging the results of arbitrarily large documents.
+ */
+public class MismatchReport {
+    static final String TRUNCATED = "… more mismatches not shown\n";
+
+    private final int maxEntries;
+    private final int maxChars;
+    private final int maxValueLength;
+
+    private MismatchReport(int maxEntries, int maxChars, int maxValueLength) {
+        this.maxEntries = maxEntries;
+        this.maxChars = maxChars;
+        this.maxValueLength = maxValueLength;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** A report with the default budget. */
+    public static String of(Result result) {
+        return builder().build().render(result);
+    }
+
+    public String render(Result result) {
+        StringBuilder out = new StringBuilder();
+        int[] entries = {0};
+        boolean complete = Mismatches.walk(result, maxValueLength, mismatch -> {
+            if (entries[0] == maxEntries) {
+                return false;
+            }
+            String line = line(mismatch);
+            // room for the note is kept in any case, we can't know yet whether this is the last mismatch
+            if (out.length() + line.length() + TRUNCATED.length() > maxChars) {
+                return false;
+            }
+            out.append(line);
+            entries[0]++;
+            return true;
+        });
+        if (!complete && out.length() + TRUNCATED.length() <= maxChars) {
+            out.append(TRUNCATED);
+        }
+        return out.toString();
+    }
+
+    public void render(Result result, Appendable out) throws IOException {
+        out.append(render(result));
+    }
+
+    private static String line(Mismatch mismatch) {
+        StringBuilder line = new StringBuilder(mismatch.getPath().isEmpty() ? "(document)" : mismatch.getPath());
+        switch (mismatch.getKind()) {
+            case MISSING:
+                line.append(" is missing");
+                break;
+            case EXTRA:
+                line.append(" unexpected field ").append(mismatch.getActual());
+                break;
+            default:
+                if (mismatch.getExpected() != null) {
+                    line.append(" expected ").append(mismatch.getExpected()).append(" but was");
+                }
+                line.append(' ').append(mismatch.getActual());
+        }
+        return line.append('\n').toString();
+    }
+
+    public static class Builder {
+        private int maxEntries = 50;
+        private int maxChars = 8192;
+        private int maxValueLength = Visualisation.DEFAULT_MAX_VALUE_LENGTH;
+
+        private Builder() {
+        }
+
+        /** How many mismatches to list at most. */
+        public Builder maxEntries(int maxEntries) {
+            if (maxEntries < 0) {
+                throw new IllegalArgumentException("maxEntries must not be negative");
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /** How long the whole report may get, including the note that it was cut short. */
+        public Builder maxChars(int maxChars) {
+            if (maxChars < 0) {
+                throw new IllegalArgumentException("maxChars must not be negative");
+            }
+            this.maxChars = maxChars;
+            return this;
+        }
+
+        /** After how many characters expected and actual values are cut off. */
+        public Builder maxValueLength(int maxValueLength) {
+            if (maxValueLength < 0) {
+                throw new IllegalArgumentException("maxValueLength must not be negative");
+            }
+            this.maxValueLength = maxValueLength;
+            return this;
+        }
+
+        public MismatchReport build() {
+            return new MismatchReport(maxEntries, maxChars, maxValueLength);
+        }
+    }
+}
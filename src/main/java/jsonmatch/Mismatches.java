@@ -0,0 +1,112 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Finds the failing nodes of a {@link Result}, in document order.
+ *
+ * Matched values are skipped without being rendered, and failing values are
+ * only rendered up to a maximum length, so the cost of a report depends on
+ * the number of mismatches rather than on the size of the document.
+ */
+public final class Mismatches {
+    private Mismatches() {
+    }
+
+    /** All mismatches, with their values in full. */
+    public static List<Mismatch> of(Result result) {
+        List<Mismatch> mismatches = new ArrayList<>();
+        walk(result, Integer.MAX_VALUE, mismatches::add);
+        return mismatches;
+    }
+
+    /**
+     * Hands the mismatches to {@code visitor} until it returns false.
+     *
+     * @return whether all mismatches were visited
+     */
+    public static boolean walk(Result result, int maxValueLength, Predicate<Mismatch> visitor) {
+        return walk(result, new StringBuilder(), maxValueLength, visitor);
+    }
+
+    private static boolean walk(Result result, StringBuilder path, int maxValueLength, Predicate<Mismatch> visitor) {
+        if (result.isMatch()) {
+            return true;
+        }
+        while (result instanceof AnnotatedResult) {
+            result = ((AnnotatedResult) result).getResult();
+        }
+        if (result instanceof ObjectResult) {
+            int parent = path.length();
+            ObjectResult object = (ObjectResult) result;
+            BitSet failing = object.getFailing();
+            for (int i = failing.nextSetBit(0); i >= 0; i = failing.nextSetBit(i + 1)) {
+                Map.Entry<String, Result> field = object.getFieldResults().get(i);
+                JsonPointer.appendEscaped(path.append('/'), field.getKey());
+                boolean more = walk(field.getValue(), path, maxValueLength, visitor);
+                path.setLength(parent);
+                if (!more) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (result instanceof ArrayMatcherResult) {
+            int parent = path.length();
+            ArrayMatcherResult array = (ArrayMatcherResult) result;
+            BitSet failing = array.getFailing();
+            for (int i = failing.nextSetBit(0); i >= 0; i = failing.nextSetBit(i + 1)) {
+                boolean more = walk(array.getElementResults().get(i), path.append('/').append(i), maxValueLength, visitor);
+                path.setLength(parent);
+                if (!more) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return visitor.test(mismatch(result, path.toString(), maxValueLength));
+    }
+
+    private static Mismatch mismatch(Result result, String path, int maxValueLength) {
+        if (result instanceof MissingFieldResult) {
+            return new Mismatch(path, MismatchKind.MISSING, null, null);
+        }
+        if (result instanceof ExtraFieldResult) {
+            return new Mismatch(path, MismatchKind.EXTRA, null, json(((ExtraFieldResult) result).getJsonNode(), ((ExtraFieldResult) result).getPreview(), maxValueLength));
+        }
+        if (result instanceof WrongTypeResult) {
+            WrongTypeResult wrongType = (WrongTypeResult) result;
+            return new Mismatch(path, MismatchKind.WRONG_TYPE, "<" + wrongType.getExpectedType() + ">", json(wrongType.getActualValue(), wrongType.getPreview(), maxValueLength));
+        }
+        if (result instanceof StringResult) {
+            StringResult string = (StringResult) result;
+            return new Mismatch(path, MismatchKind.WRONG_VALUE, json(TextNode.valueOf(string.getExpectedValue()), maxValueLength), json(string.getActualValue(), maxValueLength));
+        }
+        if (result instanceof NumberResult) {
+            NumberResult number = (NumberResult) result;
+            return new Mismatch(path, MismatchKind.WRONG_VALUE, Visualisation.truncate(String.valueOf(number.getExpectedValue()), maxValueLength), json(number.getActualValue(), maxValueLength));
+        }
+        if (result instanceof BooleanResult) {
+            BooleanResult bool = (BooleanResult) result;
+            return new Mismatch(path, MismatchKind.WRONG_VALUE, String.valueOf(bool.getExpectedValue()), json(bool.getActualValue(), maxValueLength));
+        }
+        // a result of a custom matcher: all we know about it is how it renders itself
+        String rendered = JsonReport.stripAnsi(result.visualize()).trim();
+        return new Mismatch(path, MismatchKind.WRONG_VALUE, null, Visualisation.truncate(rendered, maxValueLength));
+    }
+
+    private static String json(JsonNode node, int maxValueLength) {
+        return node == null ? null : Visualisation.compact(node, maxValueLength);
+    }
+
+    private static String json(JsonNode node, String preview, int maxValueLength) {
+        return preview != null ? Visualisation.truncate(preview, maxValueLength) : json(node, maxValueLength);
+    }
+}
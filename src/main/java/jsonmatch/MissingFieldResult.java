@@ -1,5 +1,8 @@
 package jsonmatch;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+
 public class MissingFieldResult implements Result{
     private final Object fieldName;
 
@@ -7,13 +10,23 @@ public class MissingFieldResult implements Result{
         this.fieldName = fieldName;
     }
 
+    Object getFieldName() {
+        return fieldName;
+    }
+
     @Override
     public boolean isMatch() {
         return false;
     }
 
     @Override
-    public String visualize() {
-        return "is missing";
+    public void visualize(Appendable out, VisualisationContext context) throws IOException {
+        out.append("is missing");
+    }
+
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        JsonReport.writeStart(generator, "missing", false);
+        generator.writeEndObject();
     }
 }
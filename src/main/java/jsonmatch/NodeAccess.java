@@ -0,0 +1,105 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Iterator;
+
+/**
+ * Reads values of some representation of JSON other than {@link JsonNode},
+ * so matchers can work on it directly, see {@link Matcher#match(Object, NodeAccess)}.
+ *
+ * @param <N> the type of the values
+ */
+public interface NodeAccess<N> {
+    NodeType typeOf(N value);
+
+    boolean hasField(N object, String name);
+
+    /** The value of a field, only meaningful if {@link #hasField} is true. */
+    N field(N object, String name);
+
+    /** The names of the fields of an object, in the order they would be written. */
+    Iterator<String> fieldNames(N object);
+
+    /**
+     * Walks the fields of an object in the order they would be written,
+     * each name with its value. Matchers looking at all fields use this,
+     * so they needn't look each one up by its name, and only read the
+     * values they look at. The default looks them up.
+     */
+    default Fields<N> fields(N object) {
+        Iterator<String> names = fieldNames(object);
+        return new Fields<N>() {
+            private String name;
+
+            @Override
+            public boolean next() {
+                name = names.hasNext() ? names.next() : null;
+                return name != null;
+            }
+
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public N value() {
+                return field(object, name);
+            }
+        };
+    }
+
+    /** The number of fields of an object or elements of an array. */
+    int size(N container);
+
+    Iterator<N> elements(N array);
+
+    /**
+     * The element at {@code index} of an array, null if there is none. Not
+     * necessarily cheaper than walking {@link #elements}, which is what
+     * matchers looking at all elements do.
+     */
+    default N element(N array, int index) {
+        Iterator<N> elements = elements(array);
+        for (int i = 0; i < index && elements.hasNext(); i++) {
+            elements.next();
+        }
+        return elements.hasNext() ? elements.next() : null;
+    }
+
+    String textValue(N string);
+
+    /** Whether a string equals {@code expected}, for representations that can tell without creating a String. */
+    default boolean textEquals(N string, String expected) {
+        return expected.equals(textValue(string));
+    }
+
+    /**
+     * The number as parsing its JSON would give it: {@code Integer},
+     * {@code Long} or {@code BigInteger} for integers, {@code Double}
+     * otherwise. The type matters, see {@link NumberMatcher}.
+     */
+    Number numberValue(N number);
+
+    /** Whether a number equals {@code expected}, as {@link NumberMatcher} compares them. */
+    default boolean numberEquals(N number, Number expected) {
+        return NumberMatcher.sameNumber(expected, numberValue(number));
+    }
+
+    boolean booleanValue(N bool);
+
+    /** The value as a tree, for showing it in a result. Only called for values that are shown. */
+    JsonNode toTree(N value);
+
+    /** A position among the fields of an object, before the first one to begin with. */
+    interface Fields<N> {
+        /** Moves on to the next field, false if there is none. */
+        boolean next();
+
+        String name();
+
+        /** The value of the current field, only read when asked for. */
+        N value();
+    }
+}
@@ -1,5 +1,7 @@
 package jsonmatch;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.BooleanNode;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
@@ -10,6 +12,30 @@ public class NullMatcher implements Matcher {
         if (parsed.getNodeType() != JsonNodeType.NULL) {
             return new WrongTypeResult(NodeType.NULL, NodeType.fromJackson(parsed.getNodeType()), parsed);
         }
-        return new NullResult();
+        return NullResult.INSTANCE;
+    }
+
+    @Override
+    public boolean matches(JsonNode parsed) {
+        return parsed.isNull();
+    }
+
+    @Override
+    public <N> Result match(N value, NodeAccess<N> access) {
+        NodeType type = access.typeOf(value);
+        if (type != NodeType.NULL) {
+            return new WrongTypeResult(NodeType.NULL, type, access.toTree(value));
+        }
+        return NullResult.INSTANCE;
+    }
+
+    @Override
+    public <N> boolean matches(N value, NodeAccess<N> access) {
+        return access.typeOf(value) == NodeType.NULL;
+    }
+
+    @Override
+    public boolean matches(JsonParser parser) {
+        return parser.currentToken() == JsonToken.VALUE_NULL;
     }
 }
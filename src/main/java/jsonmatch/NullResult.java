@@ -1,15 +1,29 @@
 package jsonmatch;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import jsonmatch.util.Color;
 
+import java.io.IOException;
+
 public class NullResult implements Result {
+    /** All matched nulls look the same, so they can share one result. */
+    public static final NullResult INSTANCE = new NullResult();
+
     @Override
     public boolean isMatch() {
         return true;
     }
 
     @Override
-    public String visualize() {
-        return Color.GREEN.render("null");
+    public void visualize(Appendable out, VisualisationContext context) throws IOException {
+        Color.GREEN.render(out, "null");
+    }
+
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        JsonReport.writeStart(generator, "value", true);
+        generator.writeNullField("expected");
+        generator.writeNullField("actual");
+        generator.writeEndObject();
     }
 }
@@ -1,19 +1,149 @@
 package jsonmatch;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
+import com.fasterxml.jackson.databind.node.BigIntegerNode;
+import com.fasterxml.jackson.databind.node.DecimalNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.FloatNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.LongNode;
 import com.fasterxml.jackson.databind.node.NumericNode;
+import com.fasterxml.jackson.databind.node.ShortNode;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import lombok.Value;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
 @Value
 public class NumberMatcher implements Matcher {
     Number expectedValue;
 
+    /**
+     * Shared by all matches: a matching node always has the same type and
+     * value, so it renders the same. Null for number types Jackson has no
+     * node for, which never match anyway.
+     */
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    NumberResult matched;
+
+    public NumberMatcher(Number expectedValue) {
+        this.expectedValue = expectedValue;
+        NumericNode node = nodeOf(expectedValue);
+        this.matched = node == null ? null : new NumberResult(expectedValue, node);
+    }
+
+    static NumericNode nodeOf(Number value) {
+        if (value instanceof Integer) {
+            return IntNode.valueOf((Integer) value);
+        }
+        if (value instanceof Long) {
+            return LongNode.valueOf((Long) value);
+        }
+        if (value instanceof Double) {
+            return DoubleNode.valueOf((Double) value);
+        }
+        if (value instanceof Float) {
+            return FloatNode.valueOf((Float) value);
+        }
+        if (value instanceof Short) {
+            return ShortNode.valueOf((Short) value);
+        }
+        if (value instanceof BigInteger) {
+            return BigIntegerNode.valueOf((BigInteger) value);
+        }
+        if (value instanceof BigDecimal) {
+            return DecimalNode.valueOf((BigDecimal) value);
+        }
+        return null;
+    }
+
     @Override
     public Result match(JsonNode parsed) {
         if (parsed.getNodeType() != JsonNodeType.NUMBER) {
             return new WrongTypeResult(NodeType.NUMBER, NodeType.fromJackson(parsed.getNodeType()), parsed);
         }
+        if (matched != null && matches(parsed)) {
+            return matched;
+        }
         return new NumberResult(expectedValue, (NumericNode) parsed);
     }
+
+    // Number.equals() is type sensitive, so an Integer only ever equals an int node.
+    // The common cases are compared unboxed.
+
+    @Override
+    public boolean matches(JsonNode parsed) {
+        if (!parsed.isNumber()) {
+            return false;
+        }
+        if (expectedValue instanceof Integer) {
+            return parsed.isInt() && parsed.intValue() == (Integer) expectedValue;
+        }
+        if (expectedValue instanceof Long) {
+            return parsed.isLong() && parsed.longValue() == (Long) expectedValue;
+        }
+        if (expectedValue instanceof Double) {
+            return parsed.isDouble() && Double.compare(parsed.doubleValue(), (Double) expectedValue) == 0;
+        }
+        return expectedValue.equals(parsed.numberValue());
+    }
+
+    @Override
+    public boolean matches(JsonParser parser) throws IOException {
+        if (!parser.currentToken().isNumeric()) {
+            return false;
+        }
+        JsonParser.NumberType numberType = parser.getNumberType();
+        if (expectedValue instanceof Integer) {
+            return numberType == JsonParser.NumberType.INT && parser.getIntValue() == (Integer) expectedValue;
+        }
+        if (expectedValue instanceof Long) {
+            return numberType == JsonParser.NumberType.LONG && parser.getLongValue() == (Long) expectedValue;
+        }
+        if (expectedValue instanceof Double) {
+            return numberType == JsonParser.NumberType.DOUBLE && Double.compare(parser.getDoubleValue(), (Double) expectedValue) == 0;
+        }
+        return expectedValue.equals(parser.getNumberValue());
+    }
+
+    @Override
+    public <N> Result match(N value, NodeAccess<N> access) {
+        NodeType type = access.typeOf(value);
+        if (type != NodeType.NUMBER) {
+            return new WrongTypeResult(NodeType.NUMBER, type, access.toTree(value));
+        }
+        Number actual = access.numberValue(value);
+        if (matched != null && sameNumber(expectedValue, actual)) {
+            return matched;
+        }
+        NumericNode node = nodeOf(actual);
+        return new NumberResult(expectedValue, node != null ? node : (NumericNode) access.toTree(value));
+    }
+
+    @Override
+    public <N> boolean matches(N value, NodeAccess<N> access) {
+        return access.typeOf(value) == NodeType.NUMBER && access.numberEquals(value, expectedValue);
+    }
+
+    static boolean sameNumber(Number expectedValue, Number actual) {
+        if (expectedValue instanceof Integer) {
+            return actual instanceof Integer && actual.intValue() == (Integer) expectedValue;
+        }
+        if (expectedValue instanceof Long) {
+            return actual instanceof Long && actual.longValue() == (Long) expectedValue;
+        }
+        if (expectedValue instanceof Double) {
+            return actual instanceof Double && Double.compare(actual.doubleValue(), (Double) expectedValue) == 0;
+        }
+        return expectedValue.equals(actual);
+    }
 }
@@ -1,54 +1,332 @@
 package jsonmatch;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.google.common.collect.Streams;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import lombok.Value;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.Map;
 
 import static jsonmatch.NodeType.OBJECT;
 import static jsonmatch.util.Pair.pair;
 
 @Value
 public class ObjectMatcher implements Matcher {
-    LinkedHashMap<String, Matcher> fieldMatchers;
+    /**
+     * Verdicts on values read through a {@link NodeAccess} look up this many
+     * expected fields at most, more are found by walking the fields once.
+     */
+    static final int LOOKED_UP_FIELDS = 8;
+
+    @Getter(AccessLevel.NONE)
+    Map<String, Matcher> fieldMatchers;
     boolean ignoreExtraFields;
     boolean elideIgnoredFieldValues;
+    boolean probeExpectedFields;
+
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    FieldIndex fieldIndex;
+
+    public ObjectMatcher(LinkedHashMap<String, Matcher> fieldMatchers, boolean ignoreExtraFields, boolean elideIgnoredFieldValues) {
+        this(fieldMatchers, ignoreExtraFields, elideIgnoredFieldValues, false);
+    }
+
+    public ObjectMatcher(LinkedHashMap<String, Matcher> fieldMatchers, boolean ignoreExtraFields, boolean elideIgnoredFieldValues, boolean probeExpectedFields) {
+        if (probeExpectedFields && !(ignoreExtraFields && elideIgnoredFieldValues)) {
+            throw new IllegalArgumentException("Probing expected fields requires ignoring extra fields and eliding their values");
+        }
+        this.fieldMatchers = Collections.unmodifiableMap(new LinkedHashMap<>(fieldMatchers));
+        this.ignoreExtraFields = ignoreExtraFields;
+        this.elideIgnoredFieldValues = elideIgnoredFieldValues;
+        this.probeExpectedFields = probeExpectedFields;
+        this.fieldIndex = new FieldIndex(this.fieldMatchers);
+    }
 
     public static Builder builder() {
         return new Builder();
     }
 
+    /** The expected fields in the order they were added, an unmodifiable copy of the ones passed in. */
+    public Map<String, Matcher> getExpectedFields() {
+        return fieldMatchers;
+    }
+
+    /**
+     * A modifiable copy of the expected fields, changing it doesn't change the matcher.
+     *
+     * @deprecated use {@link #getExpectedFields()}, which doesn't copy
+     */
+    @Deprecated
+    public LinkedHashMap<String, Matcher> getFieldMatchers() {
+        return new LinkedHashMap<>(fieldMatchers);
+    }
+
+    FieldIndex fieldIndex() {
+        return fieldIndex;
+    }
+
     @Override
     public Result match(JsonNode parsed) {
         if (!(parsed instanceof ObjectNode)) {
             return new WrongTypeResult(OBJECT, NodeType.fromJackson(parsed.getNodeType()), parsed);
         }
-        ObjectNode obj = (ObjectNode) parsed;
-        List<String> missingFieldNames = new ArrayList<>(fieldMatchers.keySet());
-        obj.fieldNames().forEachRemaining(missingFieldNames::remove); // I feel so dirty;
+        if (probeExpectedFields) {
+            return probe(parsed);
+        }
+        BitSet seen = new BitSet(fieldIndex.size());
+        List<Map.Entry<String, Result>> fieldResults = new ArrayList<>(parsed.size() + fieldIndex.size());
 
-        return new ObjectResult(Streams.concat(
-                StreamSupport.stream(((Iterable<String>) obj::fieldNames).spliterator(), false).map(fieldName -> pair(fieldName,
-                        fieldMatchers.containsKey(fieldName) ? fieldMatchers.get(fieldName).match(parsed.get(fieldName)) :
-                        ignoreExtraFields ? new IgnoredFieldResult(parsed.get(fieldName), elideIgnoredFieldValues) :
-                        new ExtraFieldResult(parsed.get(fieldName))
-                )),
-                missingFieldNames.stream().map(fieldName -> pair(fieldName,
-                        (Result) new MissingFieldResult(fieldName)
-                ))
-        ).collect(Collectors.toList()));
+        for (Iterator<Map.Entry<String, JsonNode>> fields = parsed.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            int slot = fieldIndex.slotOf(field.getKey());
+            final Result result;
+            if (slot >= 0) {
+                seen.set(slot);
+                result = fieldIndex.matcher(slot).match(field.getValue());
+            } else if (ignoreExtraFields) {
+                result = new IgnoredFieldResult(field.getValue(), elideIgnoredFieldValues);
+            } else {
+                result = new ExtraFieldResult(field.getValue());
+            }
+            fieldResults.add(pair(field.getKey(), result));
+        }
+
+        addMissingFields(fieldResults, seen);
+        return new ObjectResult(fieldResults);
+    }
+
+    /**
+     * Looks up only the expected fields, so the cost doesn't depend on the
+     * width of the document. All other fields are only counted, see
+     * {@link ObjectResult#getElided()}.
+     */
+    private Result probe(JsonNode parsed) {
+        Result[] results = new Result[fieldIndex.size()];
+        for (int slot = 0; slot < fieldIndex.size(); slot++) {
+            JsonNode value = parsed.get(fieldIndex.name(slot));
+            if (value != null) {
+                results[slot] = fieldIndex.matcher(slot).match(value);
+            }
+        }
+        return probeResult(results, parsed.size());
+    }
+
+    Result probeResult(Result[] results, int documentWidth) {
+        BitSet seen = new BitSet(fieldIndex.size());
+        List<Map.Entry<String, Result>> fieldResults = new ArrayList<>(fieldIndex.size());
+        for (int slot = 0; slot < fieldIndex.size(); slot++) {
+            if (results[slot] != null) {
+                seen.set(slot);
+                fieldResults.add(pair(fieldIndex.name(slot), results[slot]));
+            }
+        }
+        int elided = documentWidth - seen.cardinality();
+        addMissingFields(fieldResults, seen);
+        return new ObjectResult(fieldResults, elided);
+    }
+
+    /** See {@link DeferredResult}. */
+    @Override
+    public Result match(String matchee) {
+        return DeferredResult.match(this, matchee);
+    }
+
+    @Override
+    public Result match(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            return match((JsonNode) mapper.readTree(parser));
+        }
+        if (probeExpectedFields) {
+            return probe(parser);
+        }
+        BitSet seen = new BitSet(fieldIndex.size());
+        List<Map.Entry<String, Result>> fieldResults = new ArrayList<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            int slot = fieldIndex.slotOf(fieldName);
+            final Result result;
+            if (slot >= 0) {
+                seen.set(slot);
+                result = fieldIndex.matcher(slot).match(parser);
+            } else if (ignoreExtraFields && elideIgnoredFieldValues) {
+                parser.skipChildren();
+                result = new IgnoredFieldResult(null, true);
+            } else if (ignoreExtraFields) {
+                result = new IgnoredFieldResult(mapper.readTree(parser), false);
+            } else {
+                result = new ExtraFieldResult(mapper.readTree(parser));
+            }
+            fieldResults.add(pair(fieldName, result));
+        }
+
+        addMissingFields(fieldResults, seen);
+        return new ObjectResult(fieldResults);
+    }
+
+    private Result probe(JsonParser parser) throws IOException {
+        Result[] results = new Result[fieldIndex.size()];
+        int documentWidth = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            int slot = fieldIndex.slotOf(parser.getCurrentName());
+            parser.nextToken();
+            if (slot >= 0) {
+                results[slot] = fieldIndex.matcher(slot).match(parser);
+            } else {
+                parser.skipChildren();
+            }
+            documentWidth++;
+        }
+        return probeResult(results, documentWidth);
+    }
+
+    void addMissingFields(List<Map.Entry<String, Result>> fieldResults, BitSet seen) {
+        for (int slot = seen.nextClearBit(0); slot < fieldIndex.size(); slot = seen.nextClearBit(slot + 1)) {
+            fieldResults.add(pair(fieldIndex.name(slot), new MissingFieldResult(fieldIndex.name(slot))));
+        }
+    }
+
+    @Override
+    public boolean matches(JsonNode parsed) {
+        if (!(parsed instanceof ObjectNode)) {
+            return false;
+        }
+        // once all expected fields are found, there can only be extra fields if there are more fields
+        if (!ignoreExtraFields && parsed.size() != fieldIndex.size()) {
+            return false;
+        }
+        for (int slot = 0; slot < fieldIndex.size(); slot++) {
+            JsonNode value = parsed.get(fieldIndex.name(slot));
+            if (value == null || !fieldIndex.matcher(slot).matches(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean matches(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        BitSet seen = new BitSet(fieldIndex.size());
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            int slot = fieldIndex.slotOf(parser.getCurrentName());
+            parser.nextToken();
+            if (slot >= 0) {
+                if (!fieldIndex.matcher(slot).matches(parser)) {
+                    return false;
+                }
+                seen.set(slot);
+            } else if (ignoreExtraFields) {
+                parser.skipChildren();
+            } else {
+                return false;
+            }
+        }
+        return seen.cardinality() == fieldIndex.size();
+    }
+
+    @Override
+    public <N> Result match(N value, NodeAccess<N> access) {
+        NodeType type = access.typeOf(value);
+        if (type != OBJECT) {
+            return new WrongTypeResult(OBJECT, type, access.toTree(value));
+        }
+        if (probeExpectedFields) {
+            Result[] results = new Result[fieldIndex.size()];
+            for (int slot = 0; slot < fieldIndex.size(); slot++) {
+                String name = fieldIndex.name(slot);
+                if (access.hasField(value, name)) {
+                    results[slot] = fieldIndex.matcher(slot).match(access.field(value, name), access);
+                }
+            }
+            return probeResult(results, access.size(value));
+        }
+        BitSet seen = new BitSet(fieldIndex.size());
+        List<Map.Entry<String, Result>> fieldResults = new ArrayList<>();
+
+        // elided values are never read
+        for (NodeAccess.Fields<N> fields = access.fields(value); fields.next(); ) {
+            String name = fields.name();
+            int slot = fieldIndex.slotOf(name);
+            final Result result;
+            if (slot >= 0) {
+                seen.set(slot);
+                result = fieldIndex.matcher(slot).match(fields.value(), access);
+            } else if (ignoreExtraFields) {
+                result = new IgnoredFieldResult(elideIgnoredFieldValues ? null : access.toTree(fields.value()), elideIgnoredFieldValues);
+            } else {
+                result = new ExtraFieldResult(access.toTree(fields.value()));
+            }
+            fieldResults.add(pair(name, result));
+        }
+
+        addMissingFields(fieldResults, seen);
+        return new ObjectResult(fieldResults);
+    }
+
+    @Override
+    public <N> boolean matches(N value, NodeAccess<N> access) {
+        if (access.typeOf(value) != OBJECT) {
+            return false;
+        }
+        if (!ignoreExtraFields && access.size(value) != fieldIndex.size()) {
+            return false;
+        }
+        // looking a field up may walk the fields before it, as in a Tape
+        if (fieldIndex.size() > LOOKED_UP_FIELDS) {
+            return walkedFieldsMatch(value, access);
+        }
+        for (int slot = 0; slot < fieldIndex.size(); slot++) {
+            String name = fieldIndex.name(slot);
+            if (!access.hasField(value, name) || !fieldIndex.matcher(slot).matches(access.field(value, name), access)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Of duplicate keys the last one counts, as in a parsed tree, so an earlier one only fails if it has the same value. */
+    private <N> boolean walkedFieldsMatch(N value, NodeAccess<N> access) {
+        BitSet seen = new BitSet(fieldIndex.size());
+        for (NodeAccess.Fields<N> fields = access.fields(value); fields.next(); ) {
+            String name = fields.name();
+            int slot = fieldIndex.slotOf(name);
+            if (slot >= 0) {
+                N fieldValue = fields.value();
+                if (!fieldIndex.matcher(slot).matches(fieldValue, access) && fieldValue.equals(access.field(value, name))) {
+                    return false;
+                }
+                seen.set(slot);
+            } else if (!ignoreExtraFields) {
+                return false;
+            }
+        }
+        return seen.cardinality() == fieldIndex.size();
     }
 
     public static class Builder implements MatcherBuilder {
         private final LinkedHashMap<String, Matcher> fieldMatchers = new LinkedHashMap<>();
         private boolean ignoreExtraFields = true;
         private boolean elideIgnoredFieldValues = false;
+        private boolean probeExpectedFields = false;
 
         public Builder with(String fieldName, MatcherBuilder valueMatcherBuilder) {
             return with(fieldName, valueMatcherBuilder.build());
@@ -69,8 +347,18 @@ public class ObjectMatcher implements Matcher {
             return this;
         }
 
+        /**
+         * Only look up the expected fields instead of walking the whole object.
+         * Requires extra fields to be ignored and their values elided. The
+         * visualisation then summarises the other fields by a count.
+         */
+        public Builder probeExpectedFields(boolean b) {
+            this.probeExpectedFields = b;
+            return this;
+        }
+
         public ObjectMatcher build() {
-            return new ObjectMatcher(fieldMatchers, ignoreExtraFields, elideIgnoredFieldValues);
+            return new ObjectMatcher(fieldMatchers, ignoreExtraFields, elideIgnoredFieldValues, probeExpectedFields);
         }
     }
 }
@@ -1,52 +1,133 @@
 package jsonmatch;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import jsonmatch.util.Color;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
-import static jsonmatch.TextUtils.indent;
+import static jsonmatch.util.Pair.pair;
 
 
 public class ObjectResult implements Result {
 
     private final List<Map.Entry<String, Result>> fieldResults;
+    /** How many fields of the object a probing {@link ObjectMatcher} didn't look at. */
+    private final int elided;
+    private final int mismatchCount;
+    /** Indices of the failing field results, null if there are none. */
+    private final BitSet failing;
 
     public ObjectResult(List<Map.Entry<String, Result>> fieldResults) {
+        this(fieldResults, 0);
+    }
+
+    public ObjectResult(List<Map.Entry<String, Result>> fieldResults, int elided) {
         this.fieldResults = fieldResults;
+        this.elided = elided;
+        int mismatchCount = 0;
+        BitSet failing = null;
+        for (int i = 0; i < fieldResults.size(); i++) {
+            Result result = fieldResults.get(i).getValue();
+            if (!result.isMatch()) {
+                if (failing == null) {
+                    failing = new BitSet(fieldResults.size());
+                }
+                failing.set(i);
+                mismatchCount += result.getMismatchCount();
+            }
+        }
+        this.mismatchCount = mismatchCount;
+        this.failing = failing;
+    }
+
+    List<Map.Entry<String, Result>> getFieldResults() {
+        return fieldResults;
+    }
+
+    /** How many fields of the object a probing {@link ObjectMatcher} didn't look at, so they have no result. */
+    public int getElided() {
+        return elided;
+    }
+
+    /** Indices of the failing field results, null if there are none. */
+    BitSet getFailing() {
+        return failing;
     }
 
     @Override
     public boolean isMatch() {
-        // the logic below will move to the matcher once we allow for mor fancy
-        // matching modes.
-        return fieldResults.stream().map(Map.Entry::getValue).allMatch(Result::isMatch);
-    }
-
-    public String visualize() {
-        return
-            "{\n" +
-                indent(
-                    fieldResults.stream()
-                        .map(entry -> {
-                            final String fieldPrefix = "\"" + entry.getKey() + "\": ";
-                            final VisualisationContext context = new VisualisationContext(fieldPrefix.length());
-
-                            if (entry.getValue() instanceof MissingFieldResult) {
-                                return Color.RED.render(fieldPrefix) + entry.getValue().visualize(context);
-                            } else if (entry.getValue() instanceof ExtraFieldResult) {
-                                return Color.RED.render(fieldPrefix) + entry.getValue().visualize(context);
-                            } else if (entry.getValue() instanceof IgnoredFieldResult) {
-                                return Color.GRAY.render(fieldPrefix) + entry.getValue().visualize(context);
-                            } else {
-                                return
-                                    "\"" + entry.getKey() + "\": " + entry.getValue().visualize(context);
-                            }
-                        })
-                        .collect(Collectors.joining(",\n"))
-                ) +
-                "\n}\n";
+        return failing == null;
+    }
+
+    @Override
+    public int getMismatchCount() {
+        return mismatchCount;
     }
 
+    @Override
+    public void visualize(Appendable out, VisualisationContext ignored) throws IOException {
+        out.append("{\n");
+        IndentingAppendable fields = new IndentingAppendable(out);
+        boolean first = true;
+        for (Map.Entry<String, Result> entry : fieldResults) {
+            if (!first) {
+                fields.append(",\n");
+            }
+            first = false;
+
+            final String fieldPrefix = "\"" + entry.getKey() + "\": ";
+            final VisualisationContext context = new VisualisationContext(fieldPrefix.length());
+
+            if (entry.getValue() instanceof MissingFieldResult) {
+                Color.RED.render(fields, fieldPrefix);
+            } else if (entry.getValue() instanceof ExtraFieldResult) {
+                Color.RED.render(fields, fieldPrefix);
+            } else if (entry.getValue() instanceof IgnoredFieldResult) {
+                Color.GRAY.render(fields, fieldPrefix);
+            } else {
+                fields.append(fieldPrefix);
+            }
+            entry.getValue().visualize(fields, context);
+        }
+        if (elided > 0) {
+            if (!first) {
+                fields.append(",\n");
+            }
+            Color.GRAY.render(fields, "… " + elided + (elided == 1 ? " ignored field" : " ignored fields"));
+        }
+        fields.finish();
+        out.append("\n}\n");
+    }
+
+    @Override
+    public Result detach(int maxValueLength) {
+        List<Map.Entry<String, Result>> detached = new ArrayList<>(fieldResults.size());
+        for (Map.Entry<String, Result> entry : fieldResults) {
+            detached.add(pair(entry.getKey(), entry.getValue().detach(maxValueLength)));
+        }
+        return new ObjectResult(detached, elided);
+    }
+
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        JsonReport.writeStart(generator, "object", isMatch());
+        // an array rather than an object keyed by name, so the order is kept for any reader
+        generator.writeArrayFieldStart("fields");
+        for (Map.Entry<String, Result> entry : fieldResults) {
+            generator.writeStartObject();
+            generator.writeStringField("name", entry.getKey());
+            generator.writeFieldName("result");
+            entry.getValue().writeJson(generator);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        if (elided > 0) {
+            generator.writeNumberField("elided", elided);
+        }
+        generator.writeEndObject();
+    }
 }
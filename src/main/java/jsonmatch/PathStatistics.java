@@ -0,0 +1,14 @@
+package jsonmatch;
+
+import lombok.Value;
+
+/** What an {@link AggregatingMatchListener} saw at one path. */
+@Value
+public class PathStatistics {
+    String path;
+    Class<? extends Matcher> matcherType;
+    long calls;
+    long failures;
+    /** Including the time spent on the nested values. */
+    long totalNanos;
+}
@@ -0,0 +1,198 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.filter.TokenFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static jsonmatch.Matcher.mapper;
+
+/**
+ * Reads only the parts of a document its matcher looks at into a tree,
+ * see {@link JsonMatch#projected(Matcher)}.
+ *
+ * A {@link TokenFilter} derived from the matcher tree decides for every
+ * field and element whether it is read, skipped on the token level, or
+ * read in full because the matcher shows it as a whole (values of an
+ * unexpected type, extra fields that aren't ignored, values of matchers
+ * the filter knows nothing about). Ignored fields whose values are elided
+ * are kept with a placeholder value, so they are still listed or counted.
+ * Verdicts need no tree at all, they come from the matcher itself.
+ */
+public final class ProjectedMatcher implements Matcher {
+    /** Skips a field but keeps its name, for matchers that only show or count the names. */
+    private static final TokenFilter ELIDED = new TokenFilter() {
+    };
+
+    private final Matcher matcher;
+    private final TokenFilter filter;
+
+    ProjectedMatcher(Matcher matcher) {
+        this.matcher = matcher;
+        this.filter = filterOf(matcher);
+    }
+
+    public Matcher getMatcher() {
+        return matcher;
+    }
+
+    @Override
+    public Result match(JsonNode parsed) {
+        return matcher.match(parsed);
+    }
+
+    @Override
+    public Result match(JsonParser parser) throws IOException {
+        return matcher.match(read(parser, filter));
+    }
+
+    /** Only reads the projected tree of a mismatching document, see {@link DeferredResult}. */
+    @Override
+    public Result match(String matchee) {
+        return DeferredResult.match(this, matchee);
+    }
+
+    @Override
+    public <N> Result match(N value, NodeAccess<N> access) {
+        return matcher.match(value, access);
+    }
+
+    @Override
+    public <N> boolean matches(N value, NodeAccess<N> access) {
+        return matcher.matches(value, access);
+    }
+
+    @Override
+    public boolean matches(JsonNode parsed) {
+        return matcher.matches(parsed);
+    }
+
+    /** The matcher's own verdict, which skips what it ignores on the token stream without any tree. */
+    @Override
+    public boolean matches(JsonParser parser) throws IOException {
+        return matcher.matches(parser);
+    }
+
+    static TokenFilter filterOf(Matcher matcher) {
+        if (matcher instanceof AnnotatedMatcher) {
+            return filterOf(((AnnotatedMatcher) matcher).getMatcher());
+        }
+        if (matcher instanceof InstrumentedMatcher) {
+            return filterOf(((InstrumentedMatcher) matcher).getMatcher());
+        }
+        if (matcher instanceof CompiledMatcher) {
+            return filterOf(((CompiledMatcher) matcher).getSource());
+        }
+        if (matcher instanceof ObjectMatcher) {
+            return new ObjectFilter((ObjectMatcher) matcher);
+        }
+        if (matcher instanceof ArrayMatcher) {
+            return new ArrayFilter((ArrayMatcher) matcher);
+        }
+        return TokenFilter.INCLUDE_ALL;
+    }
+
+    /**
+     * Reads the value the parser is positioned on, leaving out what the
+     * filter excludes, and leaves the parser on its last token.
+     *
+     * Jackson's FilteringParserDelegate drops containers that end up empty,
+     * which would turn an empty object into a missing one, so the filter is
+     * applied here instead.
+     */
+    static JsonNode read(JsonParser parser, TokenFilter filter) throws IOException {
+        if (filter == TokenFilter.INCLUDE_ALL) {
+            return mapper.readTree(parser);
+        }
+        if (parser.currentToken() == JsonToken.START_OBJECT) {
+            ObjectNode object = mapper.createObjectNode();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                TokenFilter fieldFilter = filter.includeProperty(fieldName);
+                parser.nextToken();
+                if (fieldFilter == null) {
+                    parser.skipChildren();
+                } else if (fieldFilter == ELIDED) {
+                    parser.skipChildren();
+                    object.set(fieldName, NullNode.getInstance());
+                } else {
+                    object.set(fieldName, read(parser, fieldFilter));
+                }
+            }
+            return object;
+        }
+        if (parser.currentToken() == JsonToken.START_ARRAY) {
+            ArrayNode array = mapper.createArrayNode();
+            int index = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                // only trailing elements are excluded, so the indexes of the others stay the same
+                TokenFilter elementFilter = filter.includeElement(index++);
+                if (elementFilter == null) {
+                    parser.skipChildren();
+                } else {
+                    array.add(read(parser, elementFilter));
+                }
+            }
+            return array;
+        }
+        return mapper.readTree(parser);
+    }
+
+    /** Expected fields with their own filters, extra fields only if they aren't ignored or elided. */
+    private static class ObjectFilter extends TokenFilter {
+        private final Map<String, TokenFilter> fieldFilters = new HashMap<>();
+        private final TokenFilter extraFieldFilter;
+
+        ObjectFilter(ObjectMatcher matcher) {
+            matcher.getExpectedFields().forEach((name, fieldMatcher) -> fieldFilters.put(name, filterOf(fieldMatcher)));
+            if (!matcher.isIgnoreExtraFields()) {
+                this.extraFieldFilter = TokenFilter.INCLUDE_ALL;
+            } else {
+                this.extraFieldFilter = matcher.isElideIgnoredFieldValues() ? ELIDED : null;
+            }
+        }
+
+        @Override
+        public TokenFilter includeProperty(String name) {
+            TokenFilter fieldFilter = fieldFilters.get(name);
+            return fieldFilter != null ? fieldFilter : extraFieldFilter;
+        }
+
+        /** An array where an object is expected is shown as a whole. */
+        @Override
+        public TokenFilter includeElement(int index) {
+            return TokenFilter.INCLUDE_ALL;
+        }
+    }
+
+    /** The expected elements with their own filters, none of the ones after them. */
+    private static class ArrayFilter extends TokenFilter {
+        private final List<TokenFilter> elementFilters = new ArrayList<>();
+
+        ArrayFilter(ArrayMatcher matcher) {
+            for (Matcher elementMatcher : matcher.getElementMatchers()) {
+                elementFilters.add(filterOf(elementMatcher));
+            }
+        }
+
+        @Override
+        public TokenFilter includeElement(int index) {
+            return index < elementFilters.size() ? elementFilters.get(index) : null;
+        }
+
+        /** An object where an array is expected is shown as a whole. */
+        @Override
+        public TokenFilter includeProperty(String name) {
+            return TokenFilter.INCLUDE_ALL;
+        }
+    }
+}
@@ -1,13 +1,59 @@
 package jsonmatch;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
 public interface Result {
     boolean isMatch();
 
+    /** How many failing leaves there are below this result, 0 for a match. */
+    default int getMismatchCount() {
+        return isMatch() ? 0 : 1;
+    }
+
+    /**
+     * Writes the visualisation to {@code out} in a single pass. Nested
+     * results write straight into the same output, indentation is applied
+     * while writing.
+     */
+    default void visualize(Appendable out, VisualisationContext context) throws IOException {
+        out.append(this.visualize(context));
+    }
+
     default String visualize(VisualisationContext context) {
         return this.visualize();
     }
 
     default String visualize() {
-        return this.visualize(null);
+        return Visualisation.render(this, null);
+    }
+
+    /**
+     * A copy of this result that doesn't keep the matched document alive, for
+     * holding on to results, e.g. failures, for later. Values that could pin
+     * large parts of the document are kept as previews of at most
+     * {@code maxValueLength} characters; all else renders as before.
+     */
+    default Result detach(int maxValueLength) {
+        return this;
+    }
+
+    default Result detach() {
+        return detach(Visualisation.DEFAULT_MAX_VALUE_LENGTH);
+    }
+
+    /**
+     * Writes the result as a JSON object for machines rather than humans:
+     * its {@code type}, whether it is a {@code match}, and the details of
+     * the type. Nested results are streamed into the same generator.
+     *
+     * Results that don't know better are written with their visualisation
+     * as plain {@code text}.
+     */
+    default void writeJson(JsonGenerator generator) throws IOException {
+        JsonReport.writeStart(generator, "other", isMatch());
+        generator.writeStringField("text", JsonReport.stripAnsi(visualize()));
+        generator.writeEndObject();
     }
 }
@@ -1,19 +1,81 @@
 package jsonmatch;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.fasterxml.jackson.databind.node.TextNode;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import lombok.Value;
 
+import java.io.IOException;
+
 @Value
 public class StringMatcher implements Matcher {
     String expectedValue;
 
+    /** Shared by all matches, they only differ in the identity of the actual node. */
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    StringResult matched;
+
+    public StringMatcher(String expectedValue) {
+        this.expectedValue = expectedValue;
+        this.matched = new StringResult(expectedValue, TextNode.valueOf(expectedValue));
+    }
+
     @Override
     public Result match(JsonNode parsed) {
         if (parsed.getNodeType() != JsonNodeType.STRING) {
             return new WrongTypeResult(NodeType.STRING, NodeType.fromJackson(parsed.getNodeType()), parsed);
         }
+        if (expectedValue.equals(parsed.textValue())) {
+            return matched;
+        }
         return new StringResult(expectedValue, (TextNode) parsed);
     }
+
+    @Override
+    public boolean matches(JsonNode parsed) {
+        return parsed.isTextual() && expectedValue.equals(parsed.textValue());
+    }
+
+    @Override
+    public <N> Result match(N value, NodeAccess<N> access) {
+        NodeType type = access.typeOf(value);
+        if (type != NodeType.STRING) {
+            return new WrongTypeResult(NodeType.STRING, type, access.toTree(value));
+        }
+        String actual = access.textValue(value);
+        return expectedValue.equals(actual) ? matched : new StringResult(expectedValue, TextNode.valueOf(actual));
+    }
+
+    @Override
+    public <N> boolean matches(N value, NodeAccess<N> access) {
+        return access.typeOf(value) == NodeType.STRING && access.textEquals(value, expectedValue);
+    }
+
+    @Override
+    public boolean matches(JsonParser parser) throws IOException {
+        return textEquals(parser, expectedValue);
+    }
+
+    static boolean textEquals(JsonParser parser, String expectedValue) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING || parser.getTextLength() != expectedValue.length()) {
+            return false;
+        }
+        // compare against the parser's buffer, so we don't create a String per value
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        for (int i = 0; i < expectedValue.length(); i++) {
+            if (chars[offset + i] != expectedValue.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
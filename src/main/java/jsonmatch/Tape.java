@@ -0,0 +1,725 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A parsed document as a flat tape of longs, for matching many small
+ * documents without creating a tree for each.
+ *
+ * Every value takes two words: its type and a payload. Objects and arrays
+ * hold the index of the value after them and their size, and are followed
+ * by their fields, as key and value, or elements. Strings point into the
+ * parsed bytes and are only decoded when their text is asked for; numbers
+ * are parsed into the tape. The tape, its stack, and the boxed indexes
+ * and array iterators handed out are kept and reused by the next parse, so
+ * once they have grown to fit, parsing and {@link #matches(Matcher)}
+ * allocate next to nothing.
+ *
+ * Any matcher can run on a tape, through its {@link NodeAccess} methods:
+ * <pre>
+ * Tape tape = Tape.forCurrentThread().parse(bytes);
+ * boolean matched = tape.matches(matcher);
+ * </pre>
+ * Nodes and results refer to the tape, and are only valid until it parses
+ * the next document. The parsed bytes mustn't change while they are in use.
+ *
+ * A tape isn't thread-safe, use one per thread.
+ */
+public final class Tape implements NodeAccess<Integer> {
+    private static final int OBJECT = 1;
+    private static final int ARRAY = 2;
+    private static final int STRING = 3;
+    private static final int LONG = 4;
+    private static final int DOUBLE = 5;
+    private static final int BIG_INTEGER = 6;
+    private static final int TRUE = 7;
+    private static final int FALSE = 8;
+    private static final int NULL = 9;
+
+    private static final int TYPE_SHIFT = 56;
+    private static final long PAYLOAD = (1L << TYPE_SHIFT) - 1;
+    /** Marks a string with escapes, in the word holding its end. */
+    private static final long ESCAPED = 1L << 62;
+
+    /** Powers of ten a double holds exactly. */
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private static final ThreadLocal<Tape> local = ThreadLocal.withInitial(Tape::new);
+
+    private byte[] input;
+    private long[] tape = new long[512];
+    private int length;
+    /** The boxed indexes handed out as nodes, by index / 2. */
+    private Integer[] nodes = new Integer[256];
+    /** The iterators handed out for arrays, by index / 2. */
+    private Elements[] iterators = new Elements[16];
+    /** The containers being parsed. */
+    private int[] open = new int[32];
+
+    /** The tape of the calling thread. */
+    public static Tape forCurrentThread() {
+        return local.get();
+    }
+
+    public Tape parse(byte[] json) {
+        return parse(json, 0, json.length);
+    }
+
+    /**
+     * Parses a UTF-8 document, replacing the one parsed before.
+     *
+     * @throws RuntimeException if the document isn't valid JSON
+     */
+    public Tape parse(byte[] json, int offset, int length) {
+        this.input = json;
+        this.length = 0;
+        int end = offset + length;
+        int depth = 0;
+        int pos = skipWhitespace(offset, end);
+        while (true) {
+            pos = value(pos, end);
+            int last = this.length - 2;
+            int type = type(last);
+            if (type == OBJECT || type == ARRAY) {
+                pos = skipWhitespace(pos, end);
+                if (pos < end && input[pos] == closing(type)) {
+                    close(last);
+                    pos++;
+                } else {
+                    if (depth == open.length) {
+                        open = Arrays.copyOf(open, depth * 2);
+                    }
+                    open[depth++] = last;
+                    tape[last + 1] = 1;
+                    pos = type == OBJECT ? key(pos, end) : pos;
+                    continue;
+                }
+            }
+            // the value is complete, close the containers it completes
+            while (depth > 0) {
+                int container = open[depth - 1];
+                pos = skipWhitespace(pos, end);
+                if (pos == end) {
+                    throw error("Incomplete document", pos);
+                }
+                if (input[pos] == ',') {
+                    tape[container + 1]++;
+                    pos = type(container) == OBJECT ? key(pos + 1, end) : skipWhitespace(pos + 1, end);
+                    break;
+                }
+                if (input[pos] != closing(type(container))) {
+                    throw error("Unexpected character", pos);
+                }
+                close(container);
+                depth--;
+                pos++;
+            }
+            if (depth == 0) {
+                break;
+            }
+        }
+        if (skipWhitespace(pos, end) != end) {
+            throw error("Unexpected content after the document", pos);
+        }
+        return this;
+    }
+
+    /** Parses a document, encoding it as UTF-8 first. */
+    public Tape parse(String json) {
+        return parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Integer root() {
+        if (length == 0) {
+            throw new IllegalStateException("Nothing parsed yet");
+        }
+        return node(0);
+    }
+
+    /** Only the verdict, without allocating. */
+    public boolean matches(Matcher matcher) {
+        return matcher.matches(root(), this);
+    }
+
+    /**
+     * The result of matching the document. Unlike {@link #matches(Matcher)},
+     * this creates a tree of the document, so the result stays valid after
+     * the tape is reused.
+     */
+    public Result match(Matcher matcher) {
+        return matcher.match(toTree(root()));
+    }
+
+    /** Parses a key and the colon after it, returns where the value starts. */
+    private int key(int pos, int end) {
+        pos = skipWhitespace(pos, end);
+        if (pos == end || input[pos] != '"') {
+            throw error("Expected a field name", pos);
+        }
+        pos = skipWhitespace(string(pos, end), end);
+        if (pos == end || input[pos] != ':') {
+            throw error("Expected ':'", pos);
+        }
+        return skipWhitespace(pos + 1, end);
+    }
+
+    /** Appends the value at {@code pos}, only the open bracket of a container, and returns where that ends. */
+    private int value(int pos, int end) {
+        if (pos == end) {
+            throw error("Incomplete document", pos);
+        }
+        switch (input[pos]) {
+            case '{':
+                append(OBJECT, 0, 0);
+                return pos + 1;
+            case '[':
+                append(ARRAY, 0, 0);
+                return pos + 1;
+            case '"':
+                return string(pos, end);
+            case 't':
+                return literal(pos, end, "true", TRUE);
+            case 'f':
+                return literal(pos, end, "false", FALSE);
+            case 'n':
+                return literal(pos, end, "null", NULL);
+            default:
+                return number(pos, end);
+        }
+    }
+
+    private static char closing(int type) {
+        return type == OBJECT ? '}' : ']';
+    }
+
+    /** Records where a container ends, once all of it is on the tape. */
+    private void close(int container) {
+        tape[container] = (long) type(container) << TYPE_SHIFT | length;
+    }
+
+    private int string(int pos, int end) {
+        int start = pos + 1;
+        boolean escaped = false;
+        for (int i = start; i < end; i++) {
+            byte c = input[i];
+            if (c == '"') {
+                append(STRING, start, i | (escaped ? ESCAPED : 0));
+                return i + 1;
+            }
+            if (c == '\\') {
+                escaped = true;
+                i = escape(i + 1, end);
+            } else if (c >= 0 && c < 0x20) {
+                throw error("Control character in string", i);
+            }
+        }
+        throw error("Incomplete string", pos);
+    }
+
+    /** Checks the escape sequence after a backslash, returns where it ends. */
+    private int escape(int pos, int end) {
+        if (pos < end && input[pos] == 'u') {
+            if (pos + 4 >= end) {
+                throw error("Invalid escape", pos - 1);
+            }
+            unescape(pos);
+            return pos + 4;
+        }
+        if (pos == end || "bfnrt\"\\/".indexOf(input[pos]) < 0) {
+            throw error("Invalid escape", pos - 1);
+        }
+        return pos;
+    }
+
+    private int literal(int pos, int end, String text, int type) {
+        if (end - pos < text.length()) {
+            throw error("Invalid literal", pos);
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (input[pos + i] != text.charAt(i)) {
+                throw error("Invalid literal", pos);
+            }
+        }
+        append(type, 0, 0);
+        return pos + text.length();
+    }
+
+    private int number(int pos, int end) {
+        int start = pos;
+        boolean negative = pos < end && input[pos] == '-';
+        if (negative) {
+            pos++;
+        }
+        int digitsStart = pos;
+        long mantissa = 0;
+        int digits = 0;
+        while (pos < end && isDigit(input[pos])) {
+            mantissa = mantissa * 10 + (input[pos] - '0');
+            if (mantissa != 0 || digits > 0) {
+                digits++;
+            }
+            pos++;
+        }
+        if (pos == digitsStart || (input[digitsStart] == '0' && pos - digitsStart > 1)) {
+            throw error("Invalid number", start);
+        }
+        int integerDigits = digits;
+        int fractionDigits = 0;
+        boolean integral = true;
+        if (pos < end && input[pos] == '.') {
+            integral = false;
+            int fractionStart = ++pos;
+            while (pos < end && isDigit(input[pos])) {
+                if (digits < 19) {
+                    mantissa = mantissa * 10 + (input[pos] - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    fractionDigits++;
+                } else {
+                    digits++;
+                }
+                pos++;
+            }
+            if (pos == fractionStart) {
+                throw error("Invalid number", start);
+            }
+        }
+        int exponent = 0;
+        if (pos < end && (input[pos] == 'e' || input[pos] == 'E')) {
+            integral = false;
+            pos++;
+            boolean negativeExponent = pos < end && input[pos] == '-';
+            if (pos < end && (input[pos] == '-' || input[pos] == '+')) {
+                pos++;
+            }
+            int exponentStart = pos;
+            while (pos < end && isDigit(input[pos])) {
+                exponent = Math.min(exponent * 10 + (input[pos] - '0'), 100_000);
+                pos++;
+            }
+            if (pos == exponentStart) {
+                throw error("Invalid number", start);
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+        if (integral) {
+            if (integerDigits <= 18) {
+                append(LONG, 0, negative ? -mantissa : mantissa);
+            } else {
+                append(BIG_INTEGER, start, pos);
+            }
+            return pos;
+        }
+        int scale = exponent - fractionDigits;
+        double value;
+        if (digits <= 15 && scale >= -22 && scale <= 22) {
+            // both exact, so the one rounding of the operation is the right one
+            value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+        } else {
+            value = Math.abs(Double.parseDouble(new String(input, start, pos - start, StandardCharsets.ISO_8859_1)));
+        }
+        append(DOUBLE, 0, Double.doubleToRawLongBits(negative ? -value : value));
+        return pos;
+    }
+
+    private static boolean isDigit(byte c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private int skipWhitespace(int pos, int end) {
+        while (pos < end) {
+            byte c = input[pos];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    private void append(int type, long payload, long second) {
+        if (length + 2 > tape.length) {
+            tape = Arrays.copyOf(tape, tape.length * 2);
+        }
+        tape[length++] = (long) type << TYPE_SHIFT | payload;
+        tape[length++] = second;
+    }
+
+    private RuntimeException error(String message, int pos) {
+        return new RuntimeException(message + " at offset " + pos);
+    }
+
+    private int type(int index) {
+        return (int) (tape[index] >>> TYPE_SHIFT);
+    }
+
+    private int payload(int index) {
+        return (int) (tape[index] & PAYLOAD);
+    }
+
+    /** The index of the value after the one at {@code index}. */
+    private int next(int index) {
+        int type = type(index);
+        return type == OBJECT || type == ARRAY ? payload(index) : index + 2;
+    }
+
+    private Integer node(int index) {
+        int slot = index >> 1;
+        if (slot >= nodes.length) {
+            nodes = Arrays.copyOf(nodes, Math.max(nodes.length * 2, slot + 1));
+        }
+        Integer node = nodes[slot];
+        if (node == null) {
+            node = index;
+            nodes[slot] = node;
+        }
+        return node;
+    }
+
+    @Override
+    public NodeType typeOf(Integer value) {
+        switch (type(value)) {
+            case OBJECT:
+                return NodeType.OBJECT;
+            case ARRAY:
+                return NodeType.ARRAY;
+            case STRING:
+                return NodeType.STRING;
+            case TRUE:
+            case FALSE:
+                return NodeType.BOOLEAN;
+            case NULL:
+                return NodeType.NULL;
+            default:
+                return NodeType.NUMBER;
+        }
+    }
+
+    @Override
+    public boolean hasField(Integer object, String name) {
+        return find(object, name) >= 0;
+    }
+
+    @Override
+    public Integer field(Integer object, String name) {
+        int index = find(object, name);
+        return index < 0 ? null : node(index);
+    }
+
+    /** The index of the value of a field, -1 if there is no such field. Of duplicate keys the last one wins, as in a tree. */
+    private int find(int object, String name) {
+        int end = payload(object);
+        int found = -1;
+        for (int key = object + 2; key < end; key = next(key + 2)) {
+            if (textEquals(key, name)) {
+                found = key + 2;
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public Iterator<String> fieldNames(Integer object) {
+        int end = payload(object);
+        return new Iterator<String>() {
+            int key = object + 2;
+
+            @Override
+            public boolean hasNext() {
+                return key < end;
+            }
+
+            @Override
+            public String next() {
+                if (key >= end) {
+                    throw new NoSuchElementException();
+                }
+                String name = textValue(key);
+                key = Tape.this.next(key + 2);
+                return name;
+            }
+        };
+    }
+
+    @Override
+    public Fields<Integer> fields(Integer object) {
+        int end = payload(object);
+        return new Fields<Integer>() {
+            int key = -1;
+            int following = object + 2;
+
+            @Override
+            public boolean next() {
+                if (following >= end) {
+                    return false;
+                }
+                key = following;
+                following = Tape.this.next(key + 2);
+                return true;
+            }
+
+            @Override
+            public String name() {
+                return textValue(key);
+            }
+
+            @Override
+            public Integer value() {
+                return node(key + 2);
+            }
+        };
+    }
+
+    @Override
+    public int size(Integer container) {
+        return (int) tape[container + 1];
+    }
+
+    /** Reuses the iterator of the array, so walking it allocates nothing once the tape has grown to fit. */
+    @Override
+    public Iterator<Integer> elements(Integer array) {
+        int slot = array >> 1;
+        if (slot >= iterators.length) {
+            iterators = Arrays.copyOf(iterators, Math.max(iterators.length * 2, slot + 1));
+        }
+        Elements elements = iterators[slot];
+        if (elements == null) {
+            elements = new Elements();
+            iterators[slot] = elements;
+        }
+        elements.element = array + 2;
+        elements.end = payload(array);
+        return elements;
+    }
+
+    @Override
+    public Integer element(Integer array, int index) {
+        if (index >= size(array)) {
+            return null;
+        }
+        int element = array + 2;
+        for (int i = 0; i < index; i++) {
+            element = next(element);
+        }
+        return node(element);
+    }
+
+    @Override
+    public String textValue(Integer string) {
+        int start = payload(string);
+        long end = tape[string + 1];
+        if ((end & ESCAPED) == 0) {
+            return new String(input, start, (int) end - start, StandardCharsets.UTF_8);
+        }
+        return unescape(start, (int) (end & ~ESCAPED));
+    }
+
+    @Override
+    public boolean textEquals(Integer string, String expected) {
+        return textEquals((int) string, expected);
+    }
+
+    private boolean textEquals(int string, String expected) {
+        int pos = payload(string);
+        int end = (int) (tape[string + 1] & ~ESCAPED);
+        // decode as we go, so we don't create a String
+        for (int i = 0; i < expected.length(); i++) {
+            if (pos == end) {
+                return false;
+            }
+            int b = input[pos] & 0xff;
+            char c = expected.charAt(i);
+            if (b == '\\') {
+                int escaped = unescape(pos + 1);
+                if (c != escaped) {
+                    return false;
+                }
+                pos += input[pos + 1] == 'u' ? 6 : 2;
+            } else if (b < 0x80) {
+                if (c != b) {
+                    return false;
+                }
+                pos++;
+            } else {
+                int bytes = b >= 0xf0 ? 4 : b >= 0xe0 ? 3 : 2;
+                if (pos + bytes > end) {
+                    return false;
+                }
+                int codePoint = b & (0x3f >> (bytes - 1));
+                for (int k = 1; k < bytes; k++) {
+                    codePoint = codePoint << 6 | (input[pos + k] & 0x3f);
+                }
+                pos += bytes;
+                if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                    if (c != Character.highSurrogate(codePoint) || ++i == expected.length() || expected.charAt(i) != Character.lowSurrogate(codePoint)) {
+                        return false;
+                    }
+                } else if (c != codePoint) {
+                    return false;
+                }
+            }
+        }
+        return pos == end;
+    }
+
+    private String unescape(int start, int end) {
+        StringBuilder text = new StringBuilder(end - start);
+        int plain = start;
+        for (int i = start; i < end; i++) {
+            if (input[i] != '\\') {
+                continue;
+            }
+            text.append(new String(input, plain, i - plain, StandardCharsets.UTF_8));
+            text.append(unescape(i + 1));
+            i += input[i + 1] == 'u' ? 5 : 1;
+            plain = i + 1;
+        }
+        return text.append(new String(input, plain, end - plain, StandardCharsets.UTF_8)).toString();
+    }
+
+    /** The character of the escape sequence after the backslash at {@code pos - 1}. */
+    private char unescape(int pos) {
+        byte escape = input[pos];
+        switch (escape) {
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case '"':
+            case '\\':
+            case '/':
+                return (char) escape;
+            case 'u':
+                int c = 0;
+                for (int i = pos + 1; i < pos + 5; i++) {
+                    int digit = Character.digit(input[i], 16);
+                    if (digit < 0) {
+                        throw error("Invalid escape", pos - 1);
+                    }
+                    c = c << 4 | digit;
+                }
+                return (char) c;
+            default:
+                throw error("Invalid escape", pos - 1);
+        }
+    }
+
+    @Override
+    public Number numberValue(Integer number) {
+        switch (type(number)) {
+            case LONG:
+                long value = tape[number + 1];
+                return value == (int) value ? (Number) (int) value : (Number) value;
+            case DOUBLE:
+                return Double.longBitsToDouble(tape[number + 1]);
+            default:
+                int start = payload(number);
+                BigInteger big = new BigInteger(new String(input, start, (int) tape[number + 1] - start, StandardCharsets.ISO_8859_1));
+                return big.bitLength() < 64 ? (Number) big.longValue() : big;
+        }
+    }
+
+    @Override
+    public boolean numberEquals(Integer number, Number expected) {
+        int type = type(number);
+        long bits = tape[number + 1];
+        if (type == BIG_INTEGER) {
+            return NumberMatcher.sameNumber(expected, numberValue(number));
+        }
+        if (expected instanceof Integer) {
+            return type == LONG && bits == (Integer) expected;
+        }
+        if (expected instanceof Long) {
+            return type == LONG && bits != (int) bits && bits == (Long) expected;
+        }
+        if (expected instanceof Double) {
+            return type == DOUBLE && Double.compare(Double.longBitsToDouble(bits), (Double) expected) == 0;
+        }
+        return NumberMatcher.sameNumber(expected, numberValue(number));
+    }
+
+    @Override
+    public boolean booleanValue(Integer bool) {
+        return type(bool) == TRUE;
+    }
+
+    @Override
+    public JsonNode toTree(Integer value) {
+        return tree(value, Matcher.mapper.getNodeFactory());
+    }
+
+    private JsonNode tree(int index, JsonNodeFactory factory) {
+        switch (type(index)) {
+            case OBJECT:
+                ObjectNode object = factory.objectNode();
+                for (int key = index + 2; key < payload(index); key = next(key + 2)) {
+                    object.set(textValue(key), tree(key + 2, factory));
+                }
+                return object;
+            case ARRAY:
+                ArrayNode array = factory.arrayNode();
+                for (int element = index + 2; element < payload(index); element = next(element)) {
+                    array.add(tree(element, factory));
+                }
+                return array;
+            case STRING:
+                return factory.textNode(textValue(index));
+            case TRUE:
+            case FALSE:
+                return factory.booleanNode(type(index) == TRUE);
+            case NULL:
+                return factory.nullNode();
+            default:
+                return NumberMatcher.nodeOf(numberValue(index));
+        }
+    }
+
+    /**
+     * Walks the elements of an array. An array is never walked again while
+     * it is being walked, a matcher only walks the values inside it.
+     */
+    private final class Elements implements Iterator<Integer> {
+        int element;
+        int end;
+
+        @Override
+        public boolean hasNext() {
+            return element < end;
+        }
+
+        @Override
+        public Integer next() {
+            if (element >= end) {
+                throw new NoSuchElementException();
+            }
+            Integer node = node(element);
+            element = Tape.this.next(element);
+            return node;
+        }
+    }
+}
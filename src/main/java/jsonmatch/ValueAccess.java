@@ -0,0 +1,541 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static jsonmatch.Matcher.mapper;
+
+/**
+ * Reads Java objects the way {@link Matcher#mapper} would serialise them:
+ * beans and records as objects of their properties, {@code Map}s as
+ * objects, {@code Collection}s and arrays as arrays, and strings, numbers,
+ * booleans, enums and {@code JsonNode}s as themselves.
+ *
+ * How a class is read is worked out once, from Jackson's view of its
+ * properties, so names, {@code @JsonProperty}, {@code @JsonIgnore} and
+ * {@code @JsonInclude(NON_NULL)} are honoured. Properties are then read
+ * through cached {@link MethodHandle}s. Values Jackson writes with a
+ * serialiser of its own, like dates, are converted to a tree once, when a
+ * matcher is handed them.
+ */
+public final class ValueAccess implements NodeAccess<Object> {
+    public static final ValueAccess INSTANCE = new ValueAccess();
+
+    private static final ClassValue<Shape> shapes = new ClassValue<Shape>() {
+        @Override
+        protected Shape computeValue(Class<?> type) {
+            return Shape.of(type);
+        }
+    };
+
+    private ValueAccess() {
+    }
+
+    @Override
+    public NodeType typeOf(Object value) {
+        if (value == null) {
+            return NodeType.NULL;
+        }
+        Shape shape = shapes.get(value.getClass());
+        switch (shape.kind) {
+            case STRING:
+            case ENUM:
+                return NodeType.STRING;
+            case NUMBER:
+                return NodeType.NUMBER;
+            case BOOLEAN:
+                return NodeType.BOOLEAN;
+            case MAP:
+            case BEAN:
+                return NodeType.OBJECT;
+            case COLLECTION:
+            case ARRAY:
+                return NodeType.ARRAY;
+            default:
+                return NodeType.fromJackson(tree(value).getNodeType());
+        }
+    }
+
+    @Override
+    public boolean hasField(Object object, String name) {
+        Shape shape = shapes.get(object.getClass());
+        switch (shape.kind) {
+            case MAP:
+                return MapEntries.find((Map<?, ?>) object, name) != null;
+            case BEAN:
+                Property property = shape.properties.get(name);
+                return property != null && property.isIncluded(property.get(object));
+            default:
+                return tree(object).has(name);
+        }
+    }
+
+    @Override
+    public Object field(Object object, String name) {
+        Shape shape = shapes.get(object.getClass());
+        switch (shape.kind) {
+            case MAP:
+                Map.Entry<?, ?> entry = MapEntries.find((Map<?, ?>) object, name);
+                return entry == null ? null : node(entry.getValue());
+            case BEAN:
+                Property property = shape.properties.get(name);
+                return property == null ? null : node(property.get(object));
+            default:
+                return tree(object).get(name);
+        }
+    }
+
+    @Override
+    public Iterator<String> fieldNames(Object object) {
+        Shape shape = shapes.get(object.getClass());
+        switch (shape.kind) {
+            case MAP:
+                Iterator<?> keys = ((Map<?, ?>) object).keySet().iterator();
+                return new Iterator<String>() {
+                    @Override
+                    public boolean hasNext() {
+                        return keys.hasNext();
+                    }
+
+                    @Override
+                    public String next() {
+                        return String.valueOf(keys.next());
+                    }
+                };
+            case BEAN:
+                List<String> names = new ArrayList<>(shape.propertyList.size());
+                for (Property property : shape.propertyList) {
+                    if (property.isIncluded(property.get(object))) {
+                        names.add(property.name);
+                    }
+                }
+                return names.iterator();
+            default:
+                return tree(object).fieldNames();
+        }
+    }
+
+    @Override
+    public Fields<Object> fields(Object object) {
+        Shape shape = shapes.get(object.getClass());
+        switch (shape.kind) {
+            case MAP:
+                Iterator<? extends Map.Entry<?, ?>> entries = ((Map<?, ?>) object).entrySet().iterator();
+                return new Fields<Object>() {
+                    Map.Entry<?, ?> entry;
+
+                    @Override
+                    public boolean next() {
+                        entry = entries.hasNext() ? entries.next() : null;
+                        return entry != null;
+                    }
+
+                    @Override
+                    public String name() {
+                        return String.valueOf(entry.getKey());
+                    }
+
+                    @Override
+                    public Object value() {
+                        return node(entry.getValue());
+                    }
+                };
+            case BEAN:
+                // whether a property is included depends on its value, so it is read anyway
+                return new Fields<Object>() {
+                    int index = -1;
+                    Object value;
+
+                    @Override
+                    public boolean next() {
+                        while (++index < shape.propertyList.size()) {
+                            Property property = shape.propertyList.get(index);
+                            value = property.get(object);
+                            if (property.isIncluded(value)) {
+                                return true;
+                            }
+                        }
+                        return false;
+                    }
+
+                    @Override
+                    public String name() {
+                        return shape.propertyList.get(index).name;
+                    }
+
+                    @Override
+                    public Object value() {
+                        return node(value);
+                    }
+                };
+            default:
+                Iterator<Map.Entry<String, JsonNode>> fields = tree(object).fields();
+                return new Fields<Object>() {
+                    Map.Entry<String, JsonNode> field;
+
+                    @Override
+                    public boolean next() {
+                        field = fields.hasNext() ? fields.next() : null;
+                        return field != null;
+                    }
+
+                    @Override
+                    public String name() {
+                        return field.getKey();
+                    }
+
+                    @Override
+                    public Object value() {
+                        return field.getValue();
+                    }
+                };
+        }
+    }
+
+    @Override
+    public int size(Object container) {
+        Shape shape = shapes.get(container.getClass());
+        switch (shape.kind) {
+            case MAP:
+                return ((Map<?, ?>) container).size();
+            case BEAN:
+                int size = 0;
+                for (Property property : shape.propertyList) {
+                    if (property.isIncluded(property.get(container))) {
+                        size++;
+                    }
+                }
+                return size;
+            case COLLECTION:
+                return ((Collection<?>) container).size();
+            case ARRAY:
+                return Array.getLength(container);
+            default:
+                return tree(container).size();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<Object> elements(Object array) {
+        Shape shape = shapes.get(array.getClass());
+        switch (shape.kind) {
+            case COLLECTION:
+                Iterator<Object> values = ((Collection<Object>) array).iterator();
+                return new Iterator<Object>() {
+                    @Override
+                    public boolean hasNext() {
+                        return values.hasNext();
+                    }
+
+                    @Override
+                    public Object next() {
+                        return node(values.next());
+                    }
+                };
+            case ARRAY:
+                int length = Array.getLength(array);
+                return new Iterator<Object>() {
+                    int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < length;
+                    }
+
+                    @Override
+                    public Object next() {
+                        if (index == length) {
+                            throw new NoSuchElementException();
+                        }
+                        return node(Array.get(array, index++));
+                    }
+                };
+            default:
+                Iterator<JsonNode> elements = tree(array).elements();
+                return (Iterator<Object>) (Iterator<?>) elements;
+        }
+    }
+
+    @Override
+    public Object element(Object array, int index) {
+        Shape shape = shapes.get(array.getClass());
+        if (shape.kind == Kind.ARRAY) {
+            return index < Array.getLength(array) ? node(Array.get(array, index)) : null;
+        }
+        if (array instanceof List && array instanceof RandomAccess) {
+            List<?> list = (List<?>) array;
+            return index < list.size() ? node(list.get(index)) : null;
+        }
+        return NodeAccess.super.element(array, index);
+    }
+
+    @Override
+    public String textValue(Object string) {
+        Shape shape = shapes.get(string.getClass());
+        switch (shape.kind) {
+            case STRING:
+                return string.toString();
+            case ENUM:
+                return shape.enumNames.get(string);
+            default:
+                return tree(string).textValue();
+        }
+    }
+
+    @Override
+    public Number numberValue(Object number) {
+        if (shapes.get(number.getClass()).kind != Kind.NUMBER) {
+            return tree(number).numberValue();
+        }
+        if (number instanceof Integer || number instanceof Double) {
+            return (Number) number;
+        }
+        if (number instanceof Long || number instanceof Short || number instanceof Byte
+            || number instanceof AtomicInteger || number instanceof AtomicLong) {
+            return integral(((Number) number).longValue());
+        }
+        if (number instanceof Float) {
+            // written as the shortest text that reads back as the float, parsed as a double
+            return Double.valueOf(number.toString());
+        }
+        if (number instanceof BigInteger) {
+            return integral((BigInteger) number);
+        }
+        String text = number.toString();
+        if (text.indexOf('.') >= 0 || text.indexOf('e') >= 0 || text.indexOf('E') >= 0) {
+            return Double.valueOf(text);
+        }
+        return integral(new BigDecimal(text).toBigIntegerExact());
+    }
+
+    private static Number integral(long value) {
+        return value == (int) value ? (Number) Integer.valueOf((int) value) : Long.valueOf(value);
+    }
+
+    private static Number integral(BigInteger value) {
+        if (value.bitLength() < 32) {
+            return value.intValue();
+        }
+        return value.bitLength() < 64 ? (Number) value.longValue() : value;
+    }
+
+    @Override
+    public boolean booleanValue(Object bool) {
+        if (bool instanceof Boolean) {
+            return (Boolean) bool;
+        }
+        if (bool instanceof AtomicBoolean) {
+            return ((AtomicBoolean) bool).get();
+        }
+        return tree(bool).booleanValue();
+    }
+
+    @Override
+    public JsonNode toTree(Object value) {
+        return tree(value);
+    }
+
+    /**
+     * The value as it is handed to matchers: values only read from their
+     * tree are converted once, here, rather than on every look at them.
+     */
+    static Object node(Object value) {
+        return value != null && shapes.get(value.getClass()).kind == Kind.TREE ? tree(value) : value;
+    }
+
+    private static JsonNode tree(Object value) {
+        if (value instanceof JsonNode) {
+            return (JsonNode) value;
+        }
+        JsonNode tree = mapper.valueToTree(value);
+        // binary data is written as a Base64 string
+        return tree.isBinary() ? TextNode.valueOf(tree.asText()) : tree;
+    }
+
+    private enum Kind {
+        STRING, ENUM, NUMBER, BOOLEAN, MAP, COLLECTION, ARRAY, BEAN,
+        /** Read from the tree Jackson makes of it. */
+        TREE
+    }
+
+    /** How the values of one class are read. */
+    private static final class Shape {
+        final Kind kind;
+        final Map<String, Property> properties;
+        final List<Property> propertyList;
+        final Map<Object, String> enumNames;
+
+        private Shape(Kind kind, List<Property> propertyList, Map<Object, String> enumNames) {
+            this.kind = kind;
+            this.propertyList = propertyList;
+            this.properties = new HashMap<>();
+            for (Property property : propertyList) {
+                properties.put(property.name, property);
+            }
+            this.enumNames = enumNames;
+        }
+
+        private Shape(Kind kind) {
+            this(kind, Collections.emptyList(), null);
+        }
+
+        static Shape of(Class<?> type) {
+            if (JsonNode.class.isAssignableFrom(type) || type.isAnnotationPresent(JsonSerialize.class)) {
+                return new Shape(Kind.TREE);
+            }
+            if (CharSequence.class.isAssignableFrom(type) || type == Character.class) {
+                return new Shape(Kind.STRING);
+            }
+            if (Number.class.isAssignableFrom(type)) {
+                return new Shape(Kind.NUMBER);
+            }
+            if (type == Boolean.class || type == AtomicBoolean.class) {
+                return new Shape(Kind.BOOLEAN);
+            }
+            if (type.isEnum() || (type.getSuperclass() != null && type.getSuperclass().isEnum())) {
+                return enumShape(type.isEnum() ? type : type.getSuperclass());
+            }
+            if (Map.class.isAssignableFrom(type)) {
+                return new Shape(Kind.MAP);
+            }
+            if (Collection.class.isAssignableFrom(type)) {
+                return new Shape(Kind.COLLECTION);
+            }
+            if (type.isArray()) {
+                // byte[] and char[] are written as strings
+                return new Shape(type == byte[].class || type == char[].class ? Kind.TREE : Kind.ARRAY);
+            }
+            if (type.getName().startsWith("java.") || type.getName().startsWith("javax.")) {
+                return new Shape(Kind.TREE);
+            }
+            return beanShape(type);
+        }
+
+        private static Shape enumShape(Class<?> type) {
+            Map<Object, String> names = new HashMap<>();
+            for (Object constant : type.getEnumConstants()) {
+                names.put(constant, mapper.valueToTree(constant).asText());
+            }
+            return new Shape(Kind.ENUM, Collections.emptyList(), names);
+        }
+
+        private static Shape beanShape(Class<?> type) {
+            BeanDescription description = mapper.getSerializationConfig().introspect(mapper.constructType(type));
+            if (description.findJsonValueAccessor() != null) {
+                return new Shape(Kind.TREE);
+            }
+            JsonInclude.Include defaultInclusion = description.findPropertyInclusion(JsonInclude.Value.empty()).getValueInclusion();
+            List<Property> properties = new ArrayList<>();
+            for (BeanPropertyDefinition definition : description.findProperties()) {
+                AnnotatedMember accessor = definition.getAccessor();
+                if (accessor == null) {
+                    continue;
+                }
+                MethodHandle getter = getter(accessor);
+                if (getter == null) {
+                    return new Shape(Kind.TREE);
+                }
+                JsonInclude.Include inclusion = definition.findInclusion().getValueInclusion();
+                if (inclusion == JsonInclude.Include.USE_DEFAULTS) {
+                    inclusion = defaultInclusion;
+                }
+                boolean skipNull = inclusion == JsonInclude.Include.NON_NULL || inclusion == JsonInclude.Include.NON_ABSENT;
+                properties.add(new Property(definition.getName(), getter, skipNull));
+            }
+            // Jackson refuses to serialise beans without properties, but may have a serialiser for the class
+            return properties.isEmpty() ? new Shape(Kind.TREE) : new Shape(Kind.BEAN, properties, null);
+        }
+
+        private static MethodHandle getter(AnnotatedMember accessor) {
+            try {
+                AccessibleObject member = (AccessibleObject) accessor.getMember();
+                member.setAccessible(true);
+                MethodHandle handle = member instanceof Method
+                    ? MethodHandles.lookup().unreflect((Method) member)
+                    : MethodHandles.lookup().unreflectGetter((Field) member);
+                return handle.asType(MethodType.methodType(Object.class, Object.class));
+            } catch (IllegalAccessException | RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
+    private static final class Property {
+        final String name;
+        final MethodHandle getter;
+        final boolean skipNull;
+
+        Property(String name, MethodHandle getter, boolean skipNull) {
+            this.name = name;
+            this.getter = getter;
+            this.skipNull = skipNull;
+        }
+
+        Object get(Object bean) {
+            try {
+                return getter.invokeExact(bean);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        boolean isIncluded(Object value) {
+            return value != null || !skipNull;
+        }
+    }
+
+    private static final class MapEntries {
+        private MapEntries() {
+        }
+
+        /** Keys are written with their string form. */
+        static Map.Entry<?, ?> find(Map<?, ?> map, String name) {
+            if (map.isEmpty()) {
+                return null;
+            }
+            Object firstKey = map.keySet().iterator().next();
+            if (firstKey instanceof String) {
+                @SuppressWarnings("unchecked")
+                Map<Object, Object> stringKeyed = (Map<Object, Object>) map;
+                return stringKeyed.containsKey(name) ? new AbstractMap.SimpleImmutableEntry<>(name, stringKeyed.get(name)) : null;
+            }
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (String.valueOf(entry.getKey()).equals(name)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+    }
+}
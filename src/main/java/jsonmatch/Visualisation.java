@@ -0,0 +1,157 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+class Visualisation {
+    /** How much of a value reports and detached results keep by default. */
+    static final int DEFAULT_MAX_VALUE_LENGTH = 100;
+
+    // Same configuration as JsonNode.toPrettyString(), independent of Matcher.mapper
+    private static final ObjectWriter prettyWriter = new ObjectMapper()
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+        .writerWithDefaultPrettyPrinter();
+    private static final ObjectWriter compactWriter = new ObjectMapper()
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+        .writer();
+
+    private Visualisation() {
+    }
+
+    static String render(Result result, VisualisationContext context) {
+        StringBuilder out = new StringBuilder();
+        try {
+            result.visualize(out, context);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder doesn't throw
+        }
+        return out.toString();
+    }
+
+    /** Writes {@code node.toPrettyString()} without building the string first. */
+    static void writePretty(Appendable out, JsonNode node) throws IOException {
+        prettyWriter.writeValue(new AppendableWriter(out), node);
+    }
+
+    /**
+     * Renders {@code node.toString()}, cut off after {@code maxLength} characters.
+     * Writing stops there, so huge values don't cost more than small ones.
+     */
+    static String compact(JsonNode node, int maxLength) {
+        StringBuilder out = new StringBuilder();
+        try {
+            compactWriter.writeValue(new AppendableWriter(new BoundedAppendable(out, maxLength)), node);
+        } catch (BoundedAppendable.Exhausted e) {
+            return out.append('…').toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder doesn't throw
+        }
+        return out.toString();
+    }
+
+    /**
+     * The compact rendering of a value that is longer than {@code maxLength},
+     * cut off; null for values short enough to be kept as they are.
+     */
+    static String preview(JsonNode node, int maxLength) {
+        String compact = compact(node, maxLength);
+        return compact.length() > maxLength ? compact : null;
+    }
+
+    /** Writes a value as {@link #writePretty} does, or its preview if only that was kept. */
+    static void writePretty(Appendable out, JsonNode node, String preview) throws IOException {
+        if (preview != null) {
+            out.append(preview);
+        } else {
+            writePretty(out, node);
+        }
+    }
+
+    /** Cuts a rendered value to {@code maxLength} characters, marking the cut. */
+    static String truncate(String value, int maxLength) {
+        return value.length() <= maxLength ? value : value.substring(0, maxLength) + "…";
+    }
+
+    private static class BoundedAppendable implements Appendable {
+        private final StringBuilder out;
+        private final int maxLength;
+
+        BoundedAppendable(StringBuilder out, int maxLength) {
+            this.out = out;
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public Appendable append(CharSequence s) throws IOException {
+            return append(s, 0, s.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence s, int start, int end) throws IOException {
+            int room = maxLength - out.length();
+            if (end - start > room) {
+                out.append(s, start, start + room);
+                throw new Exhausted();
+            }
+            out.append(s, start, end);
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            if (out.length() == maxLength) {
+                throw new Exhausted();
+            }
+            out.append(c);
+            return this;
+        }
+
+        /** Aborts writing once the budget is used up. */
+        static class Exhausted extends IOException {
+            @Override
+            public synchronized Throwable fillInStackTrace() {
+                return this;
+            }
+        }
+    }
+
+    private static class AppendableWriter extends Writer {
+        private final Appendable out;
+
+        AppendableWriter(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                out.append(buffer[i]);
+            }
+        }
+
+        @Override
+        public void write(String s, int offset, int length) throws IOException {
+            out.append(s, offset, offset + length);
+        }
+
+        @Override
+        public Writer append(CharSequence s) throws IOException {
+            out.append(s);
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
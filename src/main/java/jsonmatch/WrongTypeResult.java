@@ -1,18 +1,44 @@
 package jsonmatch;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import jsonmatch.util.Color;
 
+import java.io.IOException;
+
 
 public class WrongTypeResult implements Result {
     private final NodeType expectedType;
     private final NodeType actualType;
     private final JsonNode actualValue;
+    /** The cut off value of a detached result, instead of the value itself. */
+    private final String preview;
 
     public WrongTypeResult(NodeType expectedType, NodeType actualType, JsonNode actualValue) {
+        this(expectedType, actualType, actualValue, null);
+    }
+
+    private WrongTypeResult(NodeType expectedType, NodeType actualType, JsonNode actualValue, String preview) {
         this.expectedType = expectedType;
         this.actualType = actualType;
         this.actualValue = actualValue;
+        this.preview = preview;
+    }
+
+    NodeType getExpectedType() {
+        return expectedType;
+    }
+
+    NodeType getActualType() {
+        return actualType;
+    }
+
+    JsonNode getActualValue() {
+        return actualValue;
+    }
+
+    String getPreview() {
+        return preview;
     }
 
     @Override
@@ -21,7 +47,23 @@ public class WrongTypeResult implements Result {
     }
 
     @Override
-    public String visualize() {
-        return Color.RED.render("expected <" + expectedType + ">") + " but got <" + actualType + ">";
+    public void visualize(Appendable out, VisualisationContext context) throws IOException {
+        Color.RED.render(out, "expected <" + expectedType + ">");
+        out.append(" but got <").append(actualType.toString()).append(">");
+    }
+
+    @Override
+    public Result detach(int maxValueLength) {
+        String preview = actualValue == null ? null : Visualisation.preview(actualValue, maxValueLength);
+        return preview == null ? this : new WrongTypeResult(expectedType, actualType, null, preview);
+    }
+
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        JsonReport.writeStart(generator, "wrongType", false);
+        generator.writeStringField("expectedType", expectedType.toString());
+        generator.writeStringField("actualType", actualType.toString());
+        JsonReport.writeValueField(generator, "actual", actualValue, preview);
+        generator.writeEndObject();
     }
 }
@@ -0,0 +1,17 @@
+package jsonmatch.bulk;
+
+import jsonmatch.Result;
+import lombok.Value;
+
+/** A record that didn't match, with its position in the input. */
+@Value
+public class BulkFailure {
+    /** Zero based index of the record. */
+    long recordIndex;
+    /** Byte offset of the first token of the record. */
+    long byteOffset;
+    /** Null if the record isn't valid JSON. */
+    Result result;
+    /** Why the record couldn't be parsed, null if it could. */
+    String error;
+}
@@ -0,0 +1,230 @@
+package jsonmatch.bulk;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jsonmatch.Matcher;
+import jsonmatch.MatcherBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static jsonmatch.Matcher.mapper;
+
+/**
+ * Applies one matcher to every record of a large input: newline delimited
+ * JSON or the elements of a top-level array.
+ *
+ * The reading thread only cuts the input into the bytes of its records; a
+ * pool of workers parses and matches them. Only a bounded number of records
+ * is in flight at any time, so memory use doesn't depend on the size of the
+ * input. A record that isn't valid JSON counts as a mismatch, and its
+ * failure has the parse error instead of a result.
+ */
+public class BulkMatcher {
+    private static final ObjectReader strictReader = mapper.reader().with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+
+    private final Matcher matcher;
+    private final int workers;
+    private final int maxInFlight;
+    private final int maxFailures;
+
+    private BulkMatcher(Matcher matcher, int workers, int maxInFlight, int maxFailures) {
+        this.matcher = matcher;
+        this.workers = workers;
+        this.maxInFlight = maxInFlight;
+        this.maxFailures = maxFailures;
+    }
+
+    public static Builder builder(Matcher matcher) {
+        return new Builder(matcher);
+    }
+
+    public static Builder builder(MatcherBuilder matcherBuilder) {
+        return new Builder(matcherBuilder.build());
+    }
+
+    /** Match every value of a newline delimited JSON stream. The stream isn't closed. */
+    public BulkReport matchLines(InputStream in) {
+        return run(in, false);
+    }
+
+    public BulkReport matchLines(Path path) {
+        try (InputStream in = Files.newInputStream(path)) {
+            return matchLines(in);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** Match every element of a top-level array. The stream isn't closed. */
+    public BulkReport matchArrayElements(InputStream in) {
+        return run(in, true);
+    }
+
+    public BulkReport matchArrayElements(Path path) {
+        try (InputStream in = Files.newInputStream(path)) {
+            return matchArrayElements(in);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private BulkReport run(InputStream in, boolean arrayElements) {
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        Run run = new Run();
+        RecordReader reader = new RecordReader(in, arrayElements);
+        long records = 0;
+
+        try {
+            RecordReader.Record record;
+            while ((record = reader.next()) != null) {
+                long recordIndex = records++;
+                RecordReader.Record matchee = record;
+
+                inFlight.acquire();
+                executor.execute(() -> {
+                    try {
+                        run.match(matchee.bytes, recordIndex, matchee.byteOffset);
+                    } catch (RuntimeException | Error e) {
+                        run.error.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+                if (run.error.get() != null) {
+                    break;
+                }
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (run.error.get() != null) {
+            throw new RuntimeException("Matching a record failed", run.error.get());
+        }
+        return new BulkReport(records, records - run.mismatched.get(), run.mismatched.get(), new ArrayList<>(run.failures.values()));
+    }
+
+    /** State shared by the workers of one run. */
+    private class Run {
+        final AtomicLong mismatched = new AtomicLong();
+        /** The first failures in input order, guarded by itself. */
+        final TreeMap<Long, BulkFailure> failures = new TreeMap<>();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        /** A record that isn't valid JSON is a mismatch, whether that is noticed by the verdict or by the result. */
+        void match(byte[] record, long recordIndex, long byteOffset) {
+            boolean counted = false;
+            try {
+                if (matches(record)) {
+                    return;
+                }
+                mismatched.incrementAndGet();
+                counted = true;
+                if (keeps(recordIndex)) {
+                    keep(new BulkFailure(recordIndex, byteOffset, matcher.match(strictReader.readTree(record)), null));
+                }
+            } catch (JsonProcessingException e) {
+                if (!counted) {
+                    mismatched.incrementAndGet();
+                }
+                if (keeps(recordIndex)) {
+                    keep(new BulkFailure(recordIndex, byteOffset, null, e.getOriginalMessage()));
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        /** The verdict on the token stream of the record, which must hold exactly one value. */
+        private boolean matches(byte[] record) throws IOException {
+            try (JsonParser parser = mapper.createParser(record)) {
+                if (parser.nextToken() == null) {
+                    throw new JsonParseException(parser, "No content");
+                }
+                boolean matches = matcher.matches(parser);
+                if (matches && parser.nextToken() != null) {
+                    throw new JsonParseException(parser, "Unexpected content after the record");
+                }
+                return matches;
+            }
+        }
+
+        private boolean keeps(long recordIndex) {
+            synchronized (failures) {
+                return failures.size() < maxFailures || (maxFailures > 0 && failures.lastKey() > recordIndex);
+            }
+        }
+
+        private void keep(BulkFailure failure) {
+            synchronized (failures) {
+                failures.put(failure.getRecordIndex(), failure);
+                if (failures.size() > maxFailures) {
+                    failures.pollLastEntry();
+                }
+            }
+        }
+    }
+
+    public static class Builder {
+        private final Matcher matcher;
+        private int workers = Runtime.getRuntime().availableProcessors();
+        private int maxInFlight = -1;
+        private int maxFailures = 10;
+
+        private Builder(Matcher matcher) {
+            this.matcher = matcher;
+        }
+
+        public Builder workers(int workers) {
+            if (workers < 1) {
+                throw new IllegalArgumentException("Need at least one worker");
+            }
+            this.workers = workers;
+            return this;
+        }
+
+        /** How many records may wait for or be in matching at once. Defaults to four per worker. */
+        public Builder maxInFlight(int maxInFlight) {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("Need at least one record in flight");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /** How many failing results to keep. */
+        public Builder maxFailures(int maxFailures) {
+            if (maxFailures < 0) {
+                throw new IllegalArgumentException("maxFailures must not be negative");
+            }
+            this.maxFailures = maxFailures;
+            return this;
+        }
+
+        public BulkMatcher build() {
+            return new BulkMatcher(matcher, workers, maxInFlight > 0 ? maxInFlight : workers * 4, maxFailures);
+        }
+    }
+}
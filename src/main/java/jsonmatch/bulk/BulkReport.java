@@ -0,0 +1,18 @@
+package jsonmatch.bulk;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class BulkReport {
+    long records;
+    long matched;
+    long mismatched;
+    /** The first failing records in input order, at most as many as configured. */
+    List<BulkFailure> failures;
+
+    public boolean isMatch() {
+        return mismatched == 0;
+    }
+}
@@ -0,0 +1,152 @@
+package jsonmatch.bulk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Cuts an input into the bytes of its records without parsing them: at
+ * line breaks, or at the commas between the elements of a top-level array,
+ * found by counting brackets outside of strings.
+ */
+class RecordReader {
+    private final InputStream in;
+    private final boolean arrayElements;
+    private byte[] buffer = new byte[1 << 16];
+    /** Where the record being read starts, the bytes before it can be dropped. */
+    private int start;
+    /** The next byte to look at. */
+    private int position;
+    /** The end of the bytes read into the buffer. */
+    private int limit;
+    /** The offset of the start of the buffer in the input. */
+    private long bufferOffset;
+    private boolean started;
+    private boolean ended;
+
+    RecordReader(InputStream in, boolean arrayElements) {
+        this.in = in;
+        this.arrayElements = arrayElements;
+    }
+
+    /** The bytes of a record and the offset they start at. */
+    static class Record {
+        final byte[] bytes;
+        final long byteOffset;
+
+        Record(byte[] bytes, long byteOffset) {
+            this.bytes = bytes;
+            this.byteOffset = byteOffset;
+        }
+    }
+
+    /** The next record, null at the end of the input. */
+    Record next() throws IOException {
+        if (ended) {
+            return null;
+        }
+        return arrayElements ? nextElement() : nextLine();
+    }
+
+    private Record nextLine() throws IOException {
+        skipWhitespace();
+        if (!available()) {
+            ended = true;
+            return null;
+        }
+        start = position;
+        while (available() && buffer[position] != '\n') {
+            position++;
+        }
+        return record(position);
+    }
+
+    private Record nextElement() throws IOException {
+        if (!started) {
+            skipWhitespace();
+            if (!available() || buffer[position] != '[') {
+                throw new IllegalArgumentException("Expected a top-level array at offset " + (bufferOffset + position));
+            }
+            position++;
+            started = true;
+        }
+        skipWhitespace();
+        if (!available() || buffer[position] == ']') {
+            ended = true;
+            return null;
+        }
+        start = position;
+        int depth = 0;
+        while (available()) {
+            byte c = buffer[position];
+            if (c == '"') {
+                position++;
+                while (available() && buffer[position] != '"') {
+                    position += buffer[position] == '\\' ? 2 : 1;
+                }
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                break;
+            }
+            position++;
+        }
+        int end = position;
+        if (!available() || buffer[position] == ']') {
+            ended = true;
+        }
+        position++;
+        return record(end);
+    }
+
+    private Record record(int end) {
+        while (end > start && isWhitespace(buffer[end - 1])) {
+            end--;
+        }
+        return new Record(Arrays.copyOfRange(buffer, start, end), bufferOffset + start);
+    }
+
+    private void skipWhitespace() throws IOException {
+        start = position;
+        while (available() && isWhitespace(buffer[position])) {
+            position++;
+        }
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    /** Whether there is a byte at the position, reading more of the input if needed. */
+    private boolean available() throws IOException {
+        while (position >= limit) {
+            if (limit == buffer.length) {
+                if (start > 0) {
+                    discardRead();
+                } else {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                return false;
+            }
+            limit += read;
+        }
+        return true;
+    }
+
+    /** Drops the bytes before the record being read. */
+    private void discardRead() {
+        System.arraycopy(buffer, start, buffer, 0, limit - start);
+        bufferOffset += start;
+        limit -= start;
+        position -= start;
+        start = 0;
+    }
+}
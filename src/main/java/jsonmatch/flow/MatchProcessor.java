@@ -0,0 +1,316 @@
+package jsonmatch.flow;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jsonmatch.Matcher;
+import jsonmatch.MatcherBuilder;
+import jsonmatch.Result;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+/**
+ * Matches a stream of documents, given as {@code String}, {@code byte[]} or
+ * {@link JsonNode}, and publishes a {@link Result} or a verdict for each.
+ *
+ * At most {@code parallelism} documents are requested from upstream ahead
+ * of what has been published, and never more than downstream has asked
+ * for. Documents are matched on the given executor, by default the common
+ * fork/join pool. On JDK 21 and later, a virtual thread per task executor
+ * is a good choice for it.
+ *
+ * The first document that can't be matched, e.g. because it isn't valid
+ * JSON, cancels upstream and fails downstream.
+ *
+ * A processor has one upstream and one downstream subscriber. It
+ * implements the Reactive Streams interfaces, so it runs on Java 8; on
+ * Java 9 and later, {@code org.reactivestreams.FlowAdapters} turns it into
+ * a {@code java.util.concurrent.Flow.Processor}.
+ *
+ * @param <T> the type of the documents
+ * @param <R> {@link Result} or {@link Boolean}
+ */
+public final class MatchProcessor<T, R> implements Processor<T, R> {
+    private final Matcher matcher;
+    private final BiFunction<Matcher, Object, R> match;
+    private final Executor executor;
+    private final int parallelism;
+    private final boolean ordered;
+
+    private volatile Subscription upstream;
+    private final AtomicReference<Subscriber<? super R>> downstream = new AtomicReference<>();
+    /** What downstream has asked for, capped at {@link Long#MAX_VALUE}. */
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean upstreamDone;
+    private volatile boolean cancelled;
+    private volatile long received;
+
+    /** Results waiting to be published, by sequence number when ordered. */
+    private final Map<Long, R> completedInOrder = new ConcurrentHashMap<>();
+    private final Queue<R> completed = new ConcurrentLinkedQueue<>();
+
+    /** Only touched by the thread that drains. */
+    private long emitted;
+    private long requestedUpstream;
+    private boolean terminated;
+
+    private MatchProcessor(Builder<R> builder) {
+        this.matcher = builder.matcher;
+        this.match = builder.match;
+        this.executor = builder.executor;
+        this.parallelism = builder.parallelism;
+        this.ordered = builder.ordered;
+    }
+
+    /** A processor that publishes the result of matching each document. */
+    public static Builder<Result> results(Matcher matcher) {
+        return new Builder<>(matcher, MatchProcessor::match);
+    }
+
+    public static Builder<Result> results(MatcherBuilder matcherBuilder) {
+        return results(matcherBuilder.build());
+    }
+
+    /** A processor that publishes whether each document matches. */
+    public static Builder<Boolean> verdicts(Matcher matcher) {
+        return new Builder<>(matcher, MatchProcessor::matches);
+    }
+
+    public static Builder<Boolean> verdicts(MatcherBuilder matcherBuilder) {
+        return verdicts(matcherBuilder.build());
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super R> subscriber) {
+        if (!downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("A MatchProcessor only supports a single subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    fail(new IllegalArgumentException("Demand must be positive, was " + n));
+                    return;
+                }
+                requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                Subscription subscription = upstream;
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+            }
+        });
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        if (upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        if (cancelled) {
+            subscription.cancel();
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(T document) {
+        // onNext calls never overlap, so this is the only writer
+        long sequence = received;
+        received = sequence + 1;
+        try {
+            executor.execute(() -> {
+                try {
+                    R result = match.apply(matcher, document);
+                    if (ordered) {
+                        completedInOrder.put(sequence, result);
+                    } else {
+                        completed.add(result);
+                    }
+                } catch (RuntimeException | Error e) {
+                    fail(e);
+                }
+                drain();
+            });
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        upstreamDone = true;
+        failure.compareAndSet(null, throwable);
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    private void fail(Throwable throwable) {
+        failure.compareAndSet(null, throwable);
+        drain();
+    }
+
+    /** Publishes what is ready and requests more, on one thread at a time. */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            Subscriber<? super R> subscriber = downstream.get();
+            if (subscriber != null && !terminated) {
+                if (cancelled) {
+                    terminated = true;
+                    completedInOrder.clear();
+                    completed.clear();
+                } else {
+                    publish(subscriber);
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void publish(Subscriber<? super R> subscriber) {
+        long demand = requested.get();
+        while (emitted != demand && failure.get() == null && !cancelled) {
+            R next = ordered ? completedInOrder.remove(emitted) : completed.poll();
+            if (next == null) {
+                break;
+            }
+            emitted++;
+            subscriber.onNext(next);
+        }
+        if (cancelled) {
+            return;
+        }
+        Throwable throwable = failure.get();
+        if (throwable != null) {
+            terminated = true;
+            Subscription subscription = upstream;
+            if (subscription != null && !upstreamDone) {
+                subscription.cancel();
+            }
+            subscriber.onError(throwable);
+            return;
+        }
+        if (upstreamDone && emitted == received) {
+            terminated = true;
+            subscriber.onComplete();
+            return;
+        }
+        Subscription subscription = upstream;
+        if (subscription != null && !upstreamDone) {
+            // documents requested but not published yet are in flight or waiting for their turn
+            long window = Math.min(parallelism, demand - emitted);
+            long pending = requestedUpstream - emitted;
+            if (window > pending) {
+                requestedUpstream += window - pending;
+                subscription.request(window - pending);
+            }
+        }
+    }
+
+    private static Result match(Matcher matcher, Object document) {
+        if (document instanceof String) {
+            return matcher.match((String) document);
+        }
+        if (document instanceof byte[]) {
+            return matcher.match((byte[]) document);
+        }
+        if (document instanceof JsonNode) {
+            return matcher.match((JsonNode) document);
+        }
+        throw unsupported(document);
+    }
+
+    private static Boolean matches(Matcher matcher, Object document) {
+        if (document instanceof String) {
+            return matcher.matches((String) document);
+        }
+        if (document instanceof byte[]) {
+            return matcher.matches((byte[]) document);
+        }
+        if (document instanceof JsonNode) {
+            return matcher.matches((JsonNode) document);
+        }
+        throw unsupported(document);
+    }
+
+    private static IllegalArgumentException unsupported(Object document) {
+        return new IllegalArgumentException("Can only match String, byte[] and JsonNode documents, not " + (document == null ? "null" : document.getClass().getName()));
+    }
+
+    public static class Builder<R> {
+        private final Matcher matcher;
+        private final BiFunction<Matcher, Object, R> match;
+        private Executor executor = ForkJoinPool.commonPool();
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private boolean ordered = true;
+
+        private Builder(Matcher matcher, BiFunction<Matcher, Object, R> match) {
+            this.matcher = matcher;
+            this.match = match;
+        }
+
+        /** Where documents are matched, e.g. {@code Executors.newVirtualThreadPerTaskExecutor()} on JDK 21+. */
+        public Builder<R> executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /** How many documents may be matched or wait to be published at once. Defaults to the number of processors. */
+        public Builder<R> parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be at least 1");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /** Whether to publish in the order the documents came in, the default, or as soon as they are matched. */
+        public Builder<R> ordered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        public <T> MatchProcessor<T, R> build() {
+            return new MatchProcessor<>(this);
+        }
+    }
+}
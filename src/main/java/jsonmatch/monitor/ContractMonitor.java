@@ -0,0 +1,319 @@
+package jsonmatch.monitor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jsonmatch.Matcher;
+import jsonmatch.MatcherBuilder;
+import jsonmatch.MismatchKind;
+import jsonmatch.Mismatches;
+import jsonmatch.Result;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static jsonmatch.Matcher.mapper;
+
+/**
+ * Checks a sample of live documents against a matcher in the background,
+ * to detect when they drift away from the expected contract.
+ *
+ * The {@code offer} methods never block and never throw because of a
+ * document: they roll the dice, and if the document is sampled hand it to
+ * the executor. Parsing and matching happen there. When too many documents
+ * are already waiting, the document is dropped and counted instead.
+ *
+ * Mismatches are counted per path and kind without locking. A uniform
+ * sample of failing results is kept as examples. Only the examples are
+ * updated under a lock, and only on the executor.
+ */
+public class ContractMonitor implements AutoCloseable {
+    private final Matcher matcher;
+    private final double sampleRate;
+    private final Executor executor;
+    private final ExecutorService ownExecutor;
+    private final Semaphore queued;
+    private final int maxPaths;
+    private final int maxExamples;
+    private final int maxValueLength;
+
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder matched = new LongAdder();
+    private final LongAdder mismatched = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder untrackedMismatches = new LongAdder();
+    private final ConcurrentMap<String, LongAdder[]> pathCounters = new ConcurrentHashMap<>();
+
+    private final List<Result> examples = new ArrayList<>();
+    /** Failing documents seen by the reservoir, guarded by {@link #examples}. */
+    private long examplesSeen;
+
+    private ContractMonitor(Builder builder) {
+        this.matcher = builder.matcher;
+        this.sampleRate = builder.sampleRate;
+        if (builder.executor != null) {
+            this.executor = builder.executor;
+            this.ownExecutor = null;
+        } else {
+            this.ownExecutor = Executors.newFixedThreadPool(builder.threads, runnable -> {
+                Thread thread = new Thread(runnable, "jsonmatch-monitor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.executor = ownExecutor;
+        }
+        this.queued = new Semaphore(builder.maxQueued);
+        this.maxPaths = builder.maxPaths;
+        this.maxExamples = builder.maxExamples;
+        this.maxValueLength = builder.maxValueLength;
+    }
+
+    public static Builder builder(Matcher matcher) {
+        return new Builder(matcher);
+    }
+
+    public static Builder builder(MatcherBuilder matcherBuilder) {
+        return new Builder(matcherBuilder.build());
+    }
+
+    /** @return whether the document was sampled and queued for checking */
+    public boolean offer(String document) {
+        return offer(() -> readTree(document));
+    }
+
+    /** The array must not be changed afterwards. */
+    public boolean offer(byte[] document) {
+        return offer(() -> readTree(document));
+    }
+
+    /** The node must not be changed afterwards. */
+    public boolean offer(JsonNode document) {
+        return offer(() -> document);
+    }
+
+    private boolean offer(Supplier<JsonNode> document) {
+        offered.increment();
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return false;
+        }
+        sampled.increment();
+        if (!queued.tryAcquire()) {
+            dropped.increment();
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    check(document.get());
+                } catch (RuntimeException e) {
+                    errors.increment();
+                } finally {
+                    queued.release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            queued.release();
+            dropped.increment();
+            return false;
+        }
+    }
+
+    private void check(JsonNode document) {
+        if (matcher.matches(document)) {
+            matched.increment();
+            return;
+        }
+        Result result = matcher.match(document);
+        // the values aren't needed for counting, only their paths and kinds
+        Mismatches.walk(result, 0, mismatch -> {
+            count(mismatch.getPath(), mismatch.getKind());
+            return true;
+        });
+        if (maxExamples > 0) {
+            sample(result);
+        }
+        // last, so a report never counts a document whose mismatches it doesn't show yet
+        mismatched.increment();
+    }
+
+    private void count(String path, MismatchKind kind) {
+        LongAdder[] counters = pathCounters.get(path);
+        if (counters == null) {
+            if (pathCounters.size() >= maxPaths) {
+                untrackedMismatches.increment();
+                return;
+            }
+            counters = pathCounters.computeIfAbsent(path, p -> newCounters());
+        }
+        counters[kind.ordinal()].increment();
+    }
+
+    private static LongAdder[] newCounters() {
+        LongAdder[] counters = new LongAdder[MismatchKind.values().length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    /** Reservoir sampling: the n-th failure replaces a random example with probability maxExamples / n. */
+    private void sample(Result result) {
+        long n;
+        synchronized (examples) {
+            n = ++examplesSeen;
+            if (n > maxExamples && ThreadLocalRandom.current().nextLong(n) >= maxExamples) {
+                return;
+            }
+        }
+        // detaching renders values, so it happens outside of the lock
+        Result example = result.detach(maxValueLength);
+        synchronized (examples) {
+            if (examples.size() < maxExamples) {
+                examples.add(example);
+            } else {
+                examples.set(ThreadLocalRandom.current().nextInt(maxExamples), example);
+            }
+        }
+    }
+
+    public MonitorReport report() {
+        List<PathMismatches> mismatches = new ArrayList<>();
+        pathCounters.forEach((path, counters) -> {
+            for (MismatchKind kind : MismatchKind.values()) {
+                long count = counters[kind.ordinal()].sum();
+                if (count > 0) {
+                    mismatches.add(new PathMismatches(path, kind, count));
+                }
+            }
+        });
+        mismatches.sort(Comparator.comparingLong(PathMismatches::getCount).reversed()
+            .thenComparing(PathMismatches::getPath)
+            .thenComparing(PathMismatches::getKind));
+        List<Result> examples;
+        synchronized (this.examples) {
+            examples = new ArrayList<>(this.examples);
+        }
+        return new MonitorReport(offered.sum(), sampled.sum(), dropped.sum(), matched.sum(), mismatched.sum(),
+            errors.sum(), untrackedMismatches.sum(), mismatches, examples);
+    }
+
+    /** Shuts down the executor the monitor created itself; a given executor is left alone. */
+    @Override
+    public void close() {
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+    }
+
+    private static JsonNode readTree(String document) {
+        try {
+            return mapper.readTree(document);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static JsonNode readTree(byte[] document) {
+        try {
+            return mapper.readTree(document);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static class Builder {
+        private final Matcher matcher;
+        private double sampleRate = 0.01;
+        private Executor executor;
+        private int threads = 1;
+        private int maxQueued = 1000;
+        private int maxPaths = 1000;
+        private int maxExamples = 10;
+        private int maxValueLength = 100;
+
+        private Builder(Matcher matcher) {
+            this.matcher = matcher;
+        }
+
+        /** The fraction of documents to check, from 0 to 1. Defaults to 1%. */
+        public Builder sampleRate(double sampleRate) {
+            if (!(sampleRate >= 0 && sampleRate <= 1)) {
+                throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+            }
+            this.sampleRate = sampleRate;
+            return this;
+        }
+
+        /**
+         * Where to parse and match. By default the monitor uses its own
+         * daemon threads. An executor that runs tasks on the calling thread
+         * makes the checks synchronous, which is mostly useful in tests.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /** How many threads the monitor's own executor has. */
+        public Builder threads(int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("Need at least one thread");
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        /** How many sampled documents may wait for or be in checking before further ones are dropped. */
+        public Builder maxQueued(int maxQueued) {
+            if (maxQueued < 1) {
+                throw new IllegalArgumentException("Need room for at least one document");
+            }
+            this.maxQueued = maxQueued;
+            return this;
+        }
+
+        /** For how many distinct paths mismatches are counted, to bound memory when paths contain indexes. */
+        public Builder maxPaths(int maxPaths) {
+            if (maxPaths < 0) {
+                throw new IllegalArgumentException("maxPaths must not be negative");
+            }
+            this.maxPaths = maxPaths;
+            return this;
+        }
+
+        /** How many failing results to keep as examples. */
+        public Builder maxExamples(int maxExamples) {
+            if (maxExamples < 0) {
+                throw new IllegalArgumentException("maxExamples must not be negative");
+            }
+            this.maxExamples = maxExamples;
+            return this;
+        }
+
+        /** After how many characters values in the examples are cut off. */
+        public Builder maxValueLength(int maxValueLength) {
+            if (maxValueLength < 0) {
+                throw new IllegalArgumentException("maxValueLength must not be negative");
+            }
+            this.maxValueLength = maxValueLength;
+            return this;
+        }
+
+        public ContractMonitor build() {
+            return new ContractMonitor(this);
+        }
+    }
+}
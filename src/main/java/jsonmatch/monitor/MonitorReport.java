@@ -0,0 +1,27 @@
+package jsonmatch.monitor;
+
+import jsonmatch.Result;
+import lombok.Value;
+
+import java.util.List;
+
+/** What a {@link ContractMonitor} has seen so far. */
+@Value
+public class MonitorReport {
+    /** Documents offered to the monitor. */
+    long offered;
+    /** Documents picked by the sampling. */
+    long sampled;
+    /** Sampled documents that weren't checked because too many were already waiting. */
+    long dropped;
+    long matched;
+    long mismatched;
+    /** Documents that couldn't be matched at all, e.g. because they aren't valid JSON. */
+    long errors;
+    /** Mismatches at paths beyond the configured number of tracked paths. */
+    long untrackedMismatches;
+    /** Most frequent first. */
+    List<PathMismatches> mismatches;
+    /** A uniform random sample of the failing results, detached from their documents. */
+    List<Result> examples;
+}
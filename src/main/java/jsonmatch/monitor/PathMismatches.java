@@ -0,0 +1,13 @@
+package jsonmatch.monitor;
+
+import jsonmatch.MismatchKind;
+import lombok.Value;
+
+/** How often values at one path failed in one way. */
+@Value
+public class PathMismatches {
+    /** JSON Pointer to the value, the empty string for the document itself. */
+    String path;
+    MismatchKind kind;
+    long count;
+}
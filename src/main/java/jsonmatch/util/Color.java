@@ -1,5 +1,7 @@
 package jsonmatch.util;
 
+import java.io.IOException;
+
 public enum Color {
     BLACK("\u001B[30m"),
     RED("\u001B[31m"),
@@ -23,6 +25,10 @@ public enum Color {
         return ansi + s + ANSI_RESET;
     }
 
+    public void render(Appendable out, CharSequence s) throws IOException {
+        out.append(ansi).append(s).append(ANSI_RESET);
+    }
+
     public String getAnsi() {
         return ansi;
     }
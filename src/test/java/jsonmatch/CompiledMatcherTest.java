@@ -0,0 +1,83 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static jsonmatch.JsonMatch.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompiledMatcherTest {
+
+    private final List<Matcher> matchers = Arrays.asList(
+        object()
+            .with("a", eq("x"))
+            .with("b", annotate(object().with("c", eq(12)).with("d", isNull()).build(), "nested"))
+            .with("e", array().with(eq(true)).with(object().ignoreExtraFields(false).with("f", eq(1.5)).build()).build())
+            .build(),
+        object()
+            .elideIgnoredFieldValues(true)
+            .probeExpectedFields(true)
+            .with("a", eq("x"))
+            .with("b", annotate(eq(12), "twelve"))
+            .build(),
+        array().with(eq("x")).with(object().build()).build()
+    );
+
+    private final List<String> documents = Arrays.asList(
+        "{\"a\":\"x\",\"b\":{\"c\":12,\"d\":null},\"e\":[true,{\"f\":1.5}]}",
+        "{\"z\":[1,{}],\"a\":\"x\",\"b\":{\"c\":12,\"d\":null},\"e\":[true,{\"f\":1.5,\"g\":2},\"extra\"]}",
+        "{\"a\":\"y\",\"b\":12,\"e\":[true]}",
+        "{\"b\":{\"c\":\"12\",\"d\":false},\"e\":{}}",
+        "[\"x\",{\"y\":1}]",
+        "[\"x\"]",
+        "[\"y\",[]]",
+        "\"x\"",
+        "null"
+    );
+
+    @Test
+    public void sameResultsAsTheMatcherTree() throws IOException {
+        for (Matcher matcher : matchers) {
+            CompiledMatcher compiled = MatcherCompiler.compile(matcher);
+            for (String document : documents) {
+                JsonNode node = Matcher.mapper.readValue(document, JsonNode.class);
+                Result expected = matcher.match(node);
+                Result actual = compiled.match(node);
+                assertEquals(document, expected.isMatch(), actual.isMatch());
+                assertEquals(document, expected.visualize(), actual.visualize());
+                assertEquals(document, expected.isMatch(), compiled.matches(node));
+            }
+        }
+    }
+
+    @Test
+    public void deeplyNestedDocumentsDontOverflowTheStack() throws IOException {
+        int depth = 20_000;
+        Matcher matcher = eq("bottom");
+        StringBuilder json = new StringBuilder("\"bottom\"");
+        for (int i = 0; i < depth; i++) {
+            matcher = i % 2 == 0 ? object().with("n", matcher).build() : array().with(matcher).build();
+            json.insert(0, i % 2 == 0 ? "{\"n\":" : "[").append(i % 2 == 0 ? "}" : "]");
+        }
+        CompiledMatcher compiled = MatcherCompiler.compile(matcher);
+        String mismatching = json.toString().replace("bottom", "top");
+        JsonNode node = Matcher.mapper.readValue(json.toString(), JsonNode.class);
+
+        assertTrue(compiled.matches(node));
+        assertFalse(compiled.matches(Matcher.mapper.readValue(mismatching, JsonNode.class)));
+        assertTrue(compiled.match(node).isMatch());
+        assertTrue(compiled.matches(json.toString()));
+        assertTrue(compiled.match(json.toString()).isMatch());
+
+        Result result = compiled.match(mismatching);
+        assertFalse(result.isMatch());
+        assertEquals(1, result.getMismatchCount());
+        assertFalse(compiled.matches(mismatching));
+    }
+}
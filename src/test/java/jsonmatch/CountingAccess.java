@@ -0,0 +1,124 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Reads trees the way representations that keep fields and elements one
+ * after the other do, like {@link Tape} and {@link MappedDocument}: a field
+ * is looked up by walking the fields before it. Counts the fields and
+ * elements stepped over, so how the work of matching grows with the
+ * document can be checked without measuring time.
+ */
+class CountingAccess implements NodeAccess<JsonNode> {
+    long steps;
+
+    @Override
+    public NodeType typeOf(JsonNode value) {
+        return NodeType.fromJackson(value.getNodeType());
+    }
+
+    @Override
+    public boolean hasField(JsonNode object, String name) {
+        return field(object, name) != null;
+    }
+
+    @Override
+    public JsonNode field(JsonNode object, String name) {
+        JsonNode found = null;
+        for (Iterator<Map.Entry<String, JsonNode>> fields = object.fields(); fields.hasNext(); ) {
+            steps++;
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getKey().equals(name)) {
+                found = field.getValue();
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public Iterator<String> fieldNames(JsonNode object) {
+        Iterator<String> names = object.fieldNames();
+        return new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return names.hasNext();
+            }
+
+            @Override
+            public String next() {
+                steps++;
+                return names.next();
+            }
+        };
+    }
+
+    @Override
+    public Fields<JsonNode> fields(JsonNode object) {
+        Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+        return new Fields<JsonNode>() {
+            Map.Entry<String, JsonNode> field;
+
+            @Override
+            public boolean next() {
+                field = fields.hasNext() ? fields.next() : null;
+                steps++;
+                return field != null;
+            }
+
+            @Override
+            public String name() {
+                return field.getKey();
+            }
+
+            @Override
+            public JsonNode value() {
+                return field.getValue();
+            }
+        };
+    }
+
+    @Override
+    public int size(JsonNode container) {
+        return container.size();
+    }
+
+    @Override
+    public Iterator<JsonNode> elements(JsonNode array) {
+        Iterator<JsonNode> elements = array.elements();
+        return new Iterator<JsonNode>() {
+            @Override
+            public boolean hasNext() {
+                return elements.hasNext();
+            }
+
+            @Override
+            public JsonNode next() {
+                steps++;
+                return elements.next();
+            }
+        };
+    }
+
+    @Override
+    public String textValue(JsonNode string) {
+        return string.textValue();
+    }
+
+    @Override
+    public Number numberValue(JsonNode number) {
+        return number.numberValue();
+    }
+
+    @Override
+    public boolean booleanValue(JsonNode bool) {
+        return bool.booleanValue();
+    }
+
+    @Override
+    public JsonNode toTree(JsonNode value) {
+        return value;
+    }
+}
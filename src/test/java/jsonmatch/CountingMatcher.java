@@ -0,0 +1,39 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the results and verdicts a matcher works out, so tests can check
+ * how often a container matches its fields or elements.
+ */
+class CountingMatcher implements Matcher {
+    private final Matcher matcher;
+    private final AtomicInteger calls;
+
+    CountingMatcher(Matcher matcher, AtomicInteger calls) {
+        this.matcher = matcher;
+        this.calls = calls;
+    }
+
+    @Override
+    public Result match(JsonNode parsed) {
+        calls.incrementAndGet();
+        return matcher.match(parsed);
+    }
+
+    @Override
+    public boolean matches(JsonNode parsed) {
+        calls.incrementAndGet();
+        return matcher.matches(parsed);
+    }
+
+    @Override
+    public boolean matches(JsonParser parser) throws IOException {
+        calls.incrementAndGet();
+        return matcher.matches(parser);
+    }
+}
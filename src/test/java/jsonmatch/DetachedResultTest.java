@@ -0,0 +1,70 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+import static jsonmatch.JsonMatch.*;
+import static jsonmatch.Matcher.mapper;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DetachedResultTest {
+
+    private final Matcher matcher = object()
+        .with("a", eq("x"))
+        .with("b", annotate(array().with(eq(1)).with(object().ignoreExtraFields(false).with("c", eq(true)).build()).build(), "nested"))
+        .with("d", isNull())
+        .build();
+
+    @Test
+    public void rendersSmallValuesAsBefore() {
+        Result result = matcher.match("{\"a\":\"y\",\"b\":[1,{\"c\":true,\"x\":{\"y\":1}}],\"d\":[2],\"e\":[3,4]}");
+        Result detached = result.detach();
+
+        assertFalse(detached.isMatch());
+        assertEquals(result.visualize(), detached.visualize());
+        assertEquals(Mismatches.of(result), Mismatches.of(detached));
+    }
+
+    @Test
+    public void keepsPreviewsOfLargeValues() {
+        Result detached = matcher.match("{\"a\":\"x\",\"b\":[1,{\"c\":true,\"x\":[1,2,3,4,5,6]}],\"d\":{\"big\":\"value\"},\"e\":[1,2,3,4,5,6]}").detach(8);
+
+        String visualisation = detached.visualize();
+        assertTrue(visualisation, visualisation.contains("\"x\": \u001B[0m\u001B[31m[1,2,3,4…\u001B[0m unexpected field"));
+        assertTrue(visualisation, visualisation.contains("\"e\": \u001B[0m\u001B[90m[1,2,3,4…\u001B[0m\n"));
+        assertEquals("/b/1/x unexpected field [1,2,3,4…\n/d expected <Null> but was {\"big\":\"…\n", MismatchReport.of(detached));
+    }
+
+    @Test
+    public void doesNotKeepTheDocumentAlive() throws InterruptedException {
+        StringBuilder json = new StringBuilder("{\"a\":\"x\",\"b\":[2],\"d\":null,\"e\":[");
+        for (int i = 0; i < 10_000; i++) {
+            json.append(i == 0 ? "" : ",").append(i);
+        }
+        JsonNode document = readTree(json.append("]}").toString());
+        WeakReference<JsonNode> ignoredValue = new WeakReference<>(document.get("e"));
+        Result detached = matcher.match(document).detach();
+        document = null;
+
+        for (int i = 0; i < 50 && ignoredValue.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(ignoredValue.get());
+        assertTrue(detached.visualize().contains("[0,1,2,3,"));
+    }
+
+    private static JsonNode readTree(String json) {
+        try {
+            return mapper.readTree(json);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
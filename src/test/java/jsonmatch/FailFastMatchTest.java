@@ -0,0 +1,61 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static jsonmatch.JsonMatch.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class FailFastMatchTest {
+
+    private final List<Matcher> matchers = Arrays.asList(
+        object()
+            .with("a", eq("x"))
+            .with("b", annotate(object().with("c", eq(12)).with("d", isNull()).build(), "nested"))
+            .with("e", array().with(eq(true)).with(eq(1.5)).build())
+            .build(),
+        object().ignoreExtraFields(false).with("a", eq("x")).with("l", eq(12345678901L)).build(),
+        array().with(eq("x")).with(object().build()).build()
+    );
+
+    private final List<String> documents = Arrays.asList(
+        "{\"a\":\"x\",\"b\":{\"c\":12,\"d\":null},\"e\":[true,1.5]}",
+        "{\"a\":\"x\",\"b\":{\"c\":12,\"d\":null},\"e\":[true,1.5,\"extra\"],\"z\":[1,{}]}",
+        "{\"a\":\"x\",\"b\":{\"c\":12,\"d\":null},\"e\":[true]}",
+        "{\"a\":\"x\",\"b\":{\"c\":12.0,\"d\":null},\"e\":[true,1.5]}",
+        "{\"a\":\"xy\",\"b\":{\"c\":12,\"d\":null},\"e\":[true,1.5]}",
+        "{\"a\":\"x\",\"b\":{\"c\":12,\"d\":false},\"e\":[false,1.5]}",
+        "{\"a\":\"x\",\"b\":{\"d\":null},\"e\":[true,1.5]}",
+        "{\"a\":\"x\",\"a\":\"x\",\"l\":12345678901}",
+        "{\"a\":\"x\",\"l\":12345678901}",
+        "{\"a\":\"x\",\"l\":12345678902}",
+        "{\"a\":\"x\",\"l\":12345678901,\"m\":1}",
+        "[\"x\",{\"y\":1}]",
+        "[\"x\"]",
+        "[\"x\",[]]",
+        "\"x\"",
+        "null"
+    );
+
+    @Test
+    public void verdictAgreesWithFullResult() throws IOException {
+        for (Matcher matcher : matchers) {
+            for (String document : documents) {
+                boolean expected = matcher.match(Matcher.mapper.readValue(document, JsonNode.class)).isMatch();
+                assertEquals(document, expected, matcher.matches(Matcher.mapper.readValue(document, JsonNode.class)));
+                assertEquals(document, expected, matcher.matches(document));
+            }
+        }
+    }
+
+    @Test
+    public void stopsAtFirstMismatch() {
+        // the rest of the document isn't even well-formed
+        assertFalse(object().with("a", eq("x")).build().matches("{\"a\":\"y\", \"b\": ]"));
+    }
+}
@@ -0,0 +1,283 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.UnaryOperator;
+
+import static jsonmatch.JsonMatch.*;
+import static jsonmatch.Matcher.mapper;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Fails when the hot paths of matching allocate more than they used to, or
+ * allocate, read or call matchers more than linearly in the size of the
+ * matcher and the document. Allocation is measured per thread, reads and
+ * calls are counted, so none of it depends on the machine; how time scales
+ * is measured by {@code ScalingBenchmark} in benchmarks/.
+ */
+public class HotPathRegressionTest {
+
+    private static final Matcher ORDER = object()
+        .with("id", eq("order-1"))
+        .with("total", eq(99.5))
+        .with("paid", eq(true))
+        .with("voucher", isNull())
+        .with("customer", object().with("name", eq("Ada")).with("tier", eq(2)).build())
+        .with("lines", array()
+            .with(object().with("sku", eq("a")).with("quantity", eq(1)).build())
+            .with(object().with("sku", eq("b")).with("quantity", eq(3)).build())
+            .build())
+        .build();
+
+    private static final String MATCHING_ORDER = "{\"id\":\"order-1\",\"created\":\"2020-01-01\",\"total\":99.5,\"paid\":true,\"voucher\":null," +
+        "\"customer\":{\"name\":\"Ada\",\"tier\":2,\"email\":\"ada@example.com\"}," +
+        "\"lines\":[{\"sku\":\"a\",\"quantity\":1,\"price\":10.5},{\"sku\":\"b\",\"quantity\":3,\"price\":29.67}]}";
+
+    private static final String FAILING_ORDER = MATCHING_ORDER.replace("\"quantity\":3", "\"quantity\":4");
+
+    @Test
+    public void allocationPerMatch() {
+        JsonNode matching = readTree(MATCHING_ORDER);
+        JsonNode failing = readTree(FAILING_ORDER);
+        warmUp(() -> {
+            ORDER.match(matching);
+            ORDER.match(failing);
+            ORDER.match(MATCHING_ORDER);
+            ORDER.matches(MATCHING_ORDER);
+        });
+
+        // about twice of what was measured when these were written
+        assertAtMost(2_600, "tree match", Measurements.allocatedBytes(10_000, () -> assertTrue(ORDER.match(matching).isMatch())));
+        assertAtMost(3_000, "tree mismatch", Measurements.allocatedBytes(10_000, () -> assertFalse(ORDER.match(failing).isMatch())));
+        assertAtMost(2_000, "string match", Measurements.allocatedBytes(10_000, () -> assertTrue(ORDER.match(MATCHING_ORDER).isMatch())));
+        assertAtMost(2_000, "string matches", Measurements.allocatedBytes(10_000, () -> assertTrue(ORDER.matches(MATCHING_ORDER))));
+    }
+
+    @Test
+    public void wideObjectsAllocateLinearly() {
+        assertLinear("wide mismatch", width -> {
+            Matcher matcher = wideMatcher(width, field -> field);
+            JsonNode document = readTree(wideMismatch(width));
+            return () -> matcher.match(document);
+        });
+        assertLinear("wide mismatch from string", width -> {
+            Matcher matcher = wideMatcher(width, field -> field);
+            String document = wideMismatch(width);
+            return () -> matcher.match(document);
+        });
+        assertLinear("wide missing", width -> {
+            Matcher matcher = wideMatcher(width, field -> field);
+            JsonNode document = readTree("{\"other\":1}");
+            return () -> matcher.match(document);
+        });
+    }
+
+    @Test
+    public void longArraysAllocateLinearly() {
+        assertLinear("long mismatch", length -> {
+            Matcher matcher = longMatcher(length, element -> element);
+            JsonNode document = readTree(longMismatch(length));
+            return () -> matcher.match(document);
+        });
+    }
+
+    @Test
+    public void matchersAreCalledLinearlyOften() {
+        assertLinearCalls("wide mismatch", width -> calls -> {
+            Matcher matcher = wideMatcher(width, field -> new CountingMatcher(field, calls));
+            String document = wideMismatch(width);
+            assertFalse(matcher.match(readTree(document)).isMatch());
+            assertFalse(matcher.matches(readTree(document)));
+            assertFalse(matcher.match(document).isMatch());
+            assertFalse(matcher.matches(document));
+        });
+        assertLinearCalls("long mismatch", length -> calls -> {
+            Matcher matcher = longMatcher(length, element -> new CountingMatcher(element, calls));
+            String document = longMismatch(length);
+            assertFalse(matcher.match(readTree(document)).isMatch());
+            assertFalse(matcher.matches(readTree(document)));
+            assertFalse(matcher.match(document).isMatch());
+            assertFalse(matcher.matches(document));
+        });
+    }
+
+    @Test
+    public void matchingReadsLinearlyThroughNodeAccess() {
+        assertLinearSteps("wide mismatch", width -> {
+            Matcher matcher = wideMatcher(width, field -> field);
+            JsonNode document = readTree(wideMismatch(width));
+            return access -> {
+                assertFalse(matcher.match(document, access).isMatch());
+                assertFalse(matcher.matches(document, access));
+            };
+        });
+        assertLinearSteps("wide missing", width -> {
+            Matcher matcher = wideMatcher(width, field -> field);
+            ObjectNode document = mapper.createObjectNode();
+            for (int i = 0; i < width; i += 2) {
+                document.put("field" + i, i);
+            }
+            return access -> {
+                assertFalse(matcher.match(document, access).isMatch());
+                assertFalse(matcher.matches(document, access));
+            };
+        });
+        assertLinearSteps("wide probe", width -> {
+            Matcher matcher = object().elideIgnoredFieldValues(true).probeExpectedFields(true)
+                .with("field0", eq(0)).with("field" + (width - 1), eq(width - 1)).build();
+            JsonNode document = readTree(wideMismatch(width));
+            return access -> {
+                assertFalse(matcher.match(document, access).isMatch());
+                assertFalse(matcher.matches(document, access));
+            };
+        });
+        assertLinearSteps("long mismatch", length -> {
+            Matcher matcher = longMatcher(length, element -> element);
+            JsonNode document = readTree(longMismatch(length));
+            return access -> {
+                assertFalse(matcher.match(document, access).isMatch());
+                assertFalse(matcher.matches(document, access));
+            };
+        });
+    }
+
+    @Test
+    public void wideObjectsAreWalkedOnceThroughNodeAccess() {
+        for (boolean elide : new boolean[]{true, false}) {
+            assertLinearSteps("wide ignored, elided " + elide, width -> {
+                ObjectNode document = mapper.createObjectNode();
+                for (int i = 0; i < width; i++) {
+                    document.put("field" + i, i);
+                }
+                Matcher matcher = object().elideIgnoredFieldValues(elide).with("field0", eq(-1)).build();
+                return access -> assertFalse(matcher.match(document, access).isMatch());
+            });
+        }
+        assertLinearSteps("wide verdict", width -> {
+            ObjectMatcher.Builder matcher = object().ignoreExtraFields(false);
+            ObjectNode document = mapper.createObjectNode();
+            for (int i = 0; i < width; i++) {
+                matcher.with("field" + i, eq(i));
+                document.put("field" + i, i == width - 1 ? -1 : i);
+            }
+            Matcher built = matcher.build();
+            return access -> assertFalse(built.matches(document, access));
+        });
+    }
+
+    /** Like {@link #assertLinear}, counting the fields and elements read rather than bytes allocated. */
+    private static void assertLinearSteps(String name, IntFunction<Consumer<CountingAccess>> operationOfSize) {
+        assertLinearCount(name + " reads fields and elements", size -> {
+            CountingAccess access = new CountingAccess();
+            operationOfSize.apply(size).accept(access);
+            return access.steps;
+        });
+    }
+
+    /** Like {@link #assertLinear}, counting the calls of field and element matchers wrapped in a {@link CountingMatcher}. */
+    private static void assertLinearCalls(String name, IntFunction<Consumer<AtomicInteger>> operationOfSize) {
+        assertLinearCount(name + " calls matchers", size -> {
+            AtomicInteger calls = new AtomicInteger();
+            operationOfSize.apply(size).accept(calls);
+            return calls.get();
+        });
+    }
+
+    private static void assertLinearCount(String name, IntToLongFunction countOfSize) {
+        int[] sizes = {1000, 2000, 4000};
+        long[] counts = new long[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            counts[i] = countOfSize.applyAsLong(sizes[i]);
+        }
+        for (int i = 1; i < sizes.length; i++) {
+            assertTrue(name + " " + counts[i - 1] + " and " + counts[i] + " times at sizes " + sizes[i - 1] + " and " + sizes[i],
+                counts[i] < counts[i - 1] * 2.5);
+        }
+    }
+
+    /**
+     * Linear growth doubles the allocation when the size doubles, quadratic
+     * growth quadruples it.
+     */
+    private static void assertLinear(String name, IntFunction<Runnable> operationOfSize) {
+        int[] sizes = {1000, 2000, 4000};
+        Runnable[] operations = new Runnable[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            operations[i] = operationOfSize.apply(sizes[i]);
+        }
+        warmUp(() -> {
+            for (Runnable operation : operations) {
+                operation.run();
+            }
+        });
+        long[] bytes = new long[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            bytes[i] = Measurements.allocatedBytes(20, operations[i]);
+        }
+        for (int i = 1; i < sizes.length; i++) {
+            assertTrue(name + " allocates " + bytes[i - 1] + " and " + bytes[i] + " bytes at sizes " + sizes[i - 1] + " and " + sizes[i],
+                bytes[i] < bytes[i - 1] * 2.5);
+        }
+    }
+
+    /** A strict matcher of the fields {@code field0} to {@code field<width - 1>}, numbered like their names. */
+    private static Matcher wideMatcher(int width, UnaryOperator<Matcher> fieldMatcher) {
+        ObjectMatcher.Builder matcher = object().ignoreExtraFields(false);
+        for (int i = 0; i < width; i++) {
+            matcher.with("field" + i, fieldMatcher.apply(eq(i)));
+        }
+        return matcher.build();
+    }
+
+    /** An object {@link #wideMatcher} only mismatches in its last field. */
+    private static String wideMismatch(int width) {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < width; i++) {
+            json.append(i == 0 ? "" : ",").append("\"field").append(i).append("\":").append(i == width - 1 ? -1 : i);
+        }
+        return json.append('}').toString();
+    }
+
+    /** A matcher of {@code length} objects with their index as {@code id}. */
+    private static Matcher longMatcher(int length, UnaryOperator<Matcher> elementMatcher) {
+        ArrayMatcher.Builder matcher = array();
+        for (int i = 0; i < length; i++) {
+            matcher.with(elementMatcher.apply(object().with("id", eq(i)).build()));
+        }
+        return matcher.build();
+    }
+
+    /** An array {@link #longMatcher} only mismatches in its last element. */
+    private static String longMismatch(int length) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < length; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i == length - 1 ? -1 : i).append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    private static void assertAtMost(long limit, String name, long bytes) {
+        assertTrue(name + " allocates " + bytes + " bytes, expected at most " + limit, bytes <= limit);
+    }
+
+    private static void warmUp(Runnable operation) {
+        for (int i = 0; i < 500; i++) {
+            operation.run();
+        }
+    }
+
+    private static JsonNode readTree(String json) {
+        try {
+            return mapper.readTree(json);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
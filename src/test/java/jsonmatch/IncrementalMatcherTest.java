@@ -0,0 +1,125 @@
+package jsonmatch;
+
+import jsonmatch.IncrementalMatcher.Verdict;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static jsonmatch.JsonMatch.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class IncrementalMatcherTest {
+
+    /** Only matches objects with exactly two fields, to have a matcher the incremental one knows nothing about. */
+    private static final Matcher PAIR = parsed -> new AnnotatedResult(parsed.isObject() && parsed.size() == 2 ? NullResult.INSTANCE : new ExtraFieldResult(parsed), "pair");
+
+    private final Matcher matcher = object()
+        .with("id", eq(7))
+        .with("name", eq("ä/~b"))
+        .with("strict", object().ignoreExtraFields(false).with("a", eq(1.5)).build())
+        .with("items", array().with(annotate(eq(true), "first")).with(isNull()).with(PAIR).build())
+        .build();
+
+    private final List<String> documents = asList(
+        "{\"id\":7,\"name\":\"ä/~b\",\"strict\":{\"a\":1.5},\"items\":[true,null,{\"x\":[1],\"y\":{}}]}",
+        "{\"skip\":{\"deep\":[[{}]]},\"id\":7,\"name\":\"ä/~b\",\"strict\":{\"a\":1.5},\"items\":[true,null,{\"x\":1,\"y\":2},4,[5]],\"more\":\"x\"}",
+        "{\"id\":7,\"name\":\"ä/~b\",\"strict\":{\"a\":1.5},\"items\":[true,null,{\"x\":1}]}",
+        "{\"id\":7,\"name\":\"ä/~b\",\"strict\":{\"a\":1.5,\"b\":2},\"items\":[true,null,{\"x\":1,\"y\":2}]}",
+        "{\"id\":7,\"name\":\"ä/~b\",\"strict\":{},\"items\":[true,null,{\"x\":1,\"y\":2}]}",
+        "{\"id\":7,\"name\":\"ä/~b\",\"strict\":{\"a\":1.5},\"items\":[true]}",
+        "{\"id\":7,\"name\":\"ä/~b\",\"strict\":{\"a\":1.5},\"items\":[true,{\"null\":null},{\"x\":1,\"y\":2}]}",
+        "{\"id\":\"7\"}",
+        "{\"name\":\"ä/~b\",\"strict\":{\"a\":1.5},\"items\":[true,null,{\"x\":1,\"y\":2}]}",
+        "[1,2,3]",
+        "\"text\"");
+
+    @Test
+    public void sameVerdictsAsMatchingTheWholeDocument() {
+        for (String document : documents) {
+            byte[] bytes = document.getBytes(UTF_8);
+            Verdict expected = matcher.matches(document) ? Verdict.MATCH : Verdict.MISMATCH;
+            for (int chunkSize : new int[]{1, 3, 7, bytes.length}) {
+                IncrementalMatcher incremental = new IncrementalMatcher(matcher);
+                for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+                    incremental.feed(bytes, offset, Math.min(chunkSize, bytes.length - offset));
+                }
+                assertEquals(document + " in chunks of " + chunkSize, expected, incremental.endOfInput());
+            }
+        }
+    }
+
+    @Test
+    public void reportsAMismatchBeforeTheEndOfTheDocument() {
+        IncrementalMatcher incremental = new IncrementalMatcher(matcher);
+        assertEquals(Verdict.PENDING, incremental.feed("{\"id\":7,\"name\":\"ä/~".getBytes(UTF_8)));
+        assertEquals(Verdict.MISMATCH, incremental.feed("c\",\"strict\":".getBytes(UTF_8)));
+        assertEquals("/name", incremental.getMismatchPath());
+        // the rest is ignored, even if it isn't JSON
+        assertEquals(Verdict.MISMATCH, incremental.feed("]]]".getBytes(UTF_8)));
+        assertEquals(Verdict.MISMATCH, incremental.endOfInput());
+    }
+
+    @Test
+    public void pointsToTheMismatch() {
+        assertEquals("/strict/b", mismatchPath(documents.get(3)));
+        assertEquals("/strict/a", mismatchPath(documents.get(4)));
+        assertEquals("/items/1", mismatchPath(documents.get(5)));
+        assertEquals("/items/2", mismatchPath(documents.get(2)));
+        assertEquals("/id", mismatchPath(documents.get(7)));
+        assertEquals("/id", mismatchPath(documents.get(8)));
+        assertEquals("", mismatchPath(documents.get(9)));
+    }
+
+    @Test
+    public void matchesOnlyOnceTheDocumentIsComplete() {
+        IncrementalMatcher incremental = new IncrementalMatcher(eq(12));
+        assertEquals(Verdict.PENDING, incremental.feed("12".getBytes(UTF_8)));
+        assertEquals(Verdict.MATCH, incremental.endOfInput());
+        assertNull(incremental.getMismatchPath());
+
+        IncrementalMatcher object = new IncrementalMatcher(matcher);
+        assertEquals(Verdict.MATCH, object.feed(documents.get(0).getBytes(UTF_8)));
+    }
+
+    @Test
+    public void consumesByteBuffers() {
+        byte[] bytes = documents.get(1).getBytes(UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        IncrementalMatcher incremental = new IncrementalMatcher(matcher);
+        direct.limit(10);
+        assertEquals(Verdict.PENDING, incremental.feed(direct));
+        assertEquals(10, direct.position());
+        direct.limit(bytes.length);
+        assertEquals(Verdict.MATCH, incremental.feed(direct));
+        assertEquals(bytes.length, direct.position());
+
+        ByteBuffer heap = ByteBuffer.wrap(("  " + documents.get(3)).getBytes(UTF_8));
+        heap.position(2);
+        assertEquals(Verdict.MISMATCH, new IncrementalMatcher(matcher).feed(heap.slice()));
+    }
+
+    @Test
+    public void incompleteDocumentsFail() {
+        IncrementalMatcher incremental = new IncrementalMatcher(matcher);
+        incremental.feed("{\"id\":7".getBytes(UTF_8));
+        try {
+            incremental.endOfInput();
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals(Verdict.PENDING, incremental.getVerdict());
+        }
+    }
+
+    private String mismatchPath(String document) {
+        IncrementalMatcher incremental = new IncrementalMatcher(matcher);
+        incremental.feed(document.getBytes(UTF_8));
+        assertEquals(Verdict.MISMATCH, incremental.endOfInput());
+        return incremental.getMismatchPath();
+    }
+}
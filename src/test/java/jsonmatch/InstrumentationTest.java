@@ -0,0 +1,154 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static jsonmatch.JsonMatch.*;
+import static jsonmatch.Matcher.mapper;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InstrumentationTest {
+
+    private final Matcher matcher = object()
+        .with("name", eq("x"))
+        .with("a/b", eq(1))
+        .with("items", array().with(eq(1)).with(annotate(object().with("id", eq(2)).build(), "second")))
+        .build();
+
+    private final String matching = "{\"name\":\"x\",\"a/b\":1,\"items\":[1,{\"id\":2}]}";
+    private final String failing = "{\"name\":\"y\",\"a/b\":1,\"items\":[1,{\"id\":3}]}";
+
+    @Test
+    public void noopListenerLeavesTheMatcherAlone() {
+        assertSame(matcher, InstrumentedMatcher.instrument(matcher, MatchListener.NOOP));
+    }
+
+    @Test
+    public void reportsEveryValueOnceOnEnterAndExit() {
+        List<String> events = new ArrayList<>();
+        Matcher instrumented = InstrumentedMatcher.instrument(matcher, new MatchListener() {
+            @Override
+            public void onEnter(String path, Class<? extends Matcher> matcherType) {
+                events.add("> " + path);
+            }
+
+            @Override
+            public void onExit(String path, Class<? extends Matcher> matcherType, boolean matched, long elapsedNanos) {
+                assertTrue(elapsedNanos >= 0);
+                events.add("< " + path + " " + matcherType.getSimpleName() + " " + matched);
+            }
+        });
+
+        instrumented.match(failing);
+
+        assertEquals(asList(
+            "> ",
+            "> /name", "< /name StringMatcher false",
+            "> /a~1b", "< /a~1b NumberMatcher true",
+            "> /items",
+            "> /items/0", "< /items/0 NumberMatcher true",
+            "> /items/1",
+            "> /items/1/id", "< /items/1/id NumberMatcher false",
+            "< /items/1 ObjectMatcher false",
+            "< /items ArrayMatcher false",
+            "<  ObjectMatcher false"), events);
+    }
+
+    @Test
+    public void exitsEveryValueItEnteredWhenMatchingThrows() {
+        List<String> events = new ArrayList<>();
+        Matcher instrumented = InstrumentedMatcher.instrument(matcher, new MatchListener() {
+            @Override
+            public void onEnter(String path, Class<? extends Matcher> matcherType) {
+                events.add("> " + path);
+            }
+
+            @Override
+            public void onExit(String path, Class<? extends Matcher> matcherType, boolean matched, long elapsedNanos) {
+                events.add("< " + path + " " + matched);
+            }
+        });
+
+        for (String invalid : asList("{\"name\":\"x\",\"a/b\": ]", "{\"name\":\"x\",\"a/b\":1,\"items\":[1,{\"id\":")) {
+            events.clear();
+            try {
+                instrumented.matches(invalid);
+                fail("matched " + invalid);
+            } catch (RuntimeException expected) {
+                // as expected
+            }
+            assertEquals(invalid, events.stream().filter(e -> e.startsWith(">")).count(), events.stream().filter(e -> e.startsWith("<")).count());
+            assertEquals(invalid, "<  false", events.get(events.size() - 1));
+        }
+    }
+
+    @Test
+    public void instrumentedMatchersGiveTheSameResults() {
+        Matcher instrumented = InstrumentedMatcher.instrument(matcher, new AggregatingMatchListener());
+        for (String document : asList(matching, failing, "[]", "{\"items\":[]}")) {
+            assertEquals(matcher.match(document).visualize(), instrumented.match(document).visualize());
+            assertEquals(matcher.matches(document), instrumented.matches(document));
+            assertEquals(matcher.match(document).visualize(), instrumented.match(document.getBytes()).visualize());
+        }
+    }
+
+    @Test
+    public void reportsValuesReadThroughNodeAccess() throws IOException {
+        List<String> fromJson = new ArrayList<>();
+        List<String> fromValue = new ArrayList<>();
+        Map<String, Object> value = mapper.readValue(failing, new TypeReference<Map<String, Object>>() {});
+
+        InstrumentedMatcher.instrument(matcher, recordingPaths(fromJson)).match(failing);
+        InstrumentedMatcher.instrument(matcher, recordingPaths(fromValue)).match(value, ValueAccess.INSTANCE);
+        assertEquals(fromJson, fromValue);
+
+        fromValue.clear();
+        assertFalse(InstrumentedMatcher.instrument(matcher, recordingPaths(fromValue)).matchesValue(value));
+        assertEquals(asList("/name", ""), fromValue);
+    }
+
+    private static MatchListener recordingPaths(List<String> paths) {
+        return new MatchListener() {
+            @Override
+            public void onExit(String path, Class<? extends Matcher> matcherType, boolean matched, long elapsedNanos) {
+                paths.add(path);
+            }
+        };
+    }
+
+    @Test
+    public void aggregatesCallsAndFailuresPerPath() {
+        AggregatingMatchListener listener = new AggregatingMatchListener();
+        Matcher instrumented = InstrumentedMatcher.instrument(matcher, listener);
+        for (int i = 0; i < 3; i++) {
+            instrumented.match(failing);
+            instrumented.match(matching);
+        }
+        instrumented.match("{\"name\":\"y\"}");
+
+        List<PathStatistics> failures = listener.topFailurePaths(3);
+        assertEquals(asList("", "/name", "/items"), failures.stream().map(PathStatistics::getPath).collect(Collectors.toList()));
+        assertEquals(4, failures.get(1).getFailures());
+        assertEquals(7, failures.get(1).getCalls());
+        assertSame(StringMatcher.class, failures.get(1).getMatcherType());
+
+        List<PathStatistics> hot = listener.hotPaths(1);
+        assertEquals("", hot.get(0).getPath());
+        assertTrue(hot.get(0).getTotalNanos() > 0);
+
+        assertFalse(listener.getStatistics().isEmpty());
+        listener.reset();
+        assertTrue(listener.hotPaths(10).isEmpty());
+    }
+}
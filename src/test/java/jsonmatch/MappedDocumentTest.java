@@ -0,0 +1,165 @@
+package jsonmatch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static jsonmatch.JsonMatch.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MappedDocumentTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static final Matcher SNAPSHOT = object()
+        .with("id", eq("snapshot-ü"))
+        .with("version", eq(3))
+        .with("size", eq(5_000_000_000L))
+        .with("ratio", eq(0.5))
+        .with("note", eq("a \"b\"\n"))
+        .with("owner", object().ignoreExtraFields(false).with("name", eq("Ada")).with("active", eq(true)).with("team", isNull()).build())
+        .with("items", array().with(eq(1)).with(array().build()).with(object().build()).build())
+        .build();
+
+    private static final String SNAPSHOT_JSON = " {\"id\":\"snapshot-ü\", \"skipped\": {\"a\":[1,\"]}\",{\"b\":\"\\\"{\"}]}, \"version\" : 3," +
+        "\"size\":5000000000,\"ratio\":5e-1,\"note\":\"a \\\"b\\\"\\n\",\n\"owner\":{\"name\":\"Ada\",\"active\":true,\"team\":null}," +
+        "\"items\":[1,[ ],{ },\"more\"]}\n";
+
+    @Test
+    public void givesTheVerdictsAndResultsOfTheParsedDocument() throws IOException {
+        for (String json : asList(
+            SNAPSHOT_JSON,
+            SNAPSHOT_JSON.replace("\"version\" : 3", "\"version\" : 3.0"),
+            SNAPSHOT_JSON.replace("5000000000", "5000000001"),
+            SNAPSHOT_JSON.replace("5e-1", "0.25"),
+            SNAPSHOT_JSON.replace("snapshot-ü", "snapshot-u"),
+            SNAPSHOT_JSON.replace("\"team\":null", "\"team\":null,\"x\":1"),
+            SNAPSHOT_JSON.replace("\"active\":true", "\"active\":false"),
+            SNAPSHOT_JSON.replace("[1,[ ],", "[1,"),
+            SNAPSHOT_JSON.replace("\"owner\"", "\"owners\""),
+            "[1]",
+            "null")) {
+            // regions of 8 bytes, so values cross their boundaries
+            MappedDocument document = new MappedDocument(write(json), 3);
+            assertEquals(json, SNAPSHOT.matches(json), document.matches(SNAPSHOT));
+            assertEquals(json, SNAPSHOT.match(json).visualize(), document.match(SNAPSHOT).visualize());
+        }
+    }
+
+    @Test
+    public void findsEntriesBeyondTheIndexedOnes() throws IOException {
+        Path path = folder.newFile("wide.json").toPath();
+        try (Writer out = Files.newBufferedWriter(path, UTF_8)) {
+            out.write("{\"values\":[");
+            for (int i = 0; i < 5000; i++) {
+                out.write((i == 0 ? "" : ",") + "{\"n\":" + i + "}");
+            }
+            out.write("]");
+            for (int i = 0; i < 5000; i++) {
+                out.write(",\"field" + i + "\":" + i);
+            }
+            out.write(",\"f\\u0069eld\":-1,\"field1\":-1,\"field2000\":-1}");
+        }
+        MappedDocument document = MappedDocument.open(path);
+        assertEquals(5004, document.size(document.root()));
+        assertTrue(document.matches(object().with("field4999", eq(4999)).with("field0", eq(0)).with("field", eq(-1)).build()));
+        assertTrue(document.matches(object().with("field1", eq(-1)).with("field2000", eq(-1)).with("field3000", eq(3000)).build()));
+        assertFalse(document.matches(object().with("field5000", eq(5000)).build()));
+
+        Long values = document.field(document.root(), "values");
+        assertEquals(5000, document.size(values));
+        assertTrue(document.matches(object().with("values", array().with(object().with("n", eq(0)).build()).build()).build()));
+        assertEquals((Integer) 4321, document.numberValue(document.field(document.element(values, 4321), "n")));
+        assertEquals(null, document.element(values, 5000));
+    }
+
+    @Test
+    public void heapUseDoesNotGrowWithTheSizeOfValues() throws IOException {
+        assertAllocatesAlike(wide(2_000, 0), wide(2_000, 200), 1024);
+    }
+
+    @Test
+    public void heapUseGrowsByAFewBytesAFieldOfWideObjects() throws IOException {
+        // the hashes of keys and the checkpoints beyond the indexed ones, with the room arrays grow by
+        assertAllocatesAlike(wide(2_000, 0), wide(20_000, 0), 8 * 18_000);
+    }
+
+    private static void assertAllocatesAlike(Path small, Path large, long leeway) {
+        Matcher last = object().with("last", array().with(object().with("n", eq(1)).build()).build()).build();
+        Runnable matchSmall = () -> assertTrue(MappedDocument.open(small).matches(last));
+        Runnable matchLarge = () -> assertTrue(MappedDocument.open(large).matches(last));
+        for (int i = 0; i < 50; i++) {
+            matchSmall.run();
+            matchLarge.run();
+        }
+
+        long smallBytes = Measurements.allocatedBytes(20, matchSmall);
+        long largeBytes = Measurements.allocatedBytes(20, matchLarge);
+        assertTrue("allocated " + largeBytes + " bytes for the large document, " + smallBytes + " for the small one",
+            largeBytes < smallBytes + leeway);
+    }
+
+    @Test
+    public void lookupsReadNoMoreOfWiderObjects() throws IOException {
+        long[] read = new long[3];
+        for (int i = 0; i < read.length; i++) {
+            int width = 8_000 << i;
+            Path path = folder.newFile().toPath();
+            try (Writer out = Files.newBufferedWriter(path, UTF_8)) {
+                out.write("{\"values\":[");
+                for (int n = 0; n < width; n++) {
+                    out.write((n == 0 ? "" : ",") + n);
+                }
+                out.write("]");
+                for (int n = 0; n < width; n++) {
+                    out.write(",\"field" + n + "\":" + n);
+                }
+                out.write("}");
+            }
+            MappedDocument document = MappedDocument.open(path);
+            Long values = document.field(document.root(), "values");
+            assertEquals(width, document.size(values));
+            document.bytesRead = 0;
+            for (int n = width / 16 - 1; n < width; n += width / 16) {
+                assertEquals((Integer) n, document.numberValue(document.field(document.root(), "field" + n)));
+                assertEquals((Integer) n, document.numberValue(document.element(values, n)));
+            }
+            assertFalse(document.hasField(document.root(), "missing"));
+            read[i] = document.bytesRead;
+        }
+        for (int i = 1; i < read.length; i++) {
+            // scanning past the indexed entries would read about twice as much
+            assertTrue("read " + Arrays.toString(read) + " bytes", read[i] * 2 < read[i - 1] * 3);
+        }
+    }
+
+    /** An object of nested containers, with the field a matcher looks for well beyond the indexed ones. */
+    private Path wide(int fields, int padding) throws IOException {
+        String pad = new String(new char[padding]).replace('\0', 'x');
+        Path path = folder.newFile().toPath();
+        try (Writer out = Files.newBufferedWriter(path, UTF_8)) {
+            out.write("{");
+            for (int i = 0; i < fields; i++) {
+                out.write("\"field" + i + "\":{\"a\":[" + i + ",{\"b\":\"]" + pad + "\"}]},");
+            }
+            out.write("\"last\":[{\"n\":1}]}");
+        }
+        return path;
+    }
+
+    private Path write(String json) throws IOException {
+        Path path = folder.newFile().toPath();
+        Files.write(path, json.getBytes(UTF_8));
+        return path;
+    }
+}
@@ -0,0 +1,138 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static jsonmatch.JsonMatch.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MatcherCodeGeneratorTest {
+
+    private final List<Matcher> matchers = Arrays.asList(
+        object()
+            .with("a", eq("x \"quoted\"\n"))
+            .with("b", annotate(object().with("c", eq(12)).with("d", isNull()).build(), "nested"))
+            .with("e", array().with(eq(true)).with(object().ignoreExtraFields(false).with("f", eq(1.5)).build()).build())
+            .build(),
+        object().ignoreExtraFields(false).with("l", eq(12345678901L)).with("big", eq(new BigDecimal("1.50"))).build()
+    );
+
+    private final List<String> documents = Arrays.asList(
+        "{\"a\":\"x \\\"quoted\\\"\\n\",\"b\":{\"c\":12,\"d\":null},\"e\":[true,{\"f\":1.5}]}",
+        "{\"a\":\"x \\\"quoted\\\"\\n\",\"b\":{\"c\":12,\"d\":null},\"e\":[true,{\"f\":1.5,\"g\":1}]}",
+        "{\"a\":\"x\",\"b\":{\"c\":12,\"d\":null},\"e\":[true,{\"f\":1.5}]}",
+        "{\"a\":\"x \\\"quoted\\\"\\n\",\"b\":{\"c\":12.0,\"d\":null},\"e\":[true]}",
+        "{\"l\":12345678901,\"big\":1.50}",
+        "{\"l\":12345678901,\"big\":1.5,\"x\":1}",
+        "[]"
+    );
+
+    @Test
+    public void generatedMatchersAgreeWithTheirSource() throws IOException {
+        for (Matcher matcher : matchers) {
+            Matcher generated = MatcherCodeGenerator.generate(matcher);
+            assertTrue(generated instanceof GeneratedMatcher);
+            for (String document : documents) {
+                JsonNode node = Matcher.mapper.readValue(document, JsonNode.class);
+                assertEquals(document, matcher.matches(node), generated.matches(node));
+                assertEquals(document, matcher.match(node).visualize(), generated.match(node).visualize());
+                assertEquals(document, matcher.matches(document), generated.matches(document));
+                assertEquals(document, matcher.match(document).isMatch(), generated.match(document).isMatch());
+                assertEquals(document, matcher.match(document).visualize(), generated.match(document).visualize());
+            }
+        }
+    }
+
+    @Test
+    public void leavesTheParserOnTheLastTokenOfAMatchingValue() throws IOException {
+        Matcher generated = MatcherCodeGenerator.generate(object()
+            .with("a", array().with(eq(1)).build())
+            .with("b", object().with("c", isNull()).build())
+            .build());
+
+        try (JsonParser parser = Matcher.mapper.createParser("[{\"x\":{\"y\":[1]},\"a\":[1,{\"z\":2}],\"b\":{\"c\":null}},7]")) {
+            parser.nextToken();
+            parser.nextToken();
+            assertTrue(generated.matches(parser));
+            assertEquals(JsonToken.END_OBJECT, parser.currentToken());
+            assertEquals(JsonToken.VALUE_NUMBER_INT, parser.nextToken());
+        }
+    }
+
+    @Test
+    public void generatedMatchersAgreeOnLargeTrees() throws IOException {
+        ObjectMatcher.Builder wide = object().ignoreExtraFields(false);
+        ArrayMatcher.Builder items = array();
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < 300; i++) {
+            wide.with("field" + i, eq(i));
+            items.with(object().with("id", eq(i)).with("tags", array().with(eq("a")).with(eq(i % 2 == 0)).build()).build());
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"tags\":[\"a\",").append(i % 2 == 0).append(",null]}");
+        }
+        json.append("],\"wide\":{");
+        for (int i = 0; i < 300; i++) {
+            json.append(i == 0 ? "" : ",").append("\"field").append(i).append("\":").append(i);
+        }
+        String matching = json.append("}}").toString();
+        Matcher matcher = object().with("items", items.build()).with("wide", wide.build()).build();
+        Matcher generated = MatcherCodeGenerator.generate(matcher);
+
+        List<String> documents = Arrays.asList(
+            matching,
+            matching.replace("\"id\":299", "\"id\":-1"),
+            matching.replace("\"field299\":299", "\"field299\":-1"),
+            matching.replace("\"field150\":150,", ""),
+            matching.replace(",null]}]", "]},{}]"),
+            matching.replace("\"tags\":[\"a\",true,null]}]", "\"tags\":[\"a\"]}]"));
+        for (String document : documents) {
+            JsonNode node = Matcher.mapper.readTree(document);
+            assertEquals(matcher.matches(node), generated.matches(node));
+            assertEquals(matcher.matches(document), generated.matches(document));
+        }
+        assertTrue(generated.matches(matching));
+    }
+
+    @Test
+    public void fallsBackToTheMatcherItselfIfNoClassCanBeGenerated() {
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 70_000; i++) {
+            expected.append('x');
+        }
+        // string constants of a class are limited to 65535 bytes
+        Matcher matcher = object().with("a", eq(expected.toString())).build();
+        assertSame(matcher, MatcherCodeGenerator.generate(matcher));
+        try {
+            MatcherCodeGenerator.generate(matcher, true);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // as expected
+        }
+    }
+
+    @Test
+    public void generatedClassesCanBeUnloaded() throws InterruptedException {
+        Matcher generated = MatcherCodeGenerator.generate(matchers.get(0), true);
+        assertNotSame(generated.getClass().getClassLoader(), MatcherCodeGenerator.generate(matchers.get(1), true).getClass().getClassLoader());
+
+        WeakReference<Class<?>> generatedClass = new WeakReference<>(generated.getClass());
+        generated = null;
+        for (int i = 0; i < 20 && generatedClass.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(generatedClass.get());
+    }
+}
@@ -0,0 +1,67 @@
+package jsonmatch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static jsonmatch.JsonMatch.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MatcherInputsTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final Matcher matcher = object()
+        .with("name", eq("Grüße"))
+        .with("values", array().with(eq(1)).with(eq(3)).build())
+        .build();
+
+    private final String json = "{\"name\":\"Grüße\",\"values\":[1,2],\"padding\":\"\"}";
+
+    @Test
+    public void bytesBuffersAndStreams() {
+        String expected = matcher.match(json).visualize();
+        byte[] bytes = json.getBytes(UTF_8);
+        byte[] framed = ("xx" + json + "yy").getBytes(UTF_8);
+
+        assertEquals(expected, matcher.match(bytes).visualize());
+        assertEquals(expected, matcher.match(framed, 2, bytes.length).visualize());
+        assertEquals(expected, matcher.match(new ByteArrayInputStream(bytes)).visualize());
+
+        ByteBuffer heap = ByteBuffer.wrap(framed, 2, bytes.length).slice();
+        assertEquals(expected, matcher.match(heap).visualize());
+        assertEquals(0, heap.position());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        assertEquals(expected, matcher.match(direct).visualize());
+        assertEquals(0, direct.position());
+    }
+
+    @Test
+    public void smallAndMemoryMappedFiles() throws IOException {
+        Path small = folder.newFile("small.json").toPath();
+        Files.write(small, json.getBytes(UTF_8));
+        assertEquals(matcher.match(json).visualize(), matcher.match(small).visualize());
+
+        StringBuilder padding = new StringBuilder();
+        while (padding.length() < JsonInput.MAPPING_THRESHOLD) {
+            padding.append("0123456789abcdef");
+        }
+        String large = json.replace("\"padding\":\"\"", "\"padding\":\"" + padding + "\"");
+        Path mapped = folder.newFile("large.json").toPath();
+        Files.write(mapped, large.getBytes(UTF_8));
+        assertTrue(Files.size(mapped) >= JsonInput.MAPPING_THRESHOLD);
+        assertEquals(matcher.match(large).isMatch(), matcher.match(mapped).isMatch());
+        assertTrue(object().with("name", eq("Grüße")).build().match(mapped).isMatch());
+    }
+}
@@ -0,0 +1,54 @@
+package jsonmatch;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static jsonmatch.JsonMatch.*;
+import static org.junit.Assert.assertEquals;
+
+public class MatcherSetTest {
+
+    private final List<Matcher> matchers = Arrays.asList(
+        object()
+            .with("a", eq("x"))
+            .with("b", annotate(object().with("c", eq(12)).build(), "nested"))
+            .build(),
+        object()
+            .elideIgnoredFieldValues(true)
+            .with("b", object().ignoreExtraFields(false).with("c", eq(12)).with("d", isNull()).build())
+            .with("e", array().with(eq(true)).with(object().with("f", eq(1.5)).build()).build())
+            .build(),
+        object()
+            .elideIgnoredFieldValues(true)
+            .probeExpectedFields(true)
+            .with("e", array().with(eq(true)).build())
+            .with("missing", eq("m"))
+            .build(),
+        annotate(object().ignoreExtraFields(false).with("a", eq("y")).build(), "strict"),
+        array().with(eq(1)).build(),
+        eq("just a string")
+    );
+
+    private final MatcherSet matcherSet = new MatcherSet(matchers);
+
+    @Test
+    public void sameResultsAsMatchingOneByOne() {
+        for (String document : Arrays.asList(
+            "{\"a\":\"x\",\"b\":{\"c\":12,\"d\":null},\"e\":[true,{\"f\":1.5}]}",
+            "{\"z\":{\"deep\":[1]},\"b\":{\"c\":\"12\",\"x\":1},\"e\":[false],\"a\":\"y\"}",
+            "{\"a\":[],\"b\":[],\"e\":{}}",
+            "[1,2,3]",
+            "\"just a string\""
+        )) {
+            List<Result> results = matcherSet.match(document);
+            assertEquals(matchers.size(), results.size());
+            for (int i = 0; i < matchers.size(); i++) {
+                Result expected = matchers.get(i).match(document);
+                assertEquals(document, expected.isMatch(), results.get(i).isMatch());
+                assertEquals(document, expected.visualize(), results.get(i).visualize());
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package jsonmatch;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import junit.framework.AssertionFailedError;
 import org.buildobjects.doctest.runtime.junit4.DocufierRule;
@@ -10,6 +12,7 @@ import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.StringWriter;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static jsonmatch.JsonMatch.*;
@@ -184,6 +187,33 @@ public class MatchingTest {
         assertTrue(result.isMatch());
     }
 
+    /**
+     * For very wide objects it can be cheaper to only look up the expected
+     * fields. This requires ignoring and eliding extra fields; the other
+     * fields are then only counted:
+     */
+    @Test
+    public void simpleObjectMatchProbeExpectedFields() {
+        Matcher matcher = object()
+            .ignoreExtraFields(true)
+            .elideIgnoredFieldValues(true)
+            .probeExpectedFields(true)
+            .with("a", eq("x"))
+            .with("b", eq("y"))
+            .build();
+
+        Result result = matcher.match(doc.tap("{\"z\": 12, \"b\":\"y\", \"y\": [1, 2], \"a\":\"x\"}", this::prettyJson));
+
+        assertEquals(doc.tap("{\n" +
+            "    \"a\": \u001B[32m\"x\"\u001B[0m,\n" +
+            "    \"b\": \u001B[32m\"y\"\u001B[0m,\n" +
+            "    \u001B[90m… 2 ignored fields\u001B[0m\n" +
+            "}" +
+            "\n", this::prettyAnsi), result.visualize());
+
+        assertTrue(result.isMatch());
+    }
+
     /**
      * If the matcher is configured not to ignore extra fields
      * it will fail as follows:
@@ -414,6 +444,67 @@ public class MatchingTest {
         );
     }
 
+    /**
+     * The visualisation shows the whole document, which is too much for big
+     * documents, e.g. in logs. A `MismatchReport` only lists what failed, with
+     * a [JSON Pointer](https://tools.ietf.org/html/rfc6901) to each mismatch.
+     * Its size is bounded: by default it lists at most 50 mismatches in at
+     * most 8192 characters and cuts off values after 100 characters. All three
+     * limits can be set on `MismatchReport.builder()`.
+     */
+    @Test
+    public void mismatchReport() {
+        Matcher matcher = object()
+            .ignoreExtraFields(false)
+            .with("a", eq("x"))
+            .with("b", object()
+                .with("c", eq("y"))
+                .with("d", eq("z"))
+                .with("e", eq(true))
+                .build()
+            )
+            .with("f", array().with(eq(1)).with(eq(2)))
+            .build();
+
+        Result result = matcher.match(doc.tap("{\"a\":null,\"b\":{\"c\": \"y\", \"d\": \"42\"},\"f\":[1,3],\"g\":{\"h\":1}}", this::prettyJson));
+
+        assertEquals(doc.tap(
+            "/a expected <String> but was null\n" +
+                "/b/d expected \"z\" but was \"42\"\n" +
+                "/b/e is missing\n" +
+                "/f/1 expected 2 but was 3\n" +
+                "/g unexpected field {\"h\":1}\n", this::prettyAnsi),
+            MismatchReport.of(result)
+        );
+    }
+
+    /**
+     * For dashboards and other tools, results can also be written as JSON.
+     * They are streamed into a Jackson `JsonGenerator`:
+     */
+    @Test
+    public void jsonReport() throws IOException {
+        Matcher matcher = object()
+            .with("a", eq("x"))
+            .with("b", annotate(eq(42), "The answer."))
+            .build();
+
+        Result result = matcher.match(doc.tap("{\"a\":\"y\",\"b\":42,\"c\":true}", this::prettyJson));
+
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = new JsonFactory().createGenerator(json)) {
+            result.writeJson(generator);
+        }
+
+        assertEquals(doc.tap("{" +
+            "\"type\":\"object\",\"match\":false,\"fields\":[" +
+            "{\"name\":\"a\",\"result\":{\"type\":\"value\",\"match\":false,\"expected\":\"x\",\"actual\":\"y\"}}," +
+            "{\"name\":\"b\",\"result\":{\"type\":\"annotated\",\"match\":true,\"annotation\":\"The answer.\",\"result\":" +
+            "{\"type\":\"value\",\"match\":true,\"expected\":42,\"actual\":42}}}," +
+            "{\"name\":\"c\",\"result\":{\"type\":\"ignored\",\"match\":true,\"actual\":true}}" +
+            "]}", this::prettyJson), json.toString());
+    }
+
     /**
      * [NO-DOC]
      */
@@ -0,0 +1,30 @@
+package jsonmatch;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assume.assumeTrue;
+
+/** Allocation of running code on the current thread. */
+class Measurements {
+    private Measurements() {
+    }
+
+    /** Bytes allocated per run, averaged over {@code runs}. Skips the test if the JVM can't tell. */
+    static long allocatedBytes(int runs, Runnable operation) {
+        com.sun.management.ThreadMXBean threads = threads();
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < runs; i++) {
+            operation.run();
+        }
+        return (threads.getThreadAllocatedBytes(thread) - before) / runs;
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled());
+        return sunThreads;
+    }
+}
@@ -0,0 +1,75 @@
+package jsonmatch;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static jsonmatch.JsonMatch.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MismatchReportTest {
+
+    @Test
+    public void escapesFieldNamesInPaths() {
+        Result result = object().with("a/b", object().with("~c", eq(1))).build().match("{\"a/b\":{\"~c\":2}}");
+
+        assertEquals(Arrays.asList(new Mismatch("/a~1b/~0c", MismatchKind.WRONG_VALUE, "1", "2")), Mismatches.of(result));
+    }
+
+    @Test
+    public void reportsMismatchOfTheDocumentItself() {
+        assertEquals("(document) expected <Object> but was [1]\n", MismatchReport.of(object().build().match("[1]")));
+    }
+
+    @Test
+    public void seesThroughAnnotations() {
+        Result result = object().with("a", annotate(eq("x"), "note")).build().match("{\"a\":\"y\"}");
+
+        assertEquals("/a expected \"x\" but was \"y\"\n", MismatchReport.of(result));
+    }
+
+    @Test
+    public void emptyForMatches() {
+        assertEquals("", MismatchReport.of(object().with("a", eq("x")).build().match("{\"a\":\"x\",\"b\":[1,2]}")));
+    }
+
+    @Test
+    public void stopsAfterMaxEntries() {
+        Result result = array().with(eq(1)).with(eq(2)).with(eq(3)).build().match("[0,0,0]");
+
+        assertEquals(
+            "/0 expected 1 but was 0\n" +
+                "/1 expected 2 but was 0\n" +
+                MismatchReport.TRUNCATED,
+            MismatchReport.builder().maxEntries(2).build().render(result));
+    }
+
+    @Test
+    public void staysWithinMaxChars() {
+        ArrayMatcher.Builder matcher = array();
+        StringBuilder document = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            matcher.with(eq(i));
+            document.append(i == 0 ? "" : ",").append(-i);
+        }
+        Result result = matcher.build().match(document.append("]").toString());
+
+        String report = MismatchReport.builder().maxEntries(Integer.MAX_VALUE).maxChars(200).build().render(result);
+
+        assertTrue(report, report.length() <= 200);
+        assertTrue(report, report.endsWith(MismatchReport.TRUNCATED));
+        assertTrue(report, report.startsWith("/1 expected 1 but was -1\n"));
+    }
+
+    @Test
+    public void cutsOffLongValues() {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            value.append("x");
+        }
+        Result result = object().ignoreExtraFields(false).build().match("{\"big\":{\"value\":\"" + value + "\"}}");
+
+        assertEquals("/big unexpected field {\"value\":\"xxxxx…\n", MismatchReport.builder().maxValueLength(15).build().render(result));
+    }
+}
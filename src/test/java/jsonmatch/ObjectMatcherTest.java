@@ -0,0 +1,37 @@
+package jsonmatch;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+
+import static java.util.Arrays.asList;
+import static jsonmatch.JsonMatch.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ObjectMatcherTest {
+
+    @Test
+    public void fieldMatchersCantBeChangedAfterConstruction() {
+        LinkedHashMap<String, Matcher> fieldMatchers = new LinkedHashMap<>();
+        fieldMatchers.put("a", eq(1));
+        fieldMatchers.put("b", eq(2));
+        ObjectMatcher matcher = new ObjectMatcher(fieldMatchers, true, false);
+
+        fieldMatchers.remove("a");
+        fieldMatchers.put("c", eq(3));
+        assertEquals(asList("a", "b"), asList(matcher.getExpectedFields().keySet().toArray()));
+        assertTrue(matcher.matches("{\"a\":1,\"b\":2}"));
+        assertFalse(matcher.matches("{\"b\":2,\"c\":3}"));
+
+        try {
+            matcher.getExpectedFields().put("c", eq(3));
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+        matcher.getFieldMatchers().put("c", eq(3));
+        assertTrue(matcher.matches("{\"a\":1,\"b\":2}"));
+    }
+}
@@ -0,0 +1,105 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static jsonmatch.JsonMatch.*;
+import static jsonmatch.Matcher.mapper;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelArrayMatcherTest {
+    private static final int SIZE = 20_000;
+
+    private final ArrayMatcher.Builder sequential = array();
+    private final ArrayMatcher.Builder parallel = array().parallel(1000);
+
+    {
+        for (int i = 0; i < SIZE; i++) {
+            Matcher element = object().with("id", eq(i)).with("name", eq("item " + i)).build();
+            sequential.with(element);
+            parallel.with(element);
+        }
+    }
+
+    @Test
+    public void sameResultsInElementOrder() {
+        JsonNode document = document(-1);
+        Result expected = sequential.build().match(document);
+        Result actual = parallel.build().match(document);
+
+        assertTrue(actual.isMatch());
+        assertEquals(expected.visualize(), actual.visualize());
+    }
+
+    @Test
+    public void mismatchesAreFoundWhereverTheyAre() {
+        for (int broken : new int[]{0, SIZE / 3, SIZE - 1}) {
+            JsonNode document = document(broken);
+            assertFalse(parallel.build().matches(document));
+            assertEquals(sequential.build().match(document).visualize(), parallel.build().match(document).visualize());
+        }
+        assertTrue(parallel.build().matches(document(-1)));
+    }
+
+    @Test
+    public void tooShortArrays() {
+        ArrayNode document = (ArrayNode) document(-1);
+        document.remove(SIZE - 1);
+        assertFalse(parallel.build().matches(document));
+        assertFalse(parallel.build().match(document).isMatch());
+    }
+
+    @Test
+    public void textIsMatchedInParallelToo() {
+        for (int broken : new int[]{-1, SIZE / 3}) {
+            String document = document(broken).toString();
+            assertEquals(broken < 0, parallel.build().matches(document));
+            assertEquals(sequential.build().match(document).visualize(), parallel.build().match(document).visualize());
+            assertEquals(sequential.build().match(document).visualize(), parallel.build().match(document.getBytes()).visualize());
+        }
+    }
+
+    @Test
+    public void aMismatchCancelsTheOtherElements() {
+        AtomicInteger calls = new AtomicInteger();
+        ArrayMatcher.Builder counted = array().parallel(1000);
+        for (int i = 0; i < SIZE; i++) {
+            counted.with(new CountingMatcher(object().with("name", eq("item " + i)).build(), calls));
+        }
+        ArrayNode document = (ArrayNode) document(-1);
+        for (int i = SIZE / 2; i < SIZE; i++) {
+            ((ObjectNode) document.get(i)).put("name", "broken");
+        }
+        // the streaming verdict would look at the whole first half, the task splitting the array starts on the second one
+        assertFalse(counted.build().matches(document.toString()));
+        assertTrue("matched " + calls.get() + " elements", calls.get() < SIZE / 4);
+    }
+
+    @Test
+    public void changingTheListOfElementMatchersLaterChangesNothing() {
+        List<Matcher> elementMatchers = new ArrayList<>(asList(eq(1), eq(2)));
+        ArrayMatcher matcher = new ArrayMatcher(elementMatchers, 1);
+        elementMatchers.add(eq(3));
+        assertEquals(2, matcher.getElementMatchers().size());
+        assertTrue(matcher.matches("[1,2]"));
+        assertTrue(matcher.match(mapper.createArrayNode().add(1).add(2)).isMatch());
+    }
+
+    private static JsonNode document(int broken) {
+        ArrayNode array = JsonNodeFactory.instance.arrayNode();
+        for (int i = 0; i < SIZE; i++) {
+            array.addObject().put("id", i).put("name", i == broken ? "broken" : "item " + i);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,107 @@
+package jsonmatch;
+
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static jsonmatch.JsonMatch.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ProjectedMatcherTest {
+
+    private final Matcher matcher = object()
+        .with("id", eq(7))
+        .with("empty", object().with("a", eq(1)).build())
+        .with("strict", object().ignoreExtraFields(false).with("a", eq(1)).build())
+        .with("items", array().with(object().with("sku", eq("x")).build()).with(annotate(eq("y"), "second")).build())
+        .with("shape", object().with("kind", eq("circle")).build())
+        .build();
+
+    @Test
+    public void sameVerdictsAndMismatchesAsAFullParse() {
+        Matcher projected = projected(matcher);
+        for (String document : asList(
+            "{\"id\":7,\"empty\":{\"a\":1},\"strict\":{\"a\":1},\"items\":[{\"sku\":\"x\"},\"y\"],\"shape\":{\"kind\":\"circle\"}}",
+            "{\"id\":7,\"noise\":{\"big\":[1,2,3]},\"empty\":{\"a\":1,\"b\":{}},\"strict\":{\"a\":1},\"items\":[{\"sku\":\"x\",\"n\":[]},\"y\",{},3],\"shape\":{\"kind\":\"circle\"}}",
+            "{\"id\":\"7\",\"empty\":{},\"strict\":{\"a\":2,\"b\":[1]},\"items\":[[1,2]],\"shape\":[{\"kind\":\"circle\"}]}",
+            "{\"empty\":{\"b\":1},\"strict\":{},\"items\":{\"sku\":\"x\"},\"shape\":\"circle\"}",
+            "[1,{\"id\":7}]",
+            "\"text\"")) {
+            Result full = matcher.match(document);
+            Result result = projected.match(document);
+            assertEquals(document, full.isMatch(), result.isMatch());
+            assertEquals(document, full.isMatch(), projected.matches(document));
+            assertEquals(document, Mismatches.of(full), Mismatches.of(result));
+            assertEquals(document, Mismatches.of(full), Mismatches.of(projected.match(document.getBytes())));
+        }
+    }
+
+    @Test
+    public void leavesOutIgnoredFields() {
+        Matcher projected = projected(object().with("a", eq(1)).with("b", array().with(eq(2)).build()).build());
+        Result result = projected.match("{\"x\":{\"y\":[1,2,3]},\"a\":1,\"b\":[2,3,4],\"z\":null}");
+        assertTrue(result.isMatch());
+        assertEquals(JsonReport.stripAnsi(object().with("a", eq(1)).with("b", array().with(eq(2)).build()).build().match("{\"a\":1,\"b\":[2]}").visualize()),
+            JsonReport.stripAnsi(result.visualize()));
+    }
+
+    @Test
+    public void keepsCountingAndListingElidedFields() {
+        String document = "{\"x\":{\"y\":[1,2,3]},\"a\":1,\"z\":null,\"b\":{\"c\":2,\"d\":[4]}}";
+        for (Matcher elided : asList(
+            object().elideIgnoredFieldValues(true).probeExpectedFields(true).with("a", eq(1))
+                .with("b", object().elideIgnoredFieldValues(true).probeExpectedFields(true).with("c", eq(2)).build()).build(),
+            object().elideIgnoredFieldValues(true).with("a", eq(2))
+                .with("b", object().elideIgnoredFieldValues(true).with("c", eq(2)).build()).build())) {
+            Result full = elided.match(document);
+            Result projected = projected(elided).match(document);
+            assertEquals(full.isMatch(), projected.isMatch());
+            assertEquals(full.visualize(), projected.visualize());
+        }
+    }
+
+    @Test
+    public void projectsOnlyOnce() {
+        Matcher projected = projected(matcher);
+        assertSame(projected, projected(projected));
+    }
+
+    @Test
+    public void matchingDocumentsAllocateNoMoreThanWithoutProjection() {
+        String json = "{\"id\":7,\"noise\":{\"big\":[1,2,3]},\"empty\":{\"a\":1},\"strict\":{\"a\":1},\"items\":[{\"sku\":\"x\"},\"y\",{}],\"shape\":{\"kind\":\"circle\"}}";
+        Matcher projected = projected(matcher);
+        assertTrue(projected.match(json).isMatch());
+
+        for (int i = 0; i < 2000; i++) {
+            matcher.match(json);
+            projected.match(json);
+        }
+        long plain = Measurements.allocatedBytes(200, () -> matcher.match(json));
+        long pruned = Measurements.allocatedBytes(200, () -> projected.match(json));
+        assertTrue("projected match allocates " + pruned + " bytes, the plain one " + plain, pruned <= plain + 64);
+    }
+
+    @Test
+    public void allocatesLessForWideMismatchingDocumentsWithFewExpectedFields() {
+        StringBuilder document = new StringBuilder("{");
+        for (int i = 0; i < 500; i++) {
+            document.append("\"field").append(i).append("\":{\"value\":").append(i).append(",\"tags\":[\"a\",\"b\"]},");
+        }
+        document.append("\"id\":7}");
+        String json = document.toString();
+        // a match only needs the verdict, a mismatch is worked out in detail with all ignored values
+        Matcher few = object().with("id", eq(8)).with("field3", object().with("value", eq(3)).build()).build();
+        Matcher projected = projected(few);
+        assertFalse(projected.match(json).isMatch());
+
+        for (int i = 0; i < 200; i++) {
+            few.match(json);
+            projected.match(json);
+        }
+        long full = Measurements.allocatedBytes(20, () -> few.match(json));
+        long pruned = Measurements.allocatedBytes(20, () -> projected.match(json));
+        assertTrue("projected match allocates " + pruned + " bytes, the full one " + full, pruned * 2 < full);
+    }
+}
@@ -0,0 +1,78 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static jsonmatch.JsonMatch.*;
+import static jsonmatch.Matcher.mapper;
+import static org.junit.Assert.assertEquals;
+
+public class ResultJsonTest {
+
+    @Test
+    public void writesEveryKindOfResult() throws IOException {
+        Matcher matcher = object()
+            .ignoreExtraFields(false)
+            .with("string", eq("x"))
+            .with("number", eq(1.5))
+            .with("null", isNull())
+            .with("wrongType", eq(true))
+            .with("missing", eq("m"))
+            .with("array", array().with(eq(1)).with(eq(2)))
+            .build();
+
+        JsonNode json = writeJson(matcher.match("{\"string\":\"x\",\"number\":2,\"null\":null,\"wrongType\":[1],\"array\":[1],\"extra\":{\"deep\":[]}}"));
+
+        assertEquals(mapper.readTree("{\"type\":\"object\",\"match\":false,\"fields\":[" +
+            "{\"name\":\"string\",\"result\":{\"type\":\"value\",\"match\":true,\"expected\":\"x\",\"actual\":\"x\"}}," +
+            "{\"name\":\"number\",\"result\":{\"type\":\"value\",\"match\":false,\"expected\":1.5,\"actual\":2}}," +
+            "{\"name\":\"null\",\"result\":{\"type\":\"value\",\"match\":true,\"expected\":null,\"actual\":null}}," +
+            "{\"name\":\"wrongType\",\"result\":{\"type\":\"wrongType\",\"match\":false,\"expectedType\":\"Boolean\",\"actualType\":\"Array\",\"actual\":[1]}}," +
+            "{\"name\":\"array\",\"result\":{\"type\":\"array\",\"match\":false,\"elements\":[" +
+            "{\"type\":\"value\",\"match\":true,\"expected\":1,\"actual\":1}," +
+            "{\"type\":\"missing\",\"match\":false}]}}," +
+            "{\"name\":\"extra\",\"result\":{\"type\":\"extra\",\"match\":false,\"actual\":{\"deep\":[]}}}," +
+            "{\"name\":\"missing\",\"result\":{\"type\":\"missing\",\"match\":false}}" +
+            "]}"), json);
+    }
+
+    @Test
+    public void writesElidedFields() throws IOException {
+        Matcher matcher = object().elideIgnoredFieldValues(true).probeExpectedFields(true).with("a", eq(1)).build();
+
+        assertEquals(
+            mapper.readTree("{\"type\":\"object\",\"match\":true,\"fields\":[" +
+                "{\"name\":\"a\",\"result\":{\"type\":\"value\",\"match\":true,\"expected\":1,\"actual\":1}}]," +
+                "\"elided\":2}"),
+            writeJson(matcher.match("{\"b\":2,\"a\":1,\"c\":3}")));
+    }
+
+    @Test
+    public void writesCustomResultsAsText() throws IOException {
+        Matcher custom = parsed -> new Result() {
+            @Override
+            public boolean isMatch() {
+                return false;
+            }
+
+            @Override
+            public String visualize() {
+                return "\u001B[31mnope\u001B[0m";
+            }
+        };
+
+        assertEquals(mapper.readTree("{\"type\":\"other\",\"match\":false,\"text\":\"nope\"}"), writeJson(custom.match("1")));
+    }
+
+    private JsonNode writeJson(Result result) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            result.writeJson(generator);
+        }
+        return mapper.readTree(out.toString());
+    }
+}
@@ -0,0 +1,132 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.NumericNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static jsonmatch.JsonMatch.*;
+import static jsonmatch.Matcher.mapper;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ResultModelTest {
+
+    private final Matcher matcher = object()
+        .with("name", eq("x"))
+        .with("count", eq(12))
+        .with("ratio", eq(0.5))
+        .with("flag", eq(true))
+        .with("none", isNull())
+        .with("nested", object().ignoreExtraFields(false).with("a", eq("b")).with("c", array().with(eq(1)).with(eq(2))))
+        .with("items", array().with(object().with("id", eq(1)).build()).with(annotate(eq("two"), "second")).build())
+        .build();
+
+    private final String matching = "{\"name\":\"x\",\"count\":12,\"ratio\":0.5,\"flag\":true,\"none\":null,\"extra\":[1]," +
+        "\"nested\":{\"a\":\"b\",\"c\":[1,2,3]},\"items\":[{\"id\":1,\"more\":{}},\"two\"]}";
+
+    @Test
+    public void countsMismatches() {
+        Result result = matcher.match("{\"name\":\"y\",\"count\":12,\"ratio\":\"0.5\",\"flag\":true," +
+            "\"nested\":{\"a\":\"b\",\"c\":[0],\"d\":1},\"items\":[{\"id\":2},\"three\"]}");
+
+        // name, ratio, none, c/0, c/1, d, id, items/1
+        assertEquals(8, result.getMismatchCount());
+        assertEquals(Mismatches.of(result).size(), result.getMismatchCount());
+        assertEquals(0, matcher.match(matching).getMismatchCount());
+    }
+
+    @Test
+    public void sharesMatchedLeafResults() {
+        Matcher string = eq("x");
+        assertSame(string.match("\"x\""), string.match("\"x\""));
+        Matcher number = eq(1.5);
+        assertSame(number.match("1.5"), number.match("1.5"));
+        Matcher bool = eq(false);
+        assertSame(bool.match("false"), bool.match("false"));
+        assertSame(NullResult.INSTANCE, isNull().match("null"));
+    }
+
+    @Test
+    public void sharedResultsRenderLikeTheActualValues() {
+        for (String number : new String[]{"12", "0.5", "1e3", "-0.0"}) {
+            Result fresh = new NumberResult(numberOf(number), (NumericNode) readTree(number));
+            Result shared = eq(numberOf(number)).match(number);
+            assertEquals(fresh.visualize(), shared.visualize());
+        }
+        assertEquals(new StringResult("a\"\n", (TextNode) readTree("\"a\\\"\\n\"")).visualize(),
+            eq("a\"\n").match("\"a\\\"\\n\"").visualize());
+    }
+
+    @Test
+    public void matchingAStringAllocatesNothingPerNode() {
+        StringBuilder numbers = new StringBuilder("1");
+        for (int i = 2; i <= 1000; i++) {
+            numbers.append(',').append(i);
+        }
+        String wider = matching.replace("\"extra\":[1]", "\"extra\":[" + numbers + "]");
+
+        long small = allocatedPerMatch(matching);
+        long large = allocatedPerMatch(wider);
+
+        // only the parser and the deferred result at the top, however many nodes the document has
+        assertTrue(small + " bytes per match, " + large + " for a document with 1000 more nodes", large <= small + 64);
+    }
+
+    @Test
+    public void treeResultsDontChangeWithTheTree() {
+        ObjectNode document = (ObjectNode) readTree(matching);
+        Result result = matcher.match(document);
+        document.put("name", "y");
+        ((ObjectNode) document.get("nested")).put("z", 1);
+
+        assertTrue(result.isMatch());
+        assertEquals(matcher.match(matching).visualize(), result.visualize());
+    }
+
+    @Test
+    public void aMismatchIsWorkedOutOnceAtEveryDepth() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Matcher leaf = parsed -> {
+            calls.incrementAndGet();
+            return eq(1).match(parsed);
+        };
+        Matcher deep = leaf;
+        String json = "2";
+        for (int depth = 0; depth < 50; depth++) {
+            deep = object().with("a", deep).build();
+            json = "{\"a\":" + json + "}";
+        }
+
+        assertFalse(deep.match(mapper.readTree(json)).isMatch());
+        assertEquals(1, calls.getAndSet(0));
+        // the verdict first, then the details, however deep the mismatch is
+        assertFalse(deep.match(json).isMatch());
+        assertEquals(2, calls.get());
+    }
+
+    /** After warming up, so only what the compiled match allocates is counted. */
+    private long allocatedPerMatch(String json) {
+        for (int i = 0; i < 20_000; i++) {
+            assertTrue(matcher.match(json).isMatch());
+        }
+        return Measurements.allocatedBytes(10_000, () -> assertTrue(matcher.match(json).isMatch()));
+    }
+
+    private static Number numberOf(String json) {
+        return readTree(json).numberValue();
+    }
+
+    private static JsonNode readTree(String json) {
+        try {
+            return mapper.readTree(json);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
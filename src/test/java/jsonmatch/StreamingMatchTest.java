@@ -0,0 +1,78 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static jsonmatch.JsonMatch.*;
+import static org.junit.Assert.assertEquals;
+
+public class StreamingMatchTest {
+
+    private final Matcher matcher = object()
+        .with("a", eq("x"))
+        .with("b", annotate(object()
+            .with("c", eq(12))
+            .with("d", isNull())
+            .build(), "nested"))
+        .with("e", array()
+            .with(eq(true))
+            .with(object().ignoreExtraFields(false).with("f", eq("g")).build())
+            .build())
+        .build();
+
+    @Test
+    public void matchingDocument() throws IOException {
+        assertSameAsTree(matcher, "{\"a\":\"x\",\"b\":{\"c\":12,\"d\":null},\"e\":[true,{\"f\":\"g\"}]}");
+    }
+
+    @Test
+    public void mismatchingDocument() throws IOException {
+        assertSameAsTree(matcher, "{\"z\":{\"deep\":[1,2,{\"x\":3}]},\"b\":{\"c\":\"12\"},\"e\":[false,{\"f\":\"g\",\"h\":[1]}],\"a\":\"y\"}");
+    }
+
+    @Test
+    public void wrongTypes() throws IOException {
+        assertSameAsTree(matcher, "{\"a\":[],\"b\":\"string\",\"e\":{}}");
+        assertSameAsTree(matcher, "[1, 2]");
+    }
+
+    @Test
+    public void elidedFieldsAreSkipped() throws IOException {
+        Matcher elided = object().elideIgnoredFieldValues(true).with("a", eq(1)).build();
+        assertSameAsTree(elided, "{\"z\":{\"deep\":[1,2,{\"x\":3}]},\"a\":1,\"y\":[[]]}");
+    }
+
+    @Test
+    public void probedFieldsAreSkipped() throws IOException {
+        Matcher probing = object().elideIgnoredFieldValues(true).probeExpectedFields(true).with("a", eq(1)).with("b", eq(2)).build();
+        assertSameAsTree(probing, "{\"z\":{\"deep\":[1,2,{\"x\":3}]},\"a\":2,\"y\":[[]]}");
+        assertSameAsTree(probing, "{\"b\":2,\"a\":1}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void probingRequiresElidingIgnoredFields() {
+        object().probeExpectedFields(true).with("a", eq(1)).build();
+    }
+
+    @Test
+    public void shortAndLongArrays() throws IOException {
+        Matcher array = array().with(eq(1)).with(eq(2)).build();
+        assertSameAsTree(array, "[1]");
+        assertSameAsTree(array, "[1, 2, {\"x\": [3]}]");
+    }
+
+    private void assertSameAsTree(Matcher matcher, String json) throws IOException {
+        Result fromTree = matcher.match(Matcher.mapper.readValue(json, JsonNode.class));
+        Result fromStream;
+        try (JsonParser parser = Matcher.mapper.createParser(json)) {
+            parser.nextToken();
+            fromStream = matcher.match(parser);
+        }
+        assertEquals(fromTree.isMatch(), fromStream.isMatch());
+        assertEquals(fromTree.visualize(), fromStream.visualize());
+        assertEquals(fromTree.visualize(), matcher.match(json).visualize());
+    }
+}
@@ -0,0 +1,122 @@
+package jsonmatch;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static java.util.Arrays.asList;
+import static jsonmatch.JsonMatch.*;
+import static jsonmatch.Matcher.mapper;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TapeTest {
+
+    private static final Matcher EVENT = object()
+        .with("id", eq("évènement-1"))
+        .with("count", eq(3))
+        .with("total", eq(5_000_000_000L))
+        .with("ratio", eq(0.25))
+        .with("active", eq(true))
+        .with("parent", isNull())
+        .with("note", eq("line\n\"quoted\" 😀"))
+        .with("tags", array().with(eq("a")).with(object().ignoreExtraFields(false).with("b", eq(-1)).build()).build())
+        .build();
+
+    private static final String EVENT_JSON = "{ \"id\" : \"évènement-1\", \"count\":3, \"total\":5000000000, \"ratio\":2.5e-1," +
+        "\"active\":true, \"parent\":null, \"note\":\"line\\n\\\"quoted\\\" 😀\", \"extra\":{\"deep\":[[],{}]}," +
+        "\"tags\":[\"a\",{\"b\":-1},\"c\"] }";
+
+    @Test
+    public void givesTheVerdictsAndResultsOfTheParsedDocument() {
+        Tape tape = new Tape();
+        for (String json : asList(
+            EVENT_JSON,
+            EVENT_JSON.replace("\"count\":3", "\"count\":3.0"),
+            EVENT_JSON.replace("\"count\":3", "\"count\":4"),
+            EVENT_JSON.replace("5000000000", "5000000001"),
+            EVENT_JSON.replace("2.5e-1", "0.250000000000000000001"),
+            EVENT_JSON.replace("2.5e-1", "0.26"),
+            EVENT_JSON.replace("évènement", "evenement"),
+            EVENT_JSON.replace("\\\"quoted", "\\u0022quoted"),
+            EVENT_JSON.replace("\"active\":true", "\"active\":false"),
+            EVENT_JSON.replace("\"parent\":null", "\"parent\":{}"),
+            EVENT_JSON.replace("{\"b\":-1}", "{\"b\":-1,\"c\":1}"),
+            EVENT_JSON.replace("[\"a\",", "["),
+            EVENT_JSON.replace("\"tags\":", "\"tag\":"),
+            "[]",
+            "\"event\"")) {
+            tape.parse(json.getBytes(StandardCharsets.UTF_8));
+            assertEquals(json, EVENT.matches(json), tape.matches(EVENT));
+            assertEquals(json, EVENT.match(json).visualize(), tape.match(EVENT).visualize());
+        }
+    }
+
+    @Test
+    public void readsNumbersAsParsingWould() throws Exception {
+        Tape tape = new Tape();
+        for (String number : asList("0", "-0", "7", "-2147483648", "2147483648", "-9223372036854775808", "9223372036854775808",
+            "123456789012345678901234567890", "0.1", "-0.0", "1e3", "1E+2", "12.5e-3", "3.141592653589793238", "1e400", "4.9e-324",
+            "17976931348623157e292", "0.000001")) {
+            Number expected = mapper.readTree(number).numberValue();
+            Number actual = tape.parse(number).numberValue(tape.root());
+            assertEquals(number, expected, actual);
+            assertTrue(number, tape.matches(new NumberMatcher(expected)));
+        }
+    }
+
+    @Test
+    public void rejectsInvalidDocuments() {
+        Tape tape = new Tape();
+        for (String json : asList("", "{", "{\"a\"}", "{\"a\":1,}", "[1 2]", "[1]]", "01", "1.", "-", "tru", "\"\\x\"", "\"\\u12\"", "\"open", "{1:2}", "[1] x")) {
+            try {
+                tape.parse(json);
+                fail("parsed " + json);
+            } catch (RuntimeException expected) {
+                // as expected
+            }
+        }
+    }
+
+    @Test
+    public void theLastOfDuplicateKeysWins() {
+        Tape tape = new Tape().parse("{\"a\":1,\"b\":true,\"a\":2}");
+        for (Matcher matcher : asList(object().with("a", eq(2)).build(), object().with("a", eq(1)).build())) {
+            assertEquals(tape.match(matcher).isMatch(), tape.matches(matcher));
+        }
+        assertTrue(tape.matches(object().with("a", eq(2)).build()));
+
+        StringBuilder wide = new StringBuilder("{\"a\":1");
+        ObjectMatcher.Builder matcher = object().with("a", eq(2));
+        for (int i = 0; i < ObjectMatcher.LOOKED_UP_FIELDS; i++) {
+            wide.append(",\"field").append(i).append("\":").append(i);
+            matcher.with("field" + i, eq(i));
+        }
+        tape.parse(wide.append(",\"a\":2}").toString());
+        assertTrue(tape.matches(matcher.build()));
+        assertFalse(tape.matches(matcher.with("a", eq(1)).build()));
+    }
+
+    @Test
+    public void isReusedPerThread() {
+        Tape tape = Tape.forCurrentThread();
+        assertSame(tape, Tape.forCurrentThread());
+        assertTrue(tape.parse("{\"id\":\"a\"}").matches(object().with("id", eq("a")).build()));
+        assertTrue(tape.parse("[1,[2,3],4]").matches(array().with(eq(1)).with(array().with(eq(2)).build()).with(eq(4)).build()));
+    }
+
+    @Test
+    public void matchingSmallDocumentsAllocatesNextToNothing() {
+        byte[] json = EVENT_JSON.getBytes(StandardCharsets.UTF_8);
+        Tape tape = new Tape();
+        Runnable parseAndMatch = () -> assertTrue(tape.parse(json).matches(EVENT));
+        for (int i = 0; i < 20_000; i++) {
+            parseAndMatch.run();
+        }
+        long bytes = Measurements.allocatedBytes(10_000, parseAndMatch);
+        assertTrue("allocated " + bytes + " bytes per match", bytes <= 16);
+    }
+}
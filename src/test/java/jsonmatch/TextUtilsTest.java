@@ -3,6 +3,8 @@ package jsonmatch;
 
 import org.junit.Test;
 
+import java.io.IOException;
+
 import static org.junit.Assert.assertEquals;
 
 public class TextUtilsTest {
@@ -13,4 +15,17 @@ public class TextUtilsTest {
             "Ist Das? ╯", TextUtils.annotate("Hallo\nWas\nIst Das?", "annotation."));
     }
 
+    @Test
+    public void indentingAppendableIndentsLikeIndent() throws IOException {
+        for (String text : new String[]{"", "a", "a\nb", "a\n\nb\n", "{\n    x\n}\n,\n", "\nleading", "a\n\n\n"}) {
+            StringBuilder out = new StringBuilder();
+            IndentingAppendable indenting = new IndentingAppendable(out);
+            for (String piece : text.split("(?<=\n)|(?=\n)")) {
+                indenting.append(piece);
+            }
+            indenting.finish();
+            assertEquals(TextUtils.indent(text), out.toString());
+        }
+    }
+
 }
@@ -0,0 +1,216 @@
+package jsonmatch;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static jsonmatch.JsonMatch.*;
+import static jsonmatch.Matcher.mapper;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ValueMatchingTest {
+
+    public enum Status {
+        ACTIVE,
+        @JsonProperty("gone") DELETED
+    }
+
+    public static class Line {
+        public String sku;
+        public int quantity;
+
+        Line(String sku, int quantity) {
+            this.sku = sku;
+            this.quantity = quantity;
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Order {
+        private final String id;
+        private final long total;
+        private final boolean paid;
+        private final String voucher;
+        private final Status status;
+        private final List<Line> lines;
+        private final Map<String, Object> attributes;
+
+        Order(String id, long total, boolean paid, String voucher, Status status, List<Line> lines, Map<String, Object> attributes) {
+            this.id = id;
+            this.total = total;
+            this.paid = paid;
+            this.voucher = voucher;
+            this.status = status;
+            this.lines = lines;
+            this.attributes = attributes;
+        }
+
+        @JsonProperty("orderId")
+        public String getId() {
+            return id;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public boolean isPaid() {
+            return paid;
+        }
+
+        public String getVoucher() {
+            return voucher;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public List<Line> getLines() {
+            return lines;
+        }
+
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @JsonIgnore
+        public String getSecret() {
+            return "secret";
+        }
+    }
+
+    private final Matcher matcher = object()
+        .with("orderId", eq("o-1"))
+        .with("total", eq(99))
+        .with("paid", eq(true))
+        .with("status", eq("ACTIVE"))
+        .with("lines", array()
+            .with(object().with("sku", eq("a")).with("quantity", eq(1)).build())
+            .with(object().ignoreExtraFields(false).with("sku", eq("b")).with("quantity", eq(3)).build())
+            .build())
+        .with("attributes", object()
+            .with("weight", eq(1.5))
+            .with("big", eq(new BigInteger("123456789012345678901234567890")))
+            .with("tags", array().with(eq("x")).with(isNull()).build())
+            .build())
+        .build();
+
+    @Test
+    public void matchesObjectsLikeTheirJson() throws JsonProcessingException {
+        for (Order order : asList(
+            order("o-1", 99, true, null, Status.ACTIVE, 3, 1.5f),
+            order("o-1", 99, true, "v", Status.ACTIVE, 3, 1.5f),
+            order("o-2", 99, false, null, Status.DELETED, 3, 1.5f),
+            order("o-1", 5_000_000_000L, true, null, Status.ACTIVE, 4, 1.25f),
+            order("o-1", 99, true, null, Status.ACTIVE, -1, 1.5f))) {
+            String json = mapper.writeValueAsString(order);
+            Result fromJson = matcher.match(json);
+            Result fromValue = matcher.matchValue(order);
+            assertEquals(json, fromJson.isMatch(), matcher.matchesValue(order));
+            assertEquals(json, fromJson.isMatch(), fromValue.isMatch());
+            assertEquals(json, fromJson.visualize(), fromValue.visualize());
+        }
+    }
+
+    @Test
+    public void readsMapsListsArraysAndScalars() throws JsonProcessingException {
+        Map<Object, Object> map = new LinkedHashMap<>();
+        map.put(1, new int[]{1, 2});
+        map.put("set", new LinkedHashSet<>(asList("a", "b")));
+        map.put("chars", 'c');
+        map.put("short", (short) 7);
+        map.put("decimal", new BigDecimal("2.50"));
+        map.put("integral", new BigDecimal("12"));
+        map.put("id", UUID.fromString("00000000-0000-0000-0000-000000000001"));
+        map.put("node", mapper.readTree("{\"x\":[true]}"));
+        map.put("bytes", new byte[]{1, 2, 3});
+
+        Matcher mapMatcher = object()
+            .ignoreExtraFields(false)
+            .with("1", array().with(eq(1)).with(eq(2)).build())
+            .with("set", array().with(eq("a")).with(eq("b")).build())
+            .with("chars", eq("c"))
+            .with("short", eq(7))
+            .with("decimal", eq(2.5))
+            .with("integral", eq(12))
+            .with("id", eq("00000000-0000-0000-0000-000000000001"))
+            .with("node", object().with("x", array().with(eq(true)).build()).build())
+            .with("bytes", eq("AQID"))
+            .build();
+
+        assertTrue(mapMatcher.match(mapper.writeValueAsString(map)).isMatch());
+        assertTrue(mapMatcher.matchValue(map).visualize(), mapMatcher.matchesValue(map));
+        assertTrue(mapMatcher.matchValue(map).isMatch());
+
+        map.put("extra", null);
+        assertFalse(mapMatcher.matchesValue(map));
+        assertEquals(mapMatcher.match(mapper.writeValueAsString(map)).visualize(), mapMatcher.matchValue(map).visualize());
+    }
+
+    @Test
+    public void compiledAndAnnotatedMatchersReadValuesToo() {
+        Order order = order("o-1", 99, true, null, Status.ACTIVE, 3, 1.5f);
+        assertTrue(MatcherCompiler.compile(matcher).matchesValue(order));
+        assertTrue(annotate(matcher, "order").matchValue(order).isMatch());
+        assertFalse(projected(eq("o-1")).matchesValue(order));
+    }
+
+    public static class Converted {
+        static final AtomicInteger conversions = new AtomicInteger();
+
+        @JsonValue
+        public Map<String, Object> toJson() {
+            conversions.incrementAndGet();
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("a", 1);
+            json.put("b", asList(2, 3));
+            json.put("c", "d");
+            return json;
+        }
+    }
+
+    @Test
+    public void convertsValuesJacksonWritesItselfOnce() {
+        Matcher convertedMatcher = object().with("a", eq(1)).with("b", array().with(eq(2)).with(eq(3)).build()).with("c", eq("d")).build();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("value", new Converted());
+
+        Converted.conversions.set(0);
+        assertTrue(object().with("value", convertedMatcher).build().matchesValue(map));
+        assertEquals(1, Converted.conversions.get());
+
+        Converted.conversions.set(0);
+        assertTrue(convertedMatcher.matchesValue(new Converted()));
+        assertEquals(1, Converted.conversions.get());
+    }
+
+    private static Order order(String id, long total, boolean paid, String voucher, Status status, int secondQuantity, float weight) {
+        List<Line> lines = new ArrayList<>();
+        lines.add(new Line("a", 1));
+        if (secondQuantity >= 0) {
+            lines.add(new Line("b", secondQuantity));
+        }
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("weight", weight);
+        attributes.put("big", new BigInteger("123456789012345678901234567890"));
+        attributes.put("tags", asList("x", null));
+        return new Order(id, total, paid, voucher, status, lines, attributes);
+    }
+}
@@ -0,0 +1,110 @@
+package jsonmatch.bulk;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static jsonmatch.JsonMatch.eq;
+import static jsonmatch.JsonMatch.object;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BulkMatcherTest {
+
+    private final BulkMatcher bulkMatcher = BulkMatcher.builder(object().with("type", eq("event")))
+        .workers(4)
+        .maxInFlight(8)
+        .maxFailures(3)
+        .build();
+
+    @Test
+    public void newlineDelimitedRecords() {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            lines.append("{\"id\":").append(i).append(",\"type\":\"").append(i % 100 == 7 ? "other" : "event").append("\"}\n");
+        }
+
+        BulkReport report = bulkMatcher.matchLines(stream(lines.toString()));
+
+        assertEquals(1000, report.getRecords());
+        assertEquals(990, report.getMatched());
+        assertEquals(10, report.getMismatched());
+        assertFalse(report.isMatch());
+        assertEquals(3, report.getFailures().size());
+        assertEquals(7, report.getFailures().get(0).getRecordIndex());
+        assertEquals(107, report.getFailures().get(1).getRecordIndex());
+        assertEquals(207, report.getFailures().get(2).getRecordIndex());
+
+        long offset = report.getFailures().get(0).getByteOffset();
+        assertTrue(lines.substring((int) offset).startsWith("{\"id\":7,"));
+        assertFalse(report.getFailures().get(0).getResult().isMatch());
+    }
+
+    @Test
+    public void topLevelArrayElements() {
+        BulkReport report = bulkMatcher.matchArrayElements(stream("[{\"type\":\"event\"}, {\"type\":\"event\"}, {}]"));
+
+        assertEquals(3, report.getRecords());
+        assertEquals(2, report.getMatched());
+        assertEquals(1, report.getFailures().size());
+        assertEquals(2, report.getFailures().get(0).getRecordIndex());
+    }
+
+    @Test
+    public void arrayElementsAreCutOutsideOfStrings() {
+        BulkReport report = bulkMatcher.matchArrayElements(stream(
+            "[ {\"type\":\"event\",\"text\":\"],[{\\\"\"},\n[1, {\"a\": [2]}] , \"x,y\" ]"));
+
+        assertEquals(3, report.getRecords());
+        assertEquals(1, report.getMatched());
+        assertEquals(2, report.getFailures().size());
+        assertEquals(1, report.getFailures().get(0).getRecordIndex());
+        assertEquals(2, report.getFailures().get(1).getRecordIndex());
+    }
+
+    @Test
+    public void malformedRecordsAreFailures() {
+        String lines = "{\"type\":\"event\"}\n{\"type\":\n\n{\"type\":\"event\"} {}\n{\"type\":\"event\"}\n";
+
+        BulkReport report = bulkMatcher.matchLines(stream(lines));
+
+        assertEquals(4, report.getRecords());
+        assertEquals(2, report.getMatched());
+        assertEquals(2, report.getMismatched());
+        BulkFailure truncated = report.getFailures().get(0);
+        assertEquals(1, truncated.getRecordIndex());
+        assertTrue(lines.substring((int) truncated.getByteOffset()).startsWith("{\"type\":\n"));
+        assertNull(truncated.getResult());
+        assertNotNull(truncated.getError());
+        assertEquals(2, report.getFailures().get(1).getRecordIndex());
+        assertNotNull(report.getFailures().get(1).getError());
+    }
+
+    @Test
+    public void keepsExactlyTheFirstFailures() {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            lines.append(i % 3 == 0 ? "{}" : "{\"type\":\"event\"}").append('\n');
+        }
+        BulkMatcher matcher = BulkMatcher.builder(object().with("type", eq("event"))).workers(8).maxFailures(50).build();
+
+        for (int run = 0; run < 5; run++) {
+            BulkReport report = matcher.matchLines(stream(lines.toString()));
+
+            assertEquals(6667, report.getMismatched());
+            assertEquals(50, report.getFailures().size());
+            for (int i = 0; i < 50; i++) {
+                assertEquals(i * 3, report.getFailures().get(i).getRecordIndex());
+            }
+        }
+    }
+
+    private static InputStream stream(String s) {
+        return new ByteArrayInputStream(s.getBytes(UTF_8));
+    }
+}
@@ -0,0 +1,210 @@
+package jsonmatch.flow;
+
+import jsonmatch.Matcher;
+import jsonmatch.Result;
+import org.junit.After;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static jsonmatch.JsonMatch.eq;
+import static jsonmatch.JsonMatch.object;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MatchProcessorTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private final Matcher matcher = object().with("id", eq(1)).build();
+
+    @After
+    public void shutDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void publishesResultsInOrder() throws InterruptedException {
+        List<String> documents = documents(200);
+        MatchProcessor<String, Result> processor = MatchProcessor.results(slow(matcher)).executor(executor).parallelism(4).build();
+        Collector<Result> collector = new Collector<>(Long.MAX_VALUE);
+        processor.subscribe(collector);
+        new ListPublisher<>(documents).subscribe(processor);
+
+        collector.await();
+        assertNull(collector.error);
+        assertEquals(documents.size(), collector.items.size());
+        for (int i = 0; i < documents.size(); i++) {
+            assertEquals(matcher.match(documents.get(i)).visualize(), collector.items.get(i).visualize());
+        }
+    }
+
+    @Test
+    public void publishesVerdictsUnordered() throws InterruptedException {
+        List<byte[]> documents = new ArrayList<>();
+        for (String document : documents(200)) {
+            documents.add(document.getBytes());
+        }
+        MatchProcessor<byte[], Boolean> processor = MatchProcessor.verdicts(slow(matcher)).executor(executor).parallelism(8).ordered(false).build();
+        Collector<Boolean> collector = new Collector<>(Long.MAX_VALUE);
+        processor.subscribe(collector);
+        new ListPublisher<>(documents).subscribe(processor);
+
+        collector.await();
+        assertNull(collector.error);
+        assertEquals(200, collector.items.size());
+        assertEquals(100, Collections.frequency(collector.items, true));
+    }
+
+    @Test
+    public void respectsDemandAndBoundsParallelism() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Matcher counting = parsed -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep();
+            running.decrementAndGet();
+            return matcher.match(parsed);
+        };
+        MatchProcessor<String, Result> processor = MatchProcessor.results(counting).executor(executor).parallelism(3).build();
+        Collector<Result> collector = new Collector<>(5);
+        processor.subscribe(collector);
+        ListPublisher<String> publisher = new ListPublisher<>(documents(50));
+        publisher.subscribe(processor);
+
+        Thread.sleep(300);
+        assertEquals(5, collector.items.size());
+        assertEquals(5, publisher.requested.get());
+
+        collector.subscription.request(Long.MAX_VALUE);
+        collector.await();
+        assertEquals(50, collector.items.size());
+        assertTrue(maxRunning.get() <= 3);
+    }
+
+    @Test
+    public void failsOnDocumentsThatCantBeMatched() throws InterruptedException {
+        MatchProcessor<Object, Result> processor = MatchProcessor.results(matcher).executor(Runnable::run).build();
+        Collector<Result> collector = new Collector<>(Long.MAX_VALUE);
+        processor.subscribe(collector);
+        ListPublisher<Object> publisher = new ListPublisher<>(asList("{\"id\":1}", "{\"id\":", "{\"id\":1}", 42));
+        publisher.subscribe(processor);
+
+        collector.await();
+        assertEquals(1, collector.items.size());
+        assertTrue(collector.error instanceof RuntimeException);
+        assertTrue(publisher.cancelled);
+    }
+
+    private static List<String> documents(int count) {
+        List<String> documents = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            documents.add("{\"id\":" + (i % 2) + ",\"n\":" + i + "}");
+        }
+        return documents;
+    }
+
+    private static Matcher slow(Matcher matcher) {
+        return parsed -> {
+            if (ThreadLocalRandom.current().nextInt(4) == 0) {
+                sleep();
+            }
+            return matcher.match(parsed);
+        };
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Publishes a list as fast as requested, from the requesting thread. */
+    private static class ListPublisher<T> implements Publisher<T> {
+        final List<T> items;
+        final AtomicInteger requested = new AtomicInteger();
+        volatile boolean cancelled;
+
+        ListPublisher(List<T> items) {
+            this.items = items;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super T> subscriber) {
+            subscriber.onSubscribe(new Subscription() {
+                int next;
+                boolean done;
+
+                @Override
+                public synchronized void request(long n) {
+                    requested.addAndGet((int) Math.min(n, items.size()));
+                    for (long i = 0; i < n && next < items.size() && !cancelled; i++) {
+                        subscriber.onNext(items.get(next++));
+                    }
+                    if (next == items.size() && !done && !cancelled) {
+                        done = true;
+                        subscriber.onComplete();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+
+    private static class Collector<T> implements Subscriber<T> {
+        final long initialDemand;
+        final List<T> items = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Subscription subscription;
+        volatile Throwable error;
+
+        Collector(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialDemand);
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("not finished in time", done.await(10, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package jsonmatch.monitor;
+
+import jsonmatch.Matcher;
+import jsonmatch.MismatchKind;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static jsonmatch.JsonMatch.array;
+import static jsonmatch.JsonMatch.eq;
+import static jsonmatch.JsonMatch.object;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ContractMonitorTest {
+
+    private final Matcher matcher = object()
+        .ignoreExtraFields(false)
+        .with("type", eq("event"))
+        .with("id", object().with("value", eq(1)))
+        .with("tags", array().with(eq("a")))
+        .build();
+
+    @Test
+    public void countsMismatchesPerPathAndKind() {
+        ContractMonitor monitor = ContractMonitor.builder(matcher).sampleRate(1).executor(Runnable::run).build();
+
+        monitor.offer("{\"type\":\"event\",\"id\":{\"value\":1},\"tags\":[\"a\"]}");
+        monitor.offer("{\"type\":\"other\",\"id\":{\"value\":\"1\"},\"tags\":[\"a\"]}");
+        monitor.offer("{\"type\":\"other\",\"id\":{},\"tags\":[],\"more\":true}".getBytes());
+        monitor.offer("{\"type\":");
+
+        MonitorReport report = monitor.report();
+        assertEquals(4, report.getOffered());
+        assertEquals(4, report.getSampled());
+        assertEquals(0, report.getDropped());
+        assertEquals(1, report.getMatched());
+        assertEquals(2, report.getMismatched());
+        assertEquals(1, report.getErrors());
+        assertEquals(asList(
+            new PathMismatches("/type", MismatchKind.WRONG_VALUE, 2),
+            new PathMismatches("/id/value", MismatchKind.MISSING, 1),
+            new PathMismatches("/id/value", MismatchKind.WRONG_TYPE, 1),
+            new PathMismatches("/more", MismatchKind.EXTRA, 1),
+            new PathMismatches("/tags/0", MismatchKind.MISSING, 1)), report.getMismatches());
+        assertEquals(2, report.getExamples().size());
+    }
+
+    @Test
+    public void samplesAFractionOfTheDocuments() {
+        ContractMonitor monitor = ContractMonitor.builder(matcher).sampleRate(0.1).executor(Runnable::run).build();
+        for (int i = 0; i < 10_000; i++) {
+            monitor.offer("{}");
+        }
+        MonitorReport report = monitor.report();
+        assertEquals(10_000, report.getOffered());
+        assertTrue(report.getSampled() > 800 && report.getSampled() < 1200);
+        assertEquals(report.getSampled(), report.getMismatched());
+
+        ContractMonitor none = ContractMonitor.builder(matcher).sampleRate(0).executor(Runnable::run).build();
+        assertFalse(none.offer("{}"));
+        assertEquals(0, none.report().getSampled());
+    }
+
+    @Test
+    public void dropsDocumentsInsteadOfBlocking() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            ContractMonitor monitor = ContractMonitor.builder(matcher).sampleRate(1).executor(executor).maxQueued(3).build();
+            List<Boolean> accepted = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                accepted.add(monitor.offer("{}"));
+            }
+            assertEquals(asList(true, true, true, false, false), accepted);
+            assertEquals(2, monitor.report().getDropped());
+
+            release.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(3, monitor.report().getMismatched());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void keepsABoundedSampleOfExamples() {
+        ContractMonitor monitor = ContractMonitor.builder(matcher)
+            .sampleRate(1)
+            .executor(Runnable::run)
+            .maxExamples(3)
+            .maxPaths(2)
+            .build();
+        for (int i = 0; i < 100; i++) {
+            monitor.offer("{\"type\":\"event\",\"id\":{\"value\":1},\"tags\":[\"a\"],\"extra" + i + "\":0}");
+        }
+        MonitorReport report = monitor.report();
+        assertEquals(3, report.getExamples().size());
+        assertEquals(2, report.getMismatches().size());
+        assertEquals(98, report.getUntrackedMismatches());
+    }
+
+    @Test
+    public void checksConcurrentlyOnItsOwnThreads() throws InterruptedException {
+        try (ContractMonitor monitor = ContractMonitor.builder(matcher).sampleRate(1).threads(2).maxQueued(100_000).build()) {
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        monitor.offer("{\"type\":\"other\",\"id\":{\"value\":1},\"tags\":[\"a\"]}");
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (monitor.report().getMismatched() < 4000 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(asList(new PathMismatches("/type", MismatchKind.WRONG_VALUE, 4000)), monitor.report().getMismatches());
+        }
+    }
+}